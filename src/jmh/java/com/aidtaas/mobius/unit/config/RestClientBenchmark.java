@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.config;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.core.Response;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.core5.io.CloseMode;
+import org.eclipse.microprofile.rest.client.RestClientBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the cost of one outbound GET against a local server when a MicroProfile REST client is
+ * built per call (the original {@code DynamicRestClient}), when one client is kept per origin, and
+ * through the shared pooled async client of {@link DynamicRestClient}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+public class RestClientBenchmark {
+
+  private static final byte[] BODY = "{\"status\":\"ok\"}".getBytes(StandardCharsets.UTF_8);
+
+  private static final Map<String, Object> CONFIG = Map.ofEntries(
+    Map.entry("restClientReadTimeout", 75),
+    Map.entry("restClientConnectTimeout", 30),
+    Map.entry("responseSpillThreshold", 1048576),
+    Map.entry("restClientMaxPoolSize", 100),
+    Map.entry("restClientMaxPerRoute", 10),
+    Map.entry("restClientHostMaxPerRoute", Map.of()),
+    Map.entry("restClientIdleEviction", 30000L),
+    Map.entry("restClientConnectionTtl", 300000L),
+    Map.entry("restClientHttp2", false),
+    Map.entry("restClientCompression", Map.of()),
+    Map.entry("circuitBreakerByProduct", false),
+    Map.entry("circuitBreakerWindowSize", 20),
+    Map.entry("circuitBreakerMinimumCalls", 10),
+    Map.entry("circuitBreakerFailureRate", 50),
+    Map.entry("circuitBreakerOpenDuration", 30000L),
+    Map.entry("circuitBreakerHalfOpenCalls", 3),
+    Map.entry("bulkheadMaxConcurrent", 20),
+    Map.entry("hedgePercentile", 0.95),
+    Map.entry("hedgeMinDelay", 50L),
+    Map.entry("hedgeMinSamples", 20),
+    Map.entry("restClientMaxRetries", 2),
+    Map.entry("restClientRetryBaseDelay", 100L),
+    Map.entry("restClientRetryMaxDelay", 2000L),
+    Map.entry("retryBudgetRatio", 0.1),
+    Map.entry("retryBudgetMinPerSecond", 5),
+    Map.entry("dnsCacheMaxSize", 256),
+    Map.entry("dnsCacheTtl", 60000L),
+    Map.entry("dnsCacheNegativeTtl", 5000L));
+
+  @Path("")
+  public interface PingClient {
+
+    @GET
+    @Path("/ping")
+    Response ping();
+  }
+
+  private HttpServer server;
+
+  private String baseUrl;
+
+  private PingClient cachedClient;
+
+  private CloseableHttpAsyncClient httpClient;
+
+  private DynamicRestClient dynamicRestClient;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/ping", exchange -> {
+      exchange.getResponseHeaders().add("Content-Type", "application/json");
+      exchange.sendResponseHeaders(200, BODY.length);
+      exchange.getResponseBody().write(BODY);
+      exchange.close();
+    });
+    server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    server.start();
+    baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+
+    cachedClient = newClient();
+
+    ConfigProperties config = config();
+    var meterRegistry = new SimpleMeterRegistry();
+    var dnsResolver = new CachingDnsResolver(config, meterRegistry);
+    dnsResolver.init();
+    var connectionPools = new HttpConnectionPools(config, meterRegistry, dnsResolver);
+    connectionPools.init();
+    httpClient = new HttpClientConfig(config, connectionPools).httpclient();
+    var endpointGuards = new EndpointGuards(config, meterRegistry, connectionPools);
+    endpointGuards.init();
+    var retryBudget = new RetryBudget(config, meterRegistry);
+    retryBudget.init();
+    dynamicRestClient = new DynamicRestClient(httpClient, config, meterRegistry, connectionPools, endpointGuards,
+      retryBudget);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    ((AutoCloseable) cachedClient).close();
+    httpClient.close(CloseMode.GRACEFUL);
+    server.stop(0);
+  }
+
+  private PingClient newClient() {
+    return RestClientBuilder.newBuilder()
+      .baseUri(URI.create(baseUrl))
+      .followRedirects(true)
+      .connectTimeout(30, TimeUnit.SECONDS)
+      .readTimeout(75, TimeUnit.SECONDS)
+      .build(PingClient.class);
+  }
+
+  private static ConfigProperties config() {
+    return (ConfigProperties) Proxy.newProxyInstance(ConfigProperties.class.getClassLoader(),
+      new Class<?>[] {ConfigProperties.class}, (proxy, method, args) -> {
+        if (method.getReturnType() == Optional.class) {
+          return Optional.empty();
+        }
+        return CONFIG.get(method.getName());
+      });
+  }
+
+  @Benchmark
+  public String clientPerCall() throws Exception {
+    PingClient client = newClient();
+    try (Response response = client.ping()) {
+      return response.readEntity(String.class);
+    } finally {
+      ((AutoCloseable) client).close();
+    }
+  }
+
+  @Benchmark
+  public String clientPerOrigin() {
+    try (Response response = cachedClient.ping()) {
+      return response.readEntity(String.class);
+    }
+  }
+
+  @Benchmark
+  public Object sharedAsyncClient() {
+    return dynamicRestClient.makeApiCall(baseUrl + "/ping", null, "GET", null).getBody();
+  }
+}
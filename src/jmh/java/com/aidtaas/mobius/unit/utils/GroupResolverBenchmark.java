@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.utils;
+
+import com.aidtaas.mobius.unit.config.Config;
+import com.aidtaas.mobius.unit.dto.Field;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares resolving a group with {@link GroupResolver} against the parallel stream into a concurrent
+ * map it replaced, for groups of several sizes. Each entry is converted to a {@link Field} the way
+ * {@code BobValidator} resolves brick items.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GroupResolverBenchmark {
+
+  @Param({"8", "64", "512", "4096"})
+  private int size;
+
+  private Map<String, Object> group;
+
+  @Setup
+  public void setUp() {
+    group = LinkedHashMap.newLinkedHashMap(size);
+    for (int i = 0; i < size; i++) {
+      group.put("item" + i, Map.of("type", "STATIC", "value", "value" + i));
+    }
+  }
+
+  private static Field toField(String name, Object item) {
+    return Config.OBJECT_MAPPER.convertValue(item, Field.class);
+  }
+
+  @Benchmark
+  public Map<String, Field> sequential() {
+    return GroupResolver.resolve(group, GroupResolverBenchmark::toField, Objects::nonNull);
+  }
+
+  @Benchmark
+  public Map<String, Field> parallelStream() {
+    return group.entrySet().parallelStream()
+      .map((Map.Entry<String, Object> entry) -> new SimpleEntry<>(entry.getKey(), toField(entry.getKey(),
+        entry.getValue())))
+      .filter(entry -> Objects.nonNull(entry.getValue()))
+      .collect(Collectors.toConcurrentMap(Map.Entry::getKey, Map.Entry::getValue));
+  }
+}
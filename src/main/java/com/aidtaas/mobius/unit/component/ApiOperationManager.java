@@ -11,21 +11,42 @@ import com.aidtaas.mobius.unit.config.DynamicRestClient;
 import com.aidtaas.mobius.unit.config.URLResolver;
 import com.aidtaas.mobius.unit.constants.BobConstants;
 import com.aidtaas.mobius.unit.dto.ApiOperation;
+import com.aidtaas.mobius.unit.dto.ApiResponseBody;
 import com.aidtaas.mobius.unit.enums.Environment;
 import com.aidtaas.mobius.unit.exception.NonRetryableException;
 import com.aidtaas.mobius.unit.exception.RetryableException;
+import com.aidtaas.mobius.unit.utils.SingleFlight;
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jayway.jsonpath.Configuration;
 import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.InvalidJsonException;
+import com.jayway.jsonpath.spi.json.JsonProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.hc.core5.http.HttpHeaders;
 
 import static com.aidtaas.mobius.unit.constants.BobConstants.AUTHORIZATION;
 import static com.aidtaas.mobius.unit.constants.BobConstants.AUTHORIZATION_GLOBAL;
@@ -34,18 +55,55 @@ import static java.lang.String.format;
 
 /**
  * The type Api operation manager.
+ * The product master configs and alliance configs are cached parsed, once per config. A cached config is
+ * only served to callers whose authorization the marketplace granted it to within the grant lifetime; any
+ * other caller first has its authorization checked with a request conditional on the cached validators,
+ * which revalidates the config as well. Every task gets its own copy of the cached document, so changes a
+ * task makes to it stay with that task. When a marketplace service authorization is configured, a cached
+ * config is revalidated with it in the background once it is older than the refresh interval, and grants
+ * last the TTL; otherwise grants last the refresh interval, so the callers revalidate the configs as their
+ * grants are checked. Caller tokens are never kept. Configs are dropped after the TTL.
+ * Tasks missing the same config wait for a single fetch, each for at most the single-flight timeout.
  */
 @Slf4j
 @ApplicationScoped
 @RequiredArgsConstructor
 public class ApiOperationManager {
 
+  private static final String MASTER_CONFIG = "master";
+
+  private static final String ALLIANCE = "alliance";
+
+  private static final String KIND_TAG = "kind";
+
+  private static final Executor CONFIG_PARSERS = Executors.newVirtualThreadPerTaskExecutor();
+
+  private static final JsonProvider JSON = Configuration.defaultConfiguration().jsonProvider();
+
   private final DynamicRestClient restTemplate;
 
   private final URLResolver urlResolver;
 
   private final ConfigProperties config;
 
+  private final MeterRegistry meterRegistry;
+
+  private AsyncLoadingCache<MasterConfigKey, CachedConfig> masterConfigs;
+
+  private AsyncLoadingCache<AllianceConfigKey, CachedConfig> allianceConfigs;
+
+  private final SingleFlight<Grant, CachedConfig> checks = new SingleFlight<>("authorization check");
+
+  private long grantLifetime;
+
+  @PostConstruct
+  public void init() {
+    grantLifetime = config.marketplaceServiceAuthorization().filter(StringUtils::isNotBlank).isPresent()
+      ? config.productConfigCacheTtl() : config.productConfigCacheRefresh();
+    masterConfigs = buildCache(MASTER_CONFIG, this::masterConfigUrl);
+    allianceConfigs = buildCache(ALLIANCE, this::allianceConfigUrl);
+  }
+
   /**
    * Retrieve rest api info.
    *
@@ -83,22 +141,13 @@ public class ApiOperationManager {
    */
   private DocumentContext retrieveAllianceConfig(String creatorId, String appId, String auth) {
 
-    Map<String, String> pathParams = new HashMap<>();
-    pathParams.put(BobConstants.BUYER_ID, creatorId);
-    pathParams.put(BobConstants.APP_ID, appId);
-
-    String configUrl = urlResolver.constructUrl(config.marketplaceAllianceUrl(), null, pathParams);
-
-    String allianceJsonString;
+    var key = new AllianceConfigKey(creatorId, appId);
+    String configUrl = allianceConfigUrl(key);
 
     try {
-      Map<String, String> headers = new HashMap<>();
-      headers.put(AUTHORIZATION, auth);
-      allianceJsonString = restTemplate.makeApiCall(configUrl, null, "GET", headers).getBody();
-      if (ObjectUtils.isEmpty(allianceJsonString)) {
-        throw new NonRetryableException("No alliance config available for this appId and creatorId");
-      }
+      DocumentContext allianceJson = retrieve(allianceConfigs, key, configUrl, auth, ALLIANCE).document();
       log.info("Received alliance json for component {}", appId);
+      return allianceJson;
 
     } catch (RetryableException restException) {
       String errorMessage = format(
@@ -109,17 +158,6 @@ public class ApiOperationManager {
         "Failed to retrieve alliance || " + errorMessage + " || " + restException.getMessage(),
         restException);
     }
-
-    try {
-      return parse(allianceJsonString);
-
-    } catch (InvalidJsonException parseException) {
-      String errorMessage = format(
-        "Error parsing the json of alliance for product %s retrieved from marketplace :: %s ", appId,
-        allianceJsonString);
-      log.error(errorMessage, parseException);
-      throw new NonRetryableException(errorMessage, parseException);
-    }
   }
 
   /**
@@ -135,24 +173,18 @@ public class ApiOperationManager {
                                                                String apiPath, String auth) {
 
     log.info("Api path : {}", apiPath);
-    Map<String, String> pathParams = Map.of("masterConfigId", productMasterConfigId);
-    Map<String, String> queryParams = null;
+    String interfaceName = null;
     if(StringUtils.isNotEmpty(apiPath)) {
-      queryParams = Map.of("interfaceName",
-        URLEncoder.encode(Arrays.stream(apiPath.split("#")).findFirst().orElse(""), StandardCharsets.UTF_8));
+      interfaceName = Arrays.stream(apiPath.split("#")).findFirst().orElse("");
     }
-    String configUrl = urlResolver.constructUrl(config.marketplaceMasterConfigUrl(), queryParams, pathParams);
+    var key = new MasterConfigKey(productMasterConfigId, interfaceName);
+    String configUrl = masterConfigUrl(key);
     log.info("ConfigUrl : {}", configUrl);
-    String productJsonString;
 
     try {
-      Map<String, String> headers = new HashMap<>();
-      headers.put(AUTHORIZATION, auth);
-      productJsonString = restTemplate.makeApiCall(configUrl, null, "GET", headers).getBody();
-      if (ObjectUtils.isEmpty(productJsonString)) {
-        throw new NonRetryableException("No product config available for this masterConfigId and productId");
-      }
+      DocumentContext productJson = retrieve(masterConfigs, key, configUrl, auth, MASTER_CONFIG).document();
       log.info("Received product masterConfig json for component {}", productId);
+      return productJson;
 
     } catch (RetryableException restException) {
       String errorMessage = format(
@@ -165,15 +197,202 @@ public class ApiOperationManager {
         configUrl, exception.getMessage());
       throw new NonRetryableException(errorMessage + " || " + exception.getMessage(), exception);
     }
+  }
+
+  /**
+   * Returns the cached config of a key, fetching it with the caller's authorization when it is missing.
+   * A config the marketplace has not granted to the caller's authorization within the grant lifetime is
+   * only returned once a conditional request with that authorization succeeds; its answer replaces the
+   * cached config.
+   */
+  private <K> CachedConfig retrieve(AsyncLoadingCache<K, CachedConfig> configs, K key, String configUrl, String auth,
+                                    String kind) {
+    String scope = scopeOf(auth);
+    CachedConfig cached = SingleFlight.await(configs.get(key,
+      (K configKey, Executor executor) -> load(configUrl, auth, null, kind, executor)
+        .thenApply((CachedConfig loaded) -> loaded.granted(scope, grantLifetime))),
+      config.singleFlightTimeout(), kind + " config");
+    if (cached.isGranted(scope, grantLifetime)) {
+      return cached;
+    }
+    return checks.get(new Grant(key, scope), () -> {
+      CachedConfig checked = fetch(configUrl, auth, cached, kind).join().granted(scope, grantLifetime);
+      configs.put(key, CompletableFuture.completedFuture(checked));
+      return checked;
+    }, config.singleFlightTimeout());
+  }
+
+  private String masterConfigUrl(MasterConfigKey key) {
+    Map<String, String> pathParams = Map.of("masterConfigId", key.masterConfigId());
+    Map<String, String> queryParams = null;
+    if (key.interfaceName() != null) {
+      queryParams = Map.of("interfaceName", URLEncoder.encode(key.interfaceName(), StandardCharsets.UTF_8));
+    }
+    return urlResolver.constructUrl(config.marketplaceMasterConfigUrl(), queryParams, pathParams);
+  }
+
+  private String allianceConfigUrl(AllianceConfigKey key) {
+    Map<String, String> pathParams = new HashMap<>();
+    pathParams.put(BobConstants.BUYER_ID, key.buyerId());
+    pathParams.put(BobConstants.APP_ID, key.appId());
+    return urlResolver.constructUrl(config.marketplaceAllianceUrl(), null, pathParams);
+  }
+
+  private <K> AsyncLoadingCache<K, CachedConfig> buildCache(String kind, Function<K, String> urlOf) {
+    var serviceAuth = config.marketplaceServiceAuthorization().filter(StringUtils::isNotBlank);
+    Caffeine<Object, Object> builder = Caffeine.newBuilder()
+      .maximumSize(config.productConfigCacheMaxSize())
+      .expireAfterWrite(Duration.ofMillis(config.productConfigCacheTtl()))
+      .executor(CONFIG_PARSERS)
+      .recordStats();
+    if (serviceAuth.isPresent()) {
+      builder.refreshAfterWrite(Duration.ofMillis(config.productConfigCacheRefresh()));
+    } else {
+      log.info("No marketplace service authorization, cached {} configs are revalidated by their callers", kind);
+    }
+    AsyncLoadingCache<K, CachedConfig> cache = builder
+      .buildAsync(new AsyncCacheLoader<K, CachedConfig>() {
+        @Override
+        public CompletableFuture<CachedConfig> asyncLoad(K key, Executor executor) {
+          // Configs are only loaded with the authorization of the task asking for them
+          return CompletableFuture.failedFuture(new IllegalStateException("No authorization to load " + key));
+        }
+
+        @Override
+        public CompletableFuture<CachedConfig> asyncReload(K key, CachedConfig oldValue, Executor executor) {
+          return load(urlOf.apply(key), serviceAuth.orElseThrow(), oldValue, kind, executor);
+        }
+      });
+    CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "bob.product.config", KIND_TAG, kind);
+    meterRegistry.gauge("bob.product.config.hit.ratio", Tags.of(KIND_TAG, kind), cache,
+      (AsyncLoadingCache<K, CachedConfig> configs) -> configs.synchronous().stats().hitRate());
+    return cache;
+  }
+
+  /**
+   * Fetches a config apart from the task asking for it, so neither the tasks waiting for the same config
+   * nor a background revalidation are bound by, or hold up, that task.
+   */
+  private CompletableFuture<CachedConfig> load(String configUrl, String auth, CachedConfig cached, String kind,
+                                               Executor executor) {
+    return CompletableFuture.supplyAsync(() -> fetch(configUrl, auth, cached, kind), executor)
+      .thenCompose(Function.identity());
+  }
+
+  /**
+   * Fetches a config, conditionally on the validators of the cached one when there is one.
+   * The document of the cached config is kept when the marketplace answers that it is not modified.
+   */
+  private CompletableFuture<CachedConfig> fetch(String configUrl, String auth, CachedConfig cached, String kind) {
+    Map<String, String> headers = new HashMap<>();
+    headers.put(AUTHORIZATION, auth);
+    if (cached != null && cached.etag() != null) {
+      headers.put(HttpHeaders.IF_NONE_MATCH, cached.etag());
+    }
+    if (cached != null && cached.lastModified() != null) {
+      headers.put(HttpHeaders.IF_MODIFIED_SINCE, cached.lastModified());
+    }
+    return restTemplate.makeApiCallAsync(configUrl, null, "GET", headers).toCompletableFuture()
+      .thenApplyAsync((ApiResponseBody response) -> {
+        try {
+          if (cached != null && response.getStatusCodeValue() == BobConstants.HTTP_STATUS_CODE_304) {
+            log.debug("The {} config at {} is not modified", kind, configUrl);
+            return new CachedConfig(cached.json(), headerOf(response, HttpHeaders.ETAG, cached.etag()),
+              headerOf(response, HttpHeaders.LAST_MODIFIED, cached.lastModified()), cached.grants());
+          }
+          String configJson = response.hasBody() ? response.getBody() : null;
+          if (ObjectUtils.isEmpty(configJson)) {
+            throw new NonRetryableException(format("No %s config available at %s", kind, configUrl));
+          }
+          return new CachedConfig(parseConfig(configJson, configUrl, kind).json(),
+            headerOf(response, HttpHeaders.ETAG, null), headerOf(response, HttpHeaders.LAST_MODIFIED, null),
+            cached != null ? cached.grants() : new ConcurrentHashMap<>());
+        } finally {
+          response.release();
+        }
+      }, CONFIG_PARSERS);
+  }
 
+  private static DocumentContext parseConfig(String configJson, String configUrl, String kind) {
     try {
-      return parse(productJsonString);
+      return parse(configJson);
     } catch (InvalidJsonException parseException) {
-      String errorMessage = format(
-        "Error parsing the json of product masterConfig %s retrieved from marketplace :: %s ", productId,
-        productJsonString);
+      String errorMessage = format("Error parsing the json of %s config retrieved from %s :: %s ", kind, configUrl,
+        configJson);
       log.error(errorMessage, parseException);
       throw new NonRetryableException(errorMessage, parseException);
     }
   }
+
+  /**
+   * Names the authorization a config was granted to, without keeping the token itself.
+   */
+  private static String scopeOf(String auth) {
+    if (auth == null) {
+      return "";
+    }
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(auth.getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(digest);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  private static Object copyOf(Object json) {
+    if (JSON.isMap(json)) {
+      Object copy = JSON.createMap();
+      for (String property : JSON.getPropertyKeys(json)) {
+        JSON.setProperty(copy, property, copyOf(JSON.getMapValue(json, property)));
+      }
+      return copy;
+    }
+    if (JSON.isArray(json)) {
+      Object copy = JSON.createArray();
+      int index = 0;
+      for (Object item : JSON.toIterable(json)) {
+        JSON.setArrayIndex(copy, index++, copyOf(item));
+      }
+      return copy;
+    }
+    return json;
+  }
+
+  private static String headerOf(ApiResponseBody response, String name, String defaultValue) {
+    Object value = response.getHeaders() != null ? response.getHeaders().getFirst(name) : null;
+    return value != null ? value.toString() : defaultValue;
+  }
+
+  private record MasterConfigKey(String masterConfigId, String interfaceName) {
+  }
+
+  private record AllianceConfigKey(String buyerId, String appId) {
+  }
+
+  private record Grant(Object configKey, String scope) {
+  }
+
+  /**
+   * A parsed config with the validators it was served with, and when the marketplace last granted it to each
+   * authorization scope. The parsed json is never handed out, only copies. The grants are shared with the
+   * configs that revalidate this one.
+   */
+  private record CachedConfig(Object json, String etag, String lastModified, Map<String, Long> grants) {
+
+    DocumentContext document() {
+      return parse(copyOf(json));
+    }
+
+    boolean isGranted(String scope, long lifetime) {
+      Long grantedAt = grants.get(scope);
+      return grantedAt != null && System.currentTimeMillis() - grantedAt < lifetime;
+    }
+
+    CachedConfig granted(String scope, long lifetime) {
+      long now = System.currentTimeMillis();
+      grants.values().removeIf((Long grantedAt) -> now - grantedAt >= lifetime);
+      grants.put(scope, now);
+      return this;
+    }
+  }
 }
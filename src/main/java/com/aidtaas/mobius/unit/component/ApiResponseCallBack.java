@@ -22,6 +22,8 @@ import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.InvalidJsonException;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.ws.rs.core.MediaType;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -30,6 +32,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ObjectUtils;
 import org.camunda.bpm.client.task.ExternalTask;
+import org.camunda.bpm.engine.variable.Variables;
 
 import static com.aidtaas.mobius.unit.constants.BobConstants.AUTHORIZATION_GLOBAL;
 import static com.aidtaas.mobius.unit.constants.BobConstants.CONTENT_TYPE;
@@ -97,8 +100,8 @@ public class ApiResponseCallBack {
 
     if ((apiResponse.getStatusCodeValue() >= BobConstants.HTTP_STATUS_CODE_200 &&
       apiResponse.getStatusCodeValue() < BobConstants.HTTP_STATUS_CODE_300)
-      && ObjectUtils.isNotEmpty(apiResponse.getBody())) {
-      apiMeteringDTO.setApiResponseBodySize(apiResponse.getBody().getBytes().length);
+      && apiResponse.hasBody()) {
+      apiMeteringDTO.setApiResponseBodySize((int) apiResponse.getBodySize());
     }
     if (ObjectUtils.isNotEmpty(body)) {
       apiMeteringDTO.setApiRequestBodySize(body.toString().getBytes().length);
@@ -148,15 +151,19 @@ public class ApiResponseCallBack {
     String contentType = ObjectUtils.isNotEmpty(apiResponse.getHeaders().get(CONTENT_TYPE))
       ? apiResponse.getHeaders().get(CONTENT_TYPE).toString()
       : "";
-    if (ObjectUtils.isNotEmpty(apiOperation.getOutput().getItems()) && ObjectUtils.isNotEmpty(apiResponse.getBody())) {
+    if (ObjectUtils.isNotEmpty(apiOperation.getOutput().getItems()) && apiResponse.hasBody()) {
       if (contentType.contains(MediaType.APPLICATION_XML)) {
         log.info("Processing XML output of type {}", contentType);
         processingXmlResponse(responseJson, apiResponse, apiOperation);
       } else if (contentType.contains(MediaType.APPLICATION_OCTET_STREAM)) {
         log.info("Processing OCTET STREAM output of type {}", contentType);
+        var file = Variables.fileValue(fileNameOf(apiResponse, apiOperation))
+          .file(apiResponse.getBodyBytes())
+          .mimeType(MediaType.APPLICATION_OCTET_STREAM)
+          .create();
         apiOperation.getOutput().getItems().forEach((variable, attribute) ->
           Optional.ofNullable(attribute.getProperty())
-            .ifPresent(value -> apiOperation.getRuntimeVariables().put(variable, apiResponse.getBody())));
+            .ifPresent(value -> apiOperation.getRuntimeVariables().put(variable, file)));
       } else if (contentType.contains(MediaType.TEXT_PLAIN)) {
         log.info("Processing PLAIN TEXT output of type {}", contentType);
         apiOperation.getOutput().getItems().forEach((variable, attribute) ->
@@ -222,15 +229,37 @@ public class ApiResponseCallBack {
   }
 
   private static void parseJsonResponseBody(AtomicReference<DocumentContext> responseJson, ApiResponseBody apiResponse) {
-    try {
-      if (ObjectUtils.isNotEmpty(apiResponse.getBody())) {
-        responseJson.set(parse(apiResponse.getBody()));
-      }
+    if (!apiResponse.hasBody()) {
+      return;
+    }
+    // Parse from the raw bytes so a large body is never decoded into one string
+    try (InputStream body = apiResponse.openBodyStream()) {
+      responseJson.set(parse(body));
     } catch (InvalidJsonException parseException) {
       throw new NonRetryableException(
         String.format("Error parsing json response body : %s", apiResponse.getBody()), parseException
       );
+    } catch (IOException e) {
+      throw new NonRetryableException("Error reading the response body", e);
+    }
+  }
+
+  /**
+   * Returns the file name given by the Content-Disposition header, or one derived from the activity.
+   *
+   * @param apiResponse  the API response body
+   * @param apiOperation the API operation
+   * @return the file name
+   */
+  private static String fileNameOf(ApiResponseBody apiResponse, ApiOperation apiOperation) {
+    Object disposition = apiResponse.getHeaders().getFirst(BobConstants.CONTENT_DISPOSITION);
+    if (disposition != null) {
+      var matcher = BobConstants.FILENAME_PATTERN.matcher(disposition.toString());
+      if (matcher.find()) {
+        return matcher.group(1);
+      }
     }
+    return apiOperation.getInput().getActivityId();
   }
 
   private static void processOutputVariables(AtomicReference<DocumentContext> responseJson, ApiOperation apiOperation) {
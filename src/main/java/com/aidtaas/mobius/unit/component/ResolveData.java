@@ -7,6 +7,7 @@
 package com.aidtaas.mobius.unit.component;
 
 import com.aidtaas.mobius.unit.config.Config;
+import com.aidtaas.mobius.unit.config.VaultSecrets;
 import com.aidtaas.mobius.unit.constants.BobConstants;
 import com.aidtaas.mobius.unit.dto.ApiOperation;
 import com.aidtaas.mobius.unit.dto.Field;
@@ -16,20 +17,22 @@ import com.aidtaas.mobius.unit.enums.ContentType;
 import com.aidtaas.mobius.unit.enums.Environment;
 import com.aidtaas.mobius.unit.enums.SourceType;
 import com.aidtaas.mobius.unit.exception.NonRetryableException;
+import com.aidtaas.mobius.unit.utils.GroupResolver;
 import com.aidtaas.mobius.unit.utils.JsonUtils;
 import com.aidtaas.mobius.error.services.exception.ObjectMappingException;
-import io.quarkus.vault.VaultKVSecretEngine;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jayway.jsonpath.JsonPath;
 import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.ws.rs.core.MediaType;
-import java.util.AbstractMap;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 import lombok.AllArgsConstructor;
@@ -49,6 +52,8 @@ import static java.util.Optional.ofNullable;
  * These annotations provide a logger and specify that the handler is application-scoped.
  * The handler includes methods to resolve all API data, resolve HTTP method,
  * resolve URL, resolve headers parameters, and resolve body.
+ * Each input field is compiled once per deployed activity into a plan that is cached and replayed for
+ * every task of the activity.
  */
 @Slf4j
 @ApplicationScoped
@@ -57,8 +62,13 @@ public class ResolveData {
 
   private static final Map<ContentType, BiFunction<ApiOperation, String, Object>> processorMap
     = new EnumMap<>(ContentType.class);
-  private static final Map<SourceType, Resolver> resolvers = new EnumMap<>(SourceType.class);
-  private final VaultKVSecretEngine vaultKVSecretEngine;
+  private static final int MAX_PLANS = 10_000;
+  private static final Duration PLAN_IDLE_EXPIRY = Duration.ofHours(1);
+  private static final Cache<PlanKey, ResolutionPlan> plans = Caffeine.newBuilder()
+    .maximumSize(MAX_PLANS)
+    .expireAfterAccess(PLAN_IDLE_EXPIRY)
+    .build();
+  private final VaultSecrets vaultSecrets;
 
 
   @PostConstruct
@@ -69,30 +79,24 @@ public class ResolveData {
     processorMap.put(ContentType.APPLICATION_OCTET_STREAM, ResolveData::processOctetStreamContentType);
     processorMap.put(ContentType.APPLICATION_XML, ResolveData::processXmlContentType);
     processorMap.put(ContentType.TEXT_PLAIN, ResolveData::processPlainTextContentType);
-
-    resolvers.put(SourceType.STATIC, (ApiOperation apiOperation, Object fieldValue, String label,
-                                      String parentJsonPath, Map<String, InputAttribute> attributes) -> fieldValue);
-    resolvers.put(SourceType.PROPERTY, (ApiOperation apiOperation, Object fieldValue, String label,
-                                        String parentJsonPath, Map<String, InputAttribute> attributes) ->
-      resolveProperty(apiOperation, fieldValue, parentJsonPath));
-    resolvers.put(SourceType.GLOBALS, (ApiOperation apiOperation, Object fieldValue, String label,
-                                       String parentJsonPath, Map<String, InputAttribute> attributes) ->
-      apiOperation.getRunTimeVariable(label));
-    resolvers.put(SourceType.SCRIPT, (ApiOperation apiOperation, Object fieldValue, String label,
-                                      String parentJsonPath, Map<String, InputAttribute> attributes) ->
-      apiOperation.getRunTimeVariable(label));
-    resolvers.put(SourceType.EXTERNALS, (ApiOperation apiOperation, Object fieldValue, String label,
-                                         String parentJsonPath, Map<String, InputAttribute> attributes) ->
-      apiOperation.getRunTimeVariable(label));
-    resolvers.put(SourceType.GROUP, (ApiOperation apiOperation, Object fieldValue, String label,
-                                     String parentJsonPath, Map<String, InputAttribute> attributes) ->
-      resolveGroup(apiOperation, fieldValue, attributes));
   }
 
+  /**
+   * Compiled resolution of an input field: the JsonPath of a property is compiled and the resolver of
+   * every field and group attribute is chosen once, so resolving the field of a task only reads.
+   * Static values are taken from the field of the task being resolved, never from the plan.
+   */
   @FunctionalInterface
-  private interface Resolver {
-    Object resolve(ApiOperation apiOperation, Object fieldValue, String label,
-                   String parentJsonPath, Map<String, InputAttribute> attributes);
+  private interface ResolutionPlan {
+    Object resolve(ApiOperation apiOperation, Object fieldValue, Map<String, InputAttribute> attributes);
+  }
+
+  /**
+   * Identifies the input field a plan was compiled for. The process definition is part of the key
+   * because a redeployed activity may carry different fields.
+   */
+  private record PlanKey(String processDefinitionId, String productMasterConfigId, String apiPath,
+                         String activityId, String configKey, String field) {
   }
 
   /**
@@ -109,13 +113,7 @@ public class ResolveData {
       apiOperation.getInput().getActivityId(), apiOperation.getInput().getComponentId());
 
     String secretsPath = apiOperation.getExecutorTenantId() + PATH_DELIMITER + apiOperation.getProductId() + "/MasterConfig";
-    Map<String, String> secrets = new HashMap<>();
-    try {
-      secrets = vaultKVSecretEngine.readSecret(secretsPath);
-    } catch (RuntimeException e) {
-      log.error("Error reading secrets from vault", e);
-    }
-    apiOperation.setSecrets(secrets);
+    apiOperation.setSecretsLoader(() -> vaultSecrets.read(secretsPath));
 
     try {
       String httpMethod = resolveHttpMethod(apiOperation);
@@ -151,8 +149,7 @@ public class ResolveData {
     log.info(BobConstants.RETRIEVE, BobConstants.HTTP_METHOD,
       apiOperation.getInput().getFields().get(BobConstants.HTTP_METHOD));
 
-    return ofNullable(resolveData(apiOperation,
-      apiOperation.getInput().getFields().get(BobConstants.HTTP_METHOD)))
+    return ofNullable(resolveData(apiOperation, BobConstants.HTTP_METHOD))
       .map(String.class::cast).orElseThrow(() -> new NonRetryableException("HTTP METHOD is null! "));
   }
 
@@ -168,8 +165,7 @@ public class ResolveData {
   private static String resolveUrl(ApiOperation apiOperation, String fieldName) {
     log.info(BobConstants.RETRIEVE, fieldName, apiOperation.getInput().getFields().get(fieldName));
 
-    return ofNullable(resolveData(apiOperation, apiOperation.getInput().getFields()
-      .get(fieldName))).map(String.class::cast)
+    return ofNullable(resolveData(apiOperation, fieldName)).map(String.class::cast)
       .map(httpUrl -> httpUrl.split("\\?")[0])
       .orElseThrow(() -> new RuntimeException("HTTP URL is null! "));
   }
@@ -185,7 +181,7 @@ public class ResolveData {
   private static Map<String, String> resolveHeadersParams(ApiOperation apiOperation, String fieldName) {
     log.info(BobConstants.RETRIEVE, fieldName, apiOperation.getInput().getFields().get(fieldName));
 
-    return ofNullable(resolveData(apiOperation, apiOperation.getInput().getFields().get(fieldName)))
+    return ofNullable(resolveData(apiOperation, fieldName))
       .map(params -> (Map<String, String>) params).orElse(Collections.emptyMap());
   }
 
@@ -221,7 +217,7 @@ public class ResolveData {
    * @return the data
    */
   private static Object processPlainTextContentType(ApiOperation apiOperation, String fieldName) {
-    Optional<Object> resolvedData = ofNullable(resolveData(apiOperation, apiOperation.getInput().getFields().get(fieldName)));
+    Optional<Object> resolvedData = ofNullable(resolveData(apiOperation, fieldName));
     if (resolvedData.isPresent()) {
       var text = resolvedData.get().toString();
       return text.substring(text.indexOf("=") + 1, resolvedData.get().toString().length() - 1);
@@ -239,10 +235,9 @@ public class ResolveData {
    * @return the data
    */
   private static Object processXmlContentType(ApiOperation apiOperation, String fieldName) {
-    Optional<Object> resolvedData = ofNullable(resolveData(apiOperation, apiOperation.getInput()
-      .getFields().get(fieldName)));
+    Optional<Object> resolvedData = ofNullable(resolveData(apiOperation, fieldName));
     if (resolvedData.isPresent()) {
-      Map<String, Object> hashMap = (ConcurrentHashMap<String, Object>) resolvedData.get();
+      Map<String, Object> hashMap = (Map<String, Object>) resolvedData.get();
       return hashMap.values().iterator().next().toString();
     } else {
       return null;
@@ -258,9 +253,8 @@ public class ResolveData {
    * @return the file
    */
   private static Object processOctetStreamContentType(ApiOperation apiOperation, String fieldName) {
-    Optional<Object> file = ofNullable(resolveData(apiOperation, apiOperation.getInput().getFields().get(fieldName)))
-      .map(params -> (Map<String, Object>) params).flatMap(params -> params.values().parallelStream()
-        .findAny());
+    Optional<Object> file = ofNullable(resolveData(apiOperation, fieldName))
+      .map(params -> (Map<String, Object>) params).flatMap(params -> params.values().stream().findAny());
     if (file.isPresent()) {
       return file.get();
     } else {
@@ -278,7 +272,7 @@ public class ResolveData {
    */
   private static Object processFormContentType(ApiOperation apiOperation, String fieldName) {
     Map<String, Object> formData = new HashMap<>();
-    ofNullable(resolveData(apiOperation, apiOperation.getInput().getFields().get(fieldName)))
+    ofNullable(resolveData(apiOperation, fieldName))
       .map(params -> (Map<String, Object>) params)
       .ifPresent(formData::putAll);
 
@@ -294,35 +288,75 @@ public class ResolveData {
    * @return the JSON data
    */
   private static Object processJsonContentType(ApiOperation apiOperation, String fieldName) {
-    return ofNullable(resolveData(apiOperation, apiOperation.getInput().getFields().get(fieldName)))
+    return ofNullable(resolveData(apiOperation, fieldName))
       .map(params -> (Map<String, Object>) params).map(JsonUtils::generateJson)
       .orElseGet(Config.OBJECT_MAPPER::createObjectNode);
   }
 
 
   /**
-   * Resolves the data for a given input field.
+   * Resolves the data for a given input field, through the plan compiled for it on first use.
    *
-   * @param inputField the input field
+   * @param apiOperation the API operation
+   * @param fieldName    the name of the input field
    * @return the resolved data
    */
-  public static Object resolveData(ApiOperation apiOperation, Field inputField) {
-    return Optional.ofNullable(inputField).filter(field -> ObjectUtils.isNotEmpty(field.getType())).map(
-      field -> resolvers.get(field.getType()).resolve(apiOperation, field.getValue(),
-        field.getValue().toString().substring(1), "", field.getItems())).orElse(null);
+  public static Object resolveData(ApiOperation apiOperation, String fieldName) {
+    Field inputField = apiOperation.getInput().getFields().get(fieldName);
+    if (inputField == null || ObjectUtils.isEmpty(inputField.getType())) {
+      return null;
+    }
+    var key = new PlanKey(apiOperation.getExternalTask().getProcessDefinitionId(),
+      apiOperation.getInput().getProductMasterConfigId(), apiOperation.getInput().getApiPath(),
+      apiOperation.getInput().getActivityId(), configKey(apiOperation), fieldName);
+    return plans.get(key, planKey -> compile(apiOperation, inputField.getType(), inputField.getValue(),
+        inputField.getValue().toString().substring(1), "", inputField.getItems()))
+      .resolve(apiOperation, inputField.getValue(), inputField.getItems());
+  }
+
+  /**
+   * Returns the key the product config of an operation sits under: the alliance config in
+   * production, the master config otherwise.
+   *
+   * @param apiOperation the API operation
+   * @return the config key
+   */
+  public static String configKey(ApiOperation apiOperation) {
+    return Environment.PROD.getValue().equalsIgnoreCase(apiOperation.getEnvironment().getValue())
+      ? "allianceConfig" : "masterConfig";
+  }
+
+  /**
+   * Compiles the plan of a field or group attribute.
+   *
+   * @param apiOperation   the API operation the plan is first compiled for
+   * @param type           the source type
+   * @param fieldValue     the field value
+   * @param label          the label of a runtime variable
+   * @param parentJsonPath the JSON path of the enclosing group
+   * @param attributes     the attributes of a group
+   * @return the plan
+   */
+  private static ResolutionPlan compile(ApiOperation apiOperation, SourceType type, Object fieldValue, String label,
+                                        String parentJsonPath, Map<String, InputAttribute> attributes) {
+    return switch (type) {
+      case STATIC -> (operation, value, items) -> value;
+      case PROPERTY -> compileProperty(apiOperation, fieldValue, parentJsonPath);
+      case GLOBALS, SCRIPT, EXTERNALS -> (operation, value, items) -> operation.getRunTimeVariable(label);
+      case GROUP -> compileGroup(apiOperation, fieldValue, attributes);
+    };
   }
 
   /**
-   * Resolves the property for a given field value and parent JSON path.
+   * Compiles the plan of a property, whose value is read from the product config.
    *
+   * @param apiOperation   the API operation
    * @param fieldValue     the field value
    * @param parentJsonPath the parent JSON path
-   * @return the resolved property
+   * @return the plan
    */
-  private static Object resolveProperty(ApiOperation apiOperation, Object fieldValue, String parentJsonPath) {
-    // existing code for PROPERTY case
-    String configKey = Environment.PROD.getValue().equalsIgnoreCase(apiOperation.getEnvironment().getValue())
-      ? "allianceConfig" : "masterConfig";
+  private static ResolutionPlan compileProperty(ApiOperation apiOperation, Object fieldValue, String parentJsonPath) {
+    String configKey = configKey(apiOperation);
     String[] fieldPathSegments = Optional.ofNullable(apiOperation.getInput().getApiPath())
       .map(path -> String.format("%s#%s#children", configKey, path)).orElse(configKey)
       .concat(Optional.of(parentJsonPath + fieldValue).map(String.class::cast).orElse(""))
@@ -334,62 +368,62 @@ public class ResolveData {
       .map(pathSegment -> String.format("[%s]", pathSegment)).collect(Collectors.joining("."));
 
     log.info("Formatted path for property {}", formattedFieldPath);
-    Object valueFromProductJson = apiOperation.getProductJson().read(formattedFieldPath);
-    if ("secret::sensitive_data".equals(valueFromProductJson.toString()) && MapUtils.isNotEmpty(apiOperation.getSecrets())) {
-      return apiOperation.getSecrets().get(fieldValue.toString().substring(1));
-    } else {
+    JsonPath fieldPath = JsonPath.compile(formattedFieldPath);
+    String secretName = fieldValue.toString().substring(1);
+
+    return (operation, value, items) -> {
+      Object valueFromProductJson = operation.getProductJson().read(fieldPath);
+      if (SENSITIVE_DATA.equals(String.valueOf(valueFromProductJson))) {
+        Map<String, String> secrets = operation.readSecrets();
+        if (MapUtils.isNotEmpty(secrets)) {
+          return secrets.get(secretName);
+        }
+      }
       return valueFromProductJson;
-    }
-  }
-
-  /**
-   * Resolves the group for a given field value.
-   *
-   * @param fieldValue the field value
-   * @param attributes the attributes
-   * @return the resolved group
-   */
-  private static Object resolveGroup(ApiOperation apiOperation, Object fieldValue,
-                                     Map<String, InputAttribute> attributes) {
-    return Optional.ofNullable(fieldValue)
-      .map(String.class::cast)
-      .map(group -> processGroup(apiOperation, group, attributes))
-      .orElse(Collections.emptyMap());
+    };
   }
 
   /**
-   * Processes the group for a given group and attributes.
+   * Compiles the plan of a group, resolving each of its typed attributes with the group as parent path.
+   * Groups nested in a group carry no attributes and resolve to nothing.
    *
-   * @param group      the group
-   * @param attributes the attributes
-   * @return the processed group
+   * @param apiOperation the API operation
+   * @param fieldValue   the group
+   * @param attributes   the attributes
+   * @return the plan
    */
-  private static Object processGroup(ApiOperation apiOperation, String group, Map<String, InputAttribute> attributes) {
-    if (MapUtils.isNotEmpty(attributes)) {
-      return attributes.entrySet().parallelStream()
-        .filter(entry -> ObjectUtils.isNotEmpty(entry.getValue().getType()))
-        .map(entry -> processEntry(apiOperation, entry, group))
-        .filter(entry -> ObjectUtils.isNotEmpty(entry.getValue()))
-        .collect(Collectors.toConcurrentMap(Map.Entry::getKey, Map.Entry::getValue));
-    } else {
-      return Collections.emptyMap();
+  private static ResolutionPlan compileGroup(ApiOperation apiOperation, Object fieldValue,
+                                             Map<String, InputAttribute> attributes) {
+    if (fieldValue == null || MapUtils.isEmpty(attributes)) {
+      return (operation, value, items) -> Collections.emptyMap();
     }
+    String group = (String) fieldValue;
+    Map<String, ResolutionPlan> attributePlans = new HashMap<>();
+    attributes.forEach((String attributeName, InputAttribute attribute) -> {
+      if (ObjectUtils.isNotEmpty(attribute.getType())) {
+        attributePlans.put(attributeName, compile(apiOperation, attribute.getType(), attribute.getValue(),
+          attribute.getLabel(), group, null));
+      }
+    });
+
+    return (operation, value, items) -> GroupResolver.resolve(attributePlans,
+      (String attributeName, ResolutionPlan plan) -> processEntry(operation, attributeName, plan, items),
+      ObjectUtils::isNotEmpty);
   }
 
   /**
-   * Processes the entry for a given entry and group.
+   * Resolves one attribute of a group with its compiled plan.
    *
-   * @param entry the entry
-   * @param group the group
-   * @return the processed entry
+   * @param apiOperation  the API operation
+   * @param attributeName the attribute name
+   * @param plan          the plan of the attribute
+   * @param attributes    the attributes of the group being resolved
+   * @return the resolved value of the attribute
    */
-  private static Map.Entry<String, Object> processEntry(ApiOperation apiOperation, Map.Entry<String,
-    InputAttribute> entry, String group) {
-    String attributeName = entry.getKey();
-    InputAttribute attribute = entry.getValue();
-    Object attributeValue = resolvers.get(attribute.getType()).resolve(apiOperation, attribute.getValue(),
-      attribute.getLabel(), group, null);
-    return new AbstractMap.SimpleEntry<>(attributeName, attributeValue);
+  private static Object processEntry(ApiOperation apiOperation, String attributeName, ResolutionPlan plan,
+                                     Map<String, InputAttribute> attributes) {
+    InputAttribute attribute = attributes.get(attributeName);
+    return plan.resolve(apiOperation, attribute != null ? attribute.getValue() : null, null);
   }
 
 }
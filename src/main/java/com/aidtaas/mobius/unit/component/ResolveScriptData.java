@@ -14,6 +14,7 @@ import com.aidtaas.mobius.unit.dto.ScriptOperation;
 import com.aidtaas.mobius.unit.enums.Environment;
 import com.aidtaas.mobius.unit.enums.SourceType;
 import com.aidtaas.mobius.unit.exception.NonRetryableException;
+import com.aidtaas.mobius.unit.utils.GroupResolver;
 import com.aidtaas.mobius.error.services.exception.ObjectMappingException;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.jayway.jsonpath.DocumentContext;
@@ -21,7 +22,6 @@ import com.jayway.jsonpath.InvalidJsonException;
 import com.jayway.jsonpath.PathNotFoundException;
 import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
-import java.util.AbstractMap;
 import java.util.Collections;
 import java.util.EnumMap;
 import java.util.HashMap;
@@ -187,30 +187,28 @@ public class ResolveScriptData {
   private static Object processGroup(ScriptOperation scriptOperation, String group,
                                      Map<String, InputAttribute> attributes) {
     if (MapUtils.isNotEmpty(attributes)) {
-      return attributes.entrySet().parallelStream()
-        .filter(entry -> ObjectUtils.isNotEmpty(entry.getValue().getType()))
-        .map(entry -> processEntry(scriptOperation, entry, group))
-        .filter(entry -> ObjectUtils.isNotEmpty(entry.getValue()))
-        .collect(Collectors.toConcurrentMap(Map.Entry::getKey, Map.Entry::getValue));
+      return GroupResolver.resolve(attributes,
+        (String attributeName, InputAttribute attribute) -> processEntry(scriptOperation, attribute, group),
+        ObjectUtils::isNotEmpty);
     } else {
       return Collections.emptyMap();
     }
   }
 
   /**
-   * Processes the entry for a given entry and group.
+   * Processes the attribute of a group.
+   * Attributes without a type resolve to nothing.
    *
-   * @param entry the entry
-   * @param group the group
-   * @return the processed entry
+   * @param attribute the attribute
+   * @param group     the group
+   * @return the resolved value of the attribute
    */
-  private static Map.Entry<String, Object> processEntry(ScriptOperation scriptOperation, Map.Entry<String,
-    InputAttribute> entry, String group) {
-    String attributeName = entry.getKey();
-    InputAttribute attribute = entry.getValue();
-    Object attributeValue = resolvers.get(attribute.getType()).resolve(scriptOperation, attribute.getValue(),
+  private static Object processEntry(ScriptOperation scriptOperation, InputAttribute attribute, String group) {
+    if (ObjectUtils.isEmpty(attribute.getType())) {
+      return null;
+    }
+    return resolvers.get(attribute.getType()).resolve(scriptOperation, attribute.getValue(),
       attribute.getLabel(), group, null);
-    return new AbstractMap.SimpleEntry<>(attributeName, attributeValue);
   }
 
   /**
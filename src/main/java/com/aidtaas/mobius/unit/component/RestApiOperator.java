@@ -12,8 +12,10 @@ import com.aidtaas.mobius.unit.constants.BobConstants;
 import com.aidtaas.mobius.unit.dto.ApiOperation;
 import com.aidtaas.mobius.unit.dto.ApiResponse;
 import com.aidtaas.mobius.unit.dto.ApiResponseBody;
+import com.jayway.jsonpath.PathNotFoundException;
 import jakarta.enterprise.context.ApplicationScoped;
 import java.util.Map;
+import java.util.concurrent.CompletionStage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
@@ -75,24 +77,52 @@ public class RestApiOperator {
 
     log.info("Resolved URL: {}, Body: {}, headers: {}", resolvedUrl, body, headers);
 
-    ApiResponseBody response;
+    CompletionStage<ApiResponseBody> call;
 
     if (headers.containsKey(BobConstants.CONTENT_TYPE)
       && (headers.get(BobConstants.CONTENT_TYPE).equalsIgnoreCase(BobConstants.MULTIPART_FORM_DATA) ||
       headers.get(BobConstants.CONTENT_TYPE).equalsIgnoreCase(BobConstants.APPLICATION_X_WWW_FORM_URLENCODED))) {
-      response = dynamicRestClient.makeMultipartApiCall(resolvedUrl, (Map<String, Object>) body, httpMethod, headers);
+      call = dynamicRestClient.makeMultipartApiCallAsync(resolvedUrl, (Map<String, Object>) body, httpMethod,
+        headers);
     } else {
       if (headers.containsKey(BobConstants.CONTENT_TYPE)
         && (headers.get(BobConstants.CONTENT_TYPE).equalsIgnoreCase(BobConstants.APPLICATION_JSON))) {
         headers.remove(BobConstants.CONTENT_TYPE);
       }
-      response = dynamicRestClient.makeApiCall(resolvedUrl, body, httpMethod, headers);
+      call = dynamicRestClient.makeApiCallAsync(resolvedUrl, body, httpMethod, headers,
+        isHedged(restApiOperation));
     }
 
+    // The task keeps its slot until the response is back; waiting only parks this virtual thread
+    ApiResponseBody response = DynamicRestClient.await(call);
+
     ApiResponse apiResponse = ApiResponse.builder()
       .executionId(externalTask.getId()).apiResponseBody(response).apiOperation(restApiOperation)
       .httpMethod(httpMethod).resolvedUrl(resolvedUrl).headers(headers).body(body).build();
 
-    apiResponseCallBack.sendMsgBack(externalTask, apiResponse);
+    try {
+      apiResponseCallBack.sendMsgBack(externalTask, apiResponse);
+    } finally {
+      response.release();
+    }
+  }
+
+  /**
+   * Checks whether the product config opts the product in to hedged GETs.
+   *
+   * @param restApiOperation the REST API operation
+   * @return true if the product sets the hedge flag
+   */
+  private static boolean isHedged(ApiOperation restApiOperation) {
+    if (restApiOperation.getProductJson() == null) {
+      return false;
+    }
+    try {
+      Object hedge = restApiOperation.getProductJson().read(String.format("$['%s']['%s']",
+        ResolveData.configKey(restApiOperation), BobConstants.HEDGE_REQUESTS));
+      return Boolean.parseBoolean(String.valueOf(hedge));
+    } catch (PathNotFoundException e) {
+      return false;
+    }
   }
 }
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.DnsResolver;
+import org.apache.hc.client5.http.SystemDefaultDnsResolver;
+
+/**
+ * Resolves the hosts of outbound calls through a bounded cache.
+ * Resolved addresses are kept for the positive TTL and hosts that failed to resolve for the shorter
+ * negative TTL, so neither a burst of calls nor a misconfigured host hits the resolver on every
+ * connect.
+ */
+@Slf4j
+@ApplicationScoped
+@RequiredArgsConstructor
+public class CachingDnsResolver implements DnsResolver {
+
+  private final ConfigProperties config;
+
+  private final MeterRegistry meterRegistry;
+
+  private Cache<String, InetAddress[]> resolved;
+
+  private Cache<String, Boolean> unresolved;
+
+  @PostConstruct
+  public void init() {
+    resolved = Caffeine.newBuilder()
+      .maximumSize(config.dnsCacheMaxSize())
+      .expireAfterWrite(Duration.ofMillis(config.dnsCacheTtl()))
+      .recordStats()
+      .build();
+    unresolved = Caffeine.newBuilder()
+      .maximumSize(config.dnsCacheMaxSize())
+      .expireAfterWrite(Duration.ofMillis(config.dnsCacheNegativeTtl()))
+      .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, resolved, "bob.dns");
+  }
+
+  @Override
+  public InetAddress[] resolve(String host) throws UnknownHostException {
+    InetAddress[] addresses = resolved.getIfPresent(host);
+    if (addresses != null) {
+      return addresses.clone();
+    }
+    if (unresolved.getIfPresent(host) != null) {
+      throw new UnknownHostException(host + " could not be resolved recently");
+    }
+    try {
+      addresses = SystemDefaultDnsResolver.INSTANCE.resolve(host);
+    } catch (UnknownHostException e) {
+      unresolved.put(host, Boolean.TRUE);
+      throw e;
+    }
+    resolved.put(host, addresses);
+    log.debug("Resolved {} to {} addresses", host, addresses.length);
+    return addresses.clone();
+  }
+
+  @Override
+  public String resolveCanonicalHostname(String host) throws UnknownHostException {
+    return SystemDefaultDnsResolver.INSTANCE.resolveCanonicalHostname(host);
+  }
+}
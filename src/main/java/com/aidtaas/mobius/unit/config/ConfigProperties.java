@@ -8,6 +8,9 @@ package com.aidtaas.mobius.unit.config;
 
 import io.quarkus.runtime.annotations.StaticInitSafe;
 import io.smallrye.config.ConfigMapping;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @StaticInitSafe
 @ConfigMapping(prefix = "bob.unit")
@@ -33,61 +36,81 @@ public interface ConfigProperties {
 
   String engineRestUrl();
 
-  // API Worker configuration
-  Integer apiAsyncResponseTimeout();
+  // Poller configuration
+  String workerId();
+
+  Long workerAsyncResponseTimeout();
+
+  Long workerIdleWait();
+
+  Long workerDrainTimeout();
+
+  Long lockHeartbeatInterval();
+
+  Integer lockHeartbeatBatchSize();
+
+  // Tenant fairness configuration
+  Map<String, Integer> tenantWeights();
+
+  Map<String, Integer> tenantMaxInFlight();
+
+  boolean tenantFairnessByProduct();
 
+  // Affinity configuration
+  String affinityMode();
+
+  Long affinityHeartbeatInterval();
+
+  Long affinityMemberTtl();
+
+  // Worker admin API configuration
+  Optional<String> adminApiKey();
+
+  // API Worker configuration
   Integer apiWorkerCount();
 
   Integer apiMaxTasks();
 
-  String apiWorkerId();
-
   Long apiLockDuration();
 
-  // Terraform Worker configuration
-  Integer terraformAsyncResponseTimeout();
+  Integer apiMaxInFlight();
 
+  // Terraform Worker configuration
   Integer terraformWorkerCount();
 
   Integer terraformMaxTasks();
 
-  String terraformWorkerId();
-
   Long terraformLockDuration();
 
-  // ShellScript Worker configuration
-  Integer shellScriptAsyncResponseTimeout();
+  Integer terraformMaxInFlight();
 
+  // ShellScript Worker configuration
   Integer shellScriptWorkerCount();
 
   Integer shellScriptMaxTasks();
 
-  String shellScriptWorkerId();
-
   Long shellScriptLockDuration();
 
-  // Ansible Worker configuration
-  Integer ansibleAsyncResponseTimeout();
+  Integer shellScriptMaxInFlight();
 
+  // Ansible Worker configuration
   Integer ansibleWorkerCount();
 
   Integer ansibleMaxTasks();
 
-  String ansibleWorkerId();
-
   Long ansibleLockDuration();
 
-  // Python Worker configuration
-  Integer pythonAsyncResponseTimeout();
+  Integer ansibleMaxInFlight();
 
+  // Python Worker configuration
   Integer pythonWorkerCount();
 
   Integer pythonMaxTasks();
 
-  String pythonWorkerId();
-
   Long pythonLockDuration();
 
+  Integer pythonMaxInFlight();
+
   long backoffMultiplier();
 
   float maxBackoffDelay();
@@ -104,10 +127,90 @@ public interface ConfigProperties {
 
   Integer restClientConnectTimeout();
 
+  Integer responseSpillThreshold();
+
   Integer restClientMaxPoolSize();
 
   Integer restClientMaxPerRoute();
 
+  Map<String, Integer> restClientHostMaxPerRoute();
+
+  Long restClientIdleEviction();
+
+  Long restClientConnectionTtl();
+
+  Boolean restClientHttp2();
+
+  Map<String, Boolean> restClientCompression();
+
+  // Circuit breaker and bulkhead configuration
+  boolean circuitBreakerByProduct();
+
+  Integer circuitBreakerWindowSize();
+
+  Integer circuitBreakerMinimumCalls();
+
+  Integer circuitBreakerFailureRate();
+
+  Long circuitBreakerOpenDuration();
+
+  Integer circuitBreakerHalfOpenCalls();
+
+  Integer bulkheadMaxConcurrent();
+
+  Optional<List<String>> circuitBreakerTaggedEndpoints();
+
+  // Request hedging configuration
+  Double hedgePercentile();
+
+  Long hedgeMinDelay();
+
+  Integer hedgeMinSamples();
+
+  // In-process retry configuration
+  Integer restClientMaxRetries();
+
+  Long restClientRetryBaseDelay();
+
+  Long restClientRetryMaxDelay();
+
+  Double retryBudgetRatio();
+
+  Integer retryBudgetMinPerSecond();
+
+  // DNS cache and warm-up configuration
+  Integer dnsCacheMaxSize();
+
+  Long dnsCacheTtl();
+
+  Long dnsCacheNegativeTtl();
+
+  boolean warmupEnabled();
+
+  Long warmupTimeout();
+
+  Optional<String> warmupReplayUrl();
+
+  Integer warmupReplayCount();
+
+  Integer vaultSecretsMaxSize();
+
+  Long vaultSecretsTtl();
+
+  Long vaultSecretsRefresh();
+
+  Long vaultSecretsNegativeTtl();
+
+  Integer productConfigCacheMaxSize();
+
+  Long productConfigCacheTtl();
+
+  Long productConfigCacheRefresh();
+
+  Long singleFlightTimeout();
+
+  Optional<String> marketplaceServiceAuthorization();
+
   String grpcServerAddress();
 
   Integer grpcServerPort();
@@ -1,4 +1,3 @@
-
 /*
  * Copyright (c) 2024.
  * Gaian Solutions Pvt. Ltd.
@@ -10,209 +9,688 @@ import com.aidtaas.mobius.unit.constants.BobConstants;
 import com.aidtaas.mobius.unit.dto.ApiResponseBody;
 import com.aidtaas.mobius.unit.dto.InMemoryFile;
 import com.aidtaas.mobius.unit.enums.HttpMethod;
+import com.aidtaas.mobius.unit.exception.DeadlineExceededException;
 import com.aidtaas.mobius.unit.exception.NonRetryableException;
-import jakarta.annotation.PostConstruct;
+import com.aidtaas.mobius.unit.exception.RetryableException;
+import com.aidtaas.mobius.unit.worker.TaskDeadline;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Named;
-import jakarta.ws.rs.core.MultivaluedHashMap;
-import jakarta.ws.rs.core.MultivaluedMap;
-import jakarta.ws.rs.core.Response;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ConnectException;
 import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.MapUtils;
-import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.function.TriFunction;
-import org.apache.hc.client5.http.classic.methods.HttpPost;
-import org.apache.hc.client5.http.classic.methods.HttpPut;
-import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.client5.http.ConnectTimeoutException;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleRequestProducer;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.config.RequestConfig;
 import org.apache.hc.client5.http.entity.UrlEncodedFormEntity;
+import org.apache.hc.client5.http.entity.mime.AbstractContentBody;
 import org.apache.hc.client5.http.entity.mime.MultipartEntityBuilder;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.utils.DateUtils;
+import org.apache.hc.core5.concurrent.FutureCallback;
 import org.apache.hc.core5.http.ContentType;
 import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpHeaders;
 import org.apache.hc.core5.http.NameValuePair;
-import org.apache.hc.core5.http.ParseException;
-import org.apache.hc.core5.http.io.entity.EntityUtils;
 import org.apache.hc.core5.http.message.BasicNameValuePair;
-import org.apache.hc.core5.http.message.HeaderGroup;
-import org.apache.hc.core5.http.protocol.BasicHttpContext;
-import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http.nio.AsyncRequestProducer;
+import org.apache.hc.core5.http.nio.support.BasicRequestProducer;
+import org.apache.hc.core5.http.nio.support.classic.AbstractClassicEntityProducer;
 import org.apache.http.Consts;
-import org.eclipse.microprofile.rest.client.RestClientBuilder;
 
 import static com.aidtaas.mobius.unit.constants.BobConstants.APPLICATION_X_WWW_FORM_URLENCODED;
 import static com.aidtaas.mobius.unit.constants.BobConstants.CONTENT_TYPE;
 import static com.aidtaas.mobius.unit.constants.BobConstants.HTTP_STATUS_CODE_200;
 import static com.aidtaas.mobius.unit.constants.BobConstants.HTTP_STATUS_CODE_300;
+import static com.aidtaas.mobius.unit.constants.BobConstants.HTTP_STATUS_CODE_400;
+import static com.aidtaas.mobius.unit.constants.BobConstants.HTTP_STATUS_CODE_429;
 
+/**
+ * Makes the outbound REST calls of the unit.
+ * JSON, form and multipart calls all go through the single pooled, non-blocking
+ * {@link CloseableHttpAsyncClient}, and every call is exposed as a {@link CompletionStage}. The
+ * blocking variants wait for the stage, which only parks the calling virtual thread.
+ * Response bodies are kept as raw bytes, spilled to a temp file above the configured threshold, and
+ * only decoded when {@link ApiResponseBody#getBody()} is called. Hosts opted in to compression are
+ * asked for gzip, deflate or brotli coded responses. Every call passes the circuit breaker and the
+ * bulkhead of its endpoint, see {@link EndpointGuards}. GETs of products that opt in are hedged: a
+ * second request is sent once the first has taken longer than the configured latency percentile of
+ * its endpoint, the first response wins and the other request is cancelled.
+ * Connect failures, 429 and 503 responses, and other 5xx responses to idempotent methods are retried
+ * in-process with jittered exponential backoff or after the delay the server asks for in
+ * {@code Retry-After}, as long as the task deadline and the {@link RetryBudget} allow it.
+ */
 @Slf4j
 @ApplicationScoped
 public class DynamicRestClient {
 
-  private static final EnumMap<HttpMethod, TriFunction<GenericRestClient, Map<String, String>, Object, Response>> methodMap =
-    new EnumMap<>(HttpMethod.class);
+  private static final String ACCEPTED_ENCODINGS = "gzip, deflate, br";
+
+  private static final String HEDGE_METRIC = "bob.http.client.hedge";
+
+  private static final String RETRY_METRIC = "bob.http.client.retries";
+
+  private static final Executor ENTITY_WRITERS = Executors.newVirtualThreadPerTaskExecutor();
+
+  // Status checks may read a spilled error body, which must not happen on the IO reactor
+  private static final Executor STATUS_CHECKS = Executors.newVirtualThreadPerTaskExecutor();
 
-  private final CloseableHttpClient httpClient;
+  private static final Set<String> IDEMPOTENT_METHODS = Set.of(HttpMethod.GET.getValue(),
+    HttpMethod.PUT.getValue(), HttpMethod.DELETE.getValue());
+
+  private final CloseableHttpAsyncClient httpClient;
   private final ConfigProperties config;
+  private final MeterRegistry meterRegistry;
+  private final HttpConnectionPools connectionPools;
+  private final EndpointGuards endpointGuards;
+  private final RetryBudget retryBudget;
 
-  public DynamicRestClient(@Named("BobHttpClient") CloseableHttpClient httpClient, ConfigProperties config) {
+  public DynamicRestClient(@Named("BobHttpClient") CloseableHttpAsyncClient httpClient, ConfigProperties config,
+                           MeterRegistry meterRegistry, HttpConnectionPools connectionPools,
+                           EndpointGuards endpointGuards, RetryBudget retryBudget) {
     this.httpClient = httpClient;
     this.config = config;
+    this.meterRegistry = meterRegistry;
+    this.connectionPools = connectionPools;
+    this.endpointGuards = endpointGuards;
+    this.retryBudget = retryBudget;
   }
 
-  @PostConstruct
-  public void init() {
-    methodMap.put(HttpMethod.POST, (GenericRestClient client, Map<String, String> headers, Object requestBody) ->
-      client.invokePostEndpoint(requestBody));
-    methodMap.put(HttpMethod.GET, (GenericRestClient client, Map<String, String> headers, Object requestBody) ->
-      client.invokeGetEndpoint());
-    methodMap.put(HttpMethod.PUT, (GenericRestClient client, Map<String, String> headers, Object requestBody) ->
-      client.invokePutEndpoint(requestBody));
-    methodMap.put(HttpMethod.DELETE, (GenericRestClient client, Map<String, String> headers, Object requestBody) ->
-      client.invokeDeleteEndpoint());
+  /**
+   * Make API call.
+   *
+   * @param endpointUrl the endpoint url
+   * @param requestBody the request body
+   * @param httpMethod  the http method
+   * @param headers     the headers
+   * @return the api response body
+   */
+  public ApiResponseBody makeApiCall(String endpointUrl, Object requestBody,
+                                     String httpMethod, Map<String, String> headers) {
+    return await(makeApiCallAsync(endpointUrl, requestBody, httpMethod, headers));
   }
 
   /**
-   * Get or create a GenericRestClient for the given base URL.
+   * Make API call without blocking the calling thread.
+   * The body is sent as JSON unless it is already a string or the headers carry another content
+   * type. Error statuses that are still failing after the in-process retries complete the stage with
+   * a {@link RetryableException} for 429 and 5xx and a {@link NonRetryableException} otherwise.
    *
-   * @param baseUrl the base URL for the client
-   * @return the RestClient instance
+   * @param endpointUrl the endpoint url
+   * @param requestBody the request body
+   * @param httpMethod  the http method
+   * @param headers     the headers
+   * @return the stage completed with the api response body
    */
-  private GenericRestClient getClientForBaseUrl(String baseUrl, Map<String, String> headers) {
-    return RestClientBuilder.newBuilder()
-      .baseUri(URI.create(baseUrl))
-      .register(new DynamicHeaderFilter(headers))
-      .followRedirects(true)
-      .connectTimeout(config.restClientConnectTimeout(), TimeUnit.SECONDS)
-      .readTimeout(config.restClientReadTimeout(), TimeUnit.SECONDS)
-      .build(GenericRestClient.class);
+  public CompletionStage<ApiResponseBody> makeApiCallAsync(String endpointUrl, Object requestBody,
+                                                           String httpMethod, Map<String, String> headers) {
+    return makeApiCallAsync(endpointUrl, requestBody, httpMethod, headers, false);
   }
 
   /**
-   * Make API call.
+   * Make API call without blocking the calling thread, hedging it when asked to.
+   * Only GETs are hedged, any other method is sent once.
    *
    * @param endpointUrl the endpoint url
    * @param requestBody the request body
    * @param httpMethod  the http method
    * @param headers     the headers
-   * @return the api response body
+   * @param hedge       whether a slow GET may be sent a second time
+   * @return the stage completed with the api response body
    */
-  public ApiResponseBody makeApiCall(String endpointUrl, Object requestBody,
-                                     String httpMethod, Map<String, String> headers) {
+  public CompletionStage<ApiResponseBody> makeApiCallAsync(String endpointUrl, Object requestBody,
+                                                           String httpMethod, Map<String, String> headers,
+                                                           boolean hedge) {
 
     if (MapUtils.isEmpty(headers)) {
       headers = new HashMap<>();
     }
     var method = HttpMethod.valueOf(httpMethod);
-    TriFunction<GenericRestClient, Map<String, String>, Object, Response> action = methodMap.get(method);
 
-    if (ObjectUtils.isEmpty(action)) {
-      throw new NonRetryableException(String.format("Invalid HTTP method: %s", httpMethod));
+    var builder = SimpleRequestBuilder.create(method.getValue()).setUri(URI.create(endpointUrl));
+    headers.forEach(builder::setHeader);
+    if (requestBody != null && method != HttpMethod.GET && method != HttpMethod.DELETE) {
+      String contentType = StringUtils.defaultIfEmpty(headers.get(CONTENT_TYPE), BobConstants.APPLICATION_JSON);
+      builder.removeHeaders(CONTENT_TYPE);
+      builder.setBody(toJson(requestBody), ContentType.parse(contentType));
     }
 
-    GenericRestClient client = getClientForBaseUrl(endpointUrl, headers);
-
-    Response response = action.apply(client, headers, requestBody);
-
-    int statusCode = response.getStatus();
-    MultivaluedMap<String, Object> responseHeaders = response.getHeaders();
-
-    String res = response.readEntity(String.class);
-
-    var apiResponseBody = new ApiResponseBody();
-    apiResponseBody.setBody(res);
-    apiResponseBody.setStatusCodeValue(statusCode);
-    apiResponseBody.setHeaders(responseHeaders);
-
-    return apiResponseBody;
+    var deadline = TaskDeadline.current();
+    var call = hedge && method == HttpMethod.GET
+      ? sendHedged(builder, endpointUrl, deadline) : send(builder, endpointUrl, null, deadline);
+    return call.thenApplyAsync(DynamicRestClient::checkStatus, STATUS_CHECKS);
   }
 
   public ApiResponseBody makeMultipartApiCall(String endpointUrl, Map<String, Object> requestBody,
                                               String httpMethod, Map<String, String> reqHeaders) {
+    return await(makeMultipartApiCallAsync(endpointUrl, requestBody, httpMethod, reqHeaders));
+  }
 
-    HttpUriRequestBase httpRequest;
-    if (HttpMethod.POST.getValue().equalsIgnoreCase(httpMethod)) {
-      httpRequest = new HttpPost(endpointUrl);
-    } else if (HttpMethod.PUT.getValue().equalsIgnoreCase(httpMethod)) {
-      httpRequest = new HttpPut(endpointUrl);
-    } else {
+  /**
+   * Make a form or multipart API call without blocking the calling thread.
+   *
+   * @param endpointUrl the endpoint url
+   * @param requestBody the form fields
+   * @param httpMethod  the http method, POST or PUT
+   * @param reqHeaders  the headers, whose content type selects url-encoded or multipart
+   * @return the stage completed with the api response body
+   */
+  public CompletionStage<ApiResponseBody> makeMultipartApiCallAsync(String endpointUrl,
+                                                                    Map<String, Object> requestBody,
+                                                                    String httpMethod,
+                                                                    Map<String, String> reqHeaders) {
+
+    if (!HttpMethod.POST.getValue().equalsIgnoreCase(httpMethod)
+      && !HttpMethod.PUT.getValue().equalsIgnoreCase(httpMethod)) {
       throw new NonRetryableException("Unsupported HTTP method for form data: " + httpMethod);
     }
 
+    HttpEntity entity;
     if (reqHeaders.get(CONTENT_TYPE).equalsIgnoreCase(APPLICATION_X_WWW_FORM_URLENCODED)) {
       List<NameValuePair> params = new ArrayList<>();
       requestBody.forEach((key, value) -> params.add(new BasicNameValuePair(key, value.toString())));
-      HttpEntity urlEncodedEntity = new UrlEncodedFormEntity(params, Consts.UTF_8);
-      httpRequest.setEntity(urlEncodedEntity);
+      entity = new UrlEncodedFormEntity(params, Consts.UTF_8);
     } else {
       MultipartEntityBuilder builder = MultipartEntityBuilder.create();
       requestBody.forEach((String key, Object value) -> {
         if (value instanceof byte[] byteValue) {
           builder.addBinaryBody(key, byteValue, ContentType.APPLICATION_OCTET_STREAM, key);
         } else if (value instanceof InMemoryFile inMemoryFile) {
-          builder.addBinaryBody(key, inMemoryFile.getFileData(), ContentType.APPLICATION_OCTET_STREAM, inMemoryFile.getFilename());
+          builder.addPart(key, new InMemoryFileBody(inMemoryFile));
         } else {
           builder.addTextBody(key, value.toString(), ContentType.TEXT_PLAIN);
         }
       });
-      HttpEntity multipart = builder.build();
-      httpRequest.setEntity(multipart);
+      entity = builder.build();
+    }
+
+    return sendEntityAsync(endpointUrl, httpMethod.toUpperCase(), entity, reqHeaders)
+      .thenApplyAsync(DynamicRestClient::checkFormStatus, STATUS_CHECKS);
+  }
+
+  /**
+   * Sends a prepared entity without blocking the calling thread and without interpreting the
+   * response status. The entity is streamed to the connection as it is written, not buffered.
+   *
+   * @param endpointUrl the endpoint url
+   * @param httpMethod  the http method
+   * @param entity      the entity to send
+   * @param headers     the headers, any content type among them is replaced by the entity's
+   * @return the stage completed with the api response body
+   */
+  public CompletionStage<ApiResponseBody> sendEntityAsync(String endpointUrl, String httpMethod, HttpEntity entity,
+                                                          Map<String, String> headers) {
+    var builder = SimpleRequestBuilder.create(httpMethod).setUri(URI.create(endpointUrl));
+    if (headers != null) {
+      headers.forEach(builder::setHeader);
     }
+    builder.removeHeaders(CONTENT_TYPE);
 
-    reqHeaders.forEach(httpRequest::setHeader);
-    httpRequest.removeHeaders(CONTENT_TYPE);
+    return send(builder, endpointUrl, entity, TaskDeadline.current());
+  }
 
+  /**
+   * Waits for a stage started by this client, rethrowing the exception it completed with.
+   *
+   * @param stage the stage
+   * @return the result of the stage
+   */
+  public static <T> T await(CompletionStage<T> stage) {
     try {
-      HttpContext context = new BasicHttpContext();
-      ApiResponseBody deploymentResponse = httpClient.execute(httpRequest, context, DynamicRestClient::getApiResponse);
-      log.info("end of deployToCamunda method of CamundaHelperUtils class with deploymentResponse: {}",
-        deploymentResponse);
-      return deploymentResponse;
-    } catch (IOException e) {
-      throw new NonRetryableException("Error while making API call", e);
+      return stage.toCompletableFuture().join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw new NonRetryableException("Error while making API call", e.getCause());
+    }
+  }
+
+  /**
+   * Sends a GET and, if it has not completed within the hedge delay of its endpoint, the same GET
+   * once more. The first response completes the stage and the request still in flight is cancelled;
+   * the stage only fails once both requests have failed.
+   */
+  private CompletableFuture<ApiResponseBody> sendHedged(SimpleRequestBuilder builder, String endpointUrl,
+                                                        TaskDeadline deadline) {
+    var productId = builder.getFirstHeader(BobConstants.PRODUCT_ID);
+    String key = endpointGuards.keyOf(URI.create(endpointUrl).getHost(),
+      productId != null ? productId.getValue() : null);
+    Timer latency = Timer.builder("bob.http.client.hedge.latency")
+      .tag(EndpointGuards.ENDPOINT_TAG, key)
+      .publishPercentiles(config.hedgePercentile())
+      .register(meterRegistry);
+    long delay = hedgeDelay(latency);
+
+    meterRegistry.counter(HEDGE_METRIC, EndpointGuards.ENDPOINT_TAG, key, "attempt", "primary").increment();
+    var primary = timed(send(builder, endpointUrl, null, deadline), latency);
+    if (delay < 0) {
+      return primary;
+    }
+
+    CompletableFuture<ApiResponseBody> result = new CompletableFuture<>();
+    AtomicReference<CompletableFuture<ApiResponseBody>> hedged = new AtomicReference<>();
+    AtomicInteger pending = new AtomicInteger(1);
+    primary.whenComplete((response, error) -> settle(result, response, error, pending, hedged.get()));
+
+    CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(() -> {
+      if (primary.isDone() || result.isDone()) {
+        return;
+      }
+      CompletableFuture<ApiResponseBody> second;
+      try {
+        second = timed(send(builder, endpointUrl, null, deadline), latency);
+      } catch (RuntimeException e) {
+        // The breaker, the bulkhead or the deadline refused the hedge, the primary carries on alone
+        log.debug("Hedge of {} not sent: {}", endpointUrl, e.getMessage());
+        return;
+      }
+      meterRegistry.counter(HEDGE_METRIC, EndpointGuards.ENDPOINT_TAG, key, "attempt", "hedge").increment();
+      pending.incrementAndGet();
+      hedged.set(second);
+      second.whenComplete((response, error) -> {
+        if (settle(result, response, error, pending, primary) && error == null) {
+          meterRegistry.counter(HEDGE_METRIC, EndpointGuards.ENDPOINT_TAG, key, "attempt", "won").increment();
+        }
+      });
+      if (result.isDone()) {
+        second.cancel(false);
+      }
+    });
+    return result;
+  }
+
+  /**
+   * Completes the hedged stage with the outcome of one of its requests, unless it is already complete.
+   * A response that arrives too late is released, a failure only counts once no other request is
+   * pending.
+   *
+   * @param result   the hedged stage
+   * @param response the response of the request, null if it failed
+   * @param error    the failure of the request, null if it succeeded
+   * @param pending  the number of requests not yet complete
+   * @param other    the other request, null if none was sent
+   * @return whether this outcome completed the stage
+   */
+  private static boolean settle(CompletableFuture<ApiResponseBody> result, ApiResponseBody response,
+                                Throwable error, AtomicInteger pending, CompletableFuture<ApiResponseBody> other) {
+    int stillPending = pending.decrementAndGet();
+    if (error != null) {
+      return stillPending == 0 && result.completeExceptionally(error);
+    }
+    if (!result.complete(response)) {
+      response.release();
+      return false;
     }
+    if (other != null) {
+      other.cancel(false);
+    }
+    return true;
   }
 
-  private static ApiResponseBody getApiResponse(ClassicHttpResponse response) throws IOException, ParseException {
-    HttpEntity responseEntity = response.getEntity();
-    String responseBody = BobConstants.NO_CONTENT_FROM_THE_RESPONSE;
-    if (ObjectUtils.isNotEmpty(responseEntity)) {
-      responseBody = EntityUtils.toString(responseEntity);
+  private long hedgeDelay(Timer latency) {
+    if (latency.count() < config.hedgeMinSamples()) {
+      return -1;
+    }
+    long percentile = 0;
+    for (ValueAtPercentile value : latency.takeSnapshot().percentileValues()) {
+      percentile = (long) value.value(TimeUnit.MILLISECONDS);
     }
-    ApiResponseBody apiResponseBody = new ApiResponseBody();
-    apiResponseBody.setStatusCodeValue(response.getCode());
-    if (response.getCode() >= HTTP_STATUS_CODE_200 && response.getCode() < HTTP_STATUS_CODE_300) {
+    return Math.max(percentile, config.hedgeMinDelay());
+  }
+
+  /**
+   * Records how long a request of a hedged call took, whatever its outcome. A request that lost the
+   * race is cancelled, and the time up to its cancellation is recorded, so the slow requests hedging
+   * exists for still count towards the percentile.
+   */
+  private static CompletableFuture<ApiResponseBody> timed(CompletableFuture<ApiResponseBody> call, Timer latency) {
+    long start = System.nanoTime();
+    call.whenComplete((response, error) -> latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+    return call;
+  }
 
-      apiResponseBody.setBody(responseBody);
+  /**
+   * Sends a request, retrying it while the retry policy allows. The first attempt is made on the
+   * calling thread, so a refusal by the deadline, breaker or bulkhead is thrown straight away.
+   * A streamed entity is only retried if it can be written again.
+   */
+  private CompletableFuture<ApiResponseBody> send(SimpleRequestBuilder builder, String endpointUrl,
+                                                  HttpEntity entity, TaskDeadline deadline) {
+    retryBudget.deposit();
+    CompletableFuture<ApiResponseBody> result = new CompletableFuture<>();
+    attempt(builder, endpointUrl, entity, deadline, 0, result);
+    return result;
+  }
 
-      HeaderGroup headers = new HeaderGroup();
-      response.headerIterator().forEachRemaining(headers::addHeader);
-      MultivaluedMap<String, Object> responseHeaders = new MultivaluedHashMap<>();
-      Arrays.stream(headers.getHeaders()).forEach(header -> responseHeaders.add(header.getName(), header.getValue()));
-      apiResponseBody.setHeaders(responseHeaders);
+  private void attempt(SimpleRequestBuilder builder, String endpointUrl, HttpEntity entity, TaskDeadline deadline,
+                       int retries, CompletableFuture<ApiResponseBody> result) {
+    var call = execute(builder, endpointUrl, entity, deadline);
+    result.whenComplete((response, error) -> {
+      if (result.isCancelled()) {
+        call.cancel(false);
+      }
+    });
+    call.whenComplete((response, error) -> {
+      long delay = entity == null || entity.isRepeatable()
+        ? retryDelay(builder.getMethod(), response, error, retries, deadline) : -1;
+      if (delay < 0) {
+        if (error != null) {
+          result.completeExceptionally(error);
+        } else if (!result.complete(response)) {
+          response.release();
+        }
+        return;
+      }
+      log.info("Retrying call to {} in {} ms, retry {}", endpointUrl, delay, retries + 1);
+      meterRegistry.counter(RETRY_METRIC, "outcome", "retried").increment();
+      if (response != null) {
+        response.release();
+      }
+      CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(() -> {
+        if (result.isDone()) {
+          return;
+        }
+        try {
+          attempt(builder, endpointUrl, entity, deadline, retries + 1, result);
+        } catch (RuntimeException e) {
+          result.completeExceptionally(e);
+        }
+      });
+    });
+  }
 
-      return apiResponseBody;
+  /**
+   * Decides whether a completed attempt is retried in-process.
+   *
+   * @param method   the http method
+   * @param response the response, null if the attempt failed
+   * @param error    the failure, null if a response was received
+   * @param retries  the number of retries made so far
+   * @param deadline the deadline of the task
+   * @return the delay before the retry in milliseconds, or -1 if the outcome is final
+   */
+  private long retryDelay(String method, ApiResponseBody response, Throwable error, int retries,
+                          TaskDeadline deadline) {
+    boolean retryable;
+    long delay;
+    if (error != null) {
+      // Only a request that never reached the server is safe to send again whatever its method
+      retryable = !deadline.isExpired() && isConnectFailure(error);
+      delay = backoff(retries);
     } else {
-      log.warn("Error executing the API with error code: {}", response.getCode());
-      Map<String, String> errorMessage = new HashMap<>();
-      if(StringUtils.isNotEmpty(responseBody)) {
-        errorMessage = Config.OBJECT_MAPPER.readValue(responseBody, Map.class);
+      int statusCode = response.getStatusCodeValue();
+      retryable = statusCode == HTTP_STATUS_CODE_429 || statusCode == BobConstants.HTTP_STATUS_CODE_503
+        || (statusCode >= BobConstants.HTTP_STATUS_CODE_500 && IDEMPOTENT_METHODS.contains(method));
+      long retryAfter = retryAfterMillis(response);
+      delay = retryAfter > 0 ? retryAfter : backoff(retries);
+    }
+    if (!retryable || retries >= config.restClientMaxRetries()) {
+      return -1;
+    }
+    if (delay > config.restClientRetryMaxDelay() || delay >= deadline.remainingMillis()) {
+      // Too long to wait in-process, the task is retried by the engine instead
+      return -1;
+    }
+    if (!retryBudget.tryWithdraw()) {
+      meterRegistry.counter(RETRY_METRIC, "outcome", "budget_exhausted").increment();
+      return -1;
+    }
+    return delay;
+  }
+
+  private long backoff(int retries) {
+    long ceiling = Math.min(config.restClientRetryMaxDelay(), config.restClientRetryBaseDelay() << retries);
+    return ThreadLocalRandom.current().nextLong(ceiling + 1);
+  }
+
+  private static boolean isConnectFailure(Throwable error) {
+    for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+      if (cause instanceof ConnectException || cause instanceof ConnectTimeoutException) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Reads the {@code Retry-After} header of a response, given either in seconds or as an HTTP date.
+   *
+   * @param response the response
+   * @return the delay asked for in milliseconds, 0 if none
+   */
+  private static long retryAfterMillis(ApiResponseBody response) {
+    Object header = response.getHeaders() != null ? response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER) : null;
+    if (header == null) {
+      return 0;
+    }
+    String value = header.toString().trim();
+    if (StringUtils.isNumeric(value)) {
+      return TimeUnit.SECONDS.toMillis(Long.parseLong(value));
+    }
+    Instant retryAt = DateUtils.parseStandardDate(value);
+    return retryAt != null ? Math.max(0, Duration.between(Instant.now(), retryAt).toMillis()) : 0;
+  }
+
+  private CompletableFuture<ApiResponseBody> execute(SimpleRequestBuilder builder, String endpointUrl,
+                                                     HttpEntity entity, TaskDeadline deadline) {
+    deadline.checkBudget("call to " + endpointUrl);
+    builder.setRequestConfig(RequestConfig.custom()
+      .setConnectionRequestTimeout(deadline.timeoutMillis(TimeUnit.SECONDS.toMillis(config.restClientConnectTimeout())),
+        TimeUnit.MILLISECONDS)
+      .setResponseTimeout(deadline.timeoutMillis(TimeUnit.SECONDS.toMillis(config.restClientReadTimeout())),
+        TimeUnit.MILLISECONDS)
+      .setRedirectsEnabled(true)
+      .build());
+    var uri = URI.create(endpointUrl);
+    if (Boolean.TRUE.equals(HttpConnectionPools.hostSetting(config.restClientCompression(), uri.getHost()))
+      && builder.getFirstHeader(HttpHeaders.ACCEPT_ENCODING) == null) {
+      builder.setHeader(HttpHeaders.ACCEPT_ENCODING, ACCEPTED_ENCODINGS);
+    }
+    var productId = builder.getFirstHeader(BobConstants.PRODUCT_ID);
+    var guard = endpointGuards.acquire(
+      endpointGuards.keyOf(uri.getHost(), productId != null ? productId.getValue() : null));
+    SimpleHttpRequest request = builder.build();
+    connectionPools.prepareRoute(uri);
+
+    var sample = Timer.start(meterRegistry);
+    CompletableFuture<ApiResponseBody> future = new CompletableFuture<>();
+    FutureCallback<ApiResponseBody> callback = new FutureCallback<>() {
+      @Override
+      public void completed(ApiResponseBody response) {
+        if (!future.complete(response)) {
+          response.release();
+        }
+      }
+
+      @Override
+      public void failed(Exception e) {
+        future.completeExceptionally(e);
+      }
+
+      @Override
+      public void cancelled() {
+        future.cancel(false);
+      }
+    };
+    Future<ApiResponseBody> exchange = null;
+    try {
+      AsyncRequestProducer producer = entity != null
+        ? new BasicRequestProducer(request, new StreamedEntityProducer(entity))
+        : SimpleRequestProducer.create(request);
+      exchange = httpClient.execute(producer,
+        new SpillingResponseConsumer(config.responseSpillThreshold(), meterRegistry), callback);
+    } catch (RuntimeException e) {
+      future.completeExceptionally(e);
+    }
+
+    // Registered on the exchange itself, so the permit and the sample are settled exactly once,
+    // also when the call derived from it is cancelled first
+    future.whenComplete((ApiResponseBody response, Throwable error) -> {
+      // A cancelled request, e.g. a hedge that lost, says nothing about the health of the endpoint
+      boolean cancelled = error instanceof CancellationException;
+      guard.release(!cancelled && (error != null || isEndpointFailure(response.getStatusCodeValue())));
+      sample.stop(meterRegistry.timer("bob.http.client.requests", "method", request.getMethod(),
+        "host", connectionPools.hostTag(uri.getHost()),
+        "outcome", outcomeOf(response, error, cancelled)));
+    });
+    CompletableFuture<ApiResponseBody> call = future.handle((ApiResponseBody response, Throwable error) -> {
+      if (error == null) {
+        return response;
+      }
+      if (deadline.isExpired()) {
+        throw new DeadlineExceededException("Call to " + endpointUrl + " outlived the task lock", error);
+      }
+      if (error instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw new NonRetryableException("Error while making API call", error);
+    });
+    // Cancelling the call, e.g. when a hedged request lost, aborts the exchange on the wire
+    Future<ApiResponseBody> inFlight = exchange;
+    call.whenComplete((response, error) -> {
+      if (call.isCancelled()) {
+        future.cancel(false);
+        future.thenAccept(ApiResponseBody::release);
+        if (inFlight != null) {
+          inFlight.cancel(true);
+        }
       }
-      if (MapUtils.isEmpty(errorMessage)) {
-        throw new NonRetryableException(responseBody, response.getCode());
+    });
+    return call;
+  }
+
+  private static String outcomeOf(ApiResponseBody response, Throwable error, boolean cancelled) {
+    if (cancelled) {
+      return "cancelled";
+    }
+    return error != null ? "error" : String.valueOf(response.getStatusCodeValue() / 100) + "xx";
+  }
+
+  private static boolean isEndpointFailure(int statusCode) {
+    return statusCode == HTTP_STATUS_CODE_429 || statusCode >= BobConstants.HTTP_STATUS_CODE_500;
+  }
+
+  private static String toJson(Object requestBody) {
+    if (requestBody instanceof String body) {
+      return body;
+    }
+    try {
+      return Config.OBJECT_MAPPER.writeValueAsString(requestBody);
+    } catch (JsonProcessingException e) {
+      throw new NonRetryableException("Error while serializing the request body", e);
+    }
+  }
+
+  private static ApiResponseBody checkStatus(ApiResponseBody response) {
+    if (response.getStatusCodeValue() < HTTP_STATUS_CODE_400) {
+      return response;
+    }
+    String message = response.hasBody() ? response.getBody() : BobConstants.NO_CONTENT_FROM_THE_RESPONSE;
+    response.release();
+    if (isEndpointFailure(response.getStatusCodeValue())) {
+      throw new RetryableException(message, response.getStatusCodeValue(), retryAfterMillis(response));
+    }
+    throw new NonRetryableException(message, response.getStatusCodeValue());
+  }
+
+  private static ApiResponseBody checkFormStatus(ApiResponseBody response) {
+    if (response.getStatusCodeValue() >= HTTP_STATUS_CODE_200 && response.getStatusCodeValue() < HTTP_STATUS_CODE_300) {
+      if (!response.hasBody()) {
+        response.setContent(null);
+        response.setBody(BobConstants.NO_CONTENT_FROM_THE_RESPONSE);
       }
-      throw new NonRetryableException(errorMessage.toString(), response.getCode());
+      return response;
+    }
+    String responseBody = response.hasBody() ? response.getBody() : BobConstants.NO_CONTENT_FROM_THE_RESPONSE;
+    response.release();
+    log.warn("Error executing the API with error code: {}", response.getStatusCodeValue());
+    Map<String, String> errorMessage = new HashMap<>();
+    try {
+      errorMessage = Config.OBJECT_MAPPER.readValue(responseBody, Map.class);
+    } catch (JsonProcessingException e) {
+      log.debug("Error response is not JSON: {}", e.getMessage());
+    }
+    String message = MapUtils.isEmpty(errorMessage) ? responseBody : errorMessage.toString();
+    if (isEndpointFailure(response.getStatusCodeValue())) {
+      throw new RetryableException(message, response.getStatusCodeValue(), retryAfterMillis(response));
+    }
+    throw new NonRetryableException(message, response.getStatusCodeValue());
+  }
+
+  /**
+   * A multipart file part written straight from the shared buffer of an {@link InMemoryFile}, with
+   * its length known up front.
+   */
+  private static final class InMemoryFileBody extends AbstractContentBody {
+
+    private final InMemoryFile file;
+
+    private InMemoryFileBody(InMemoryFile file) {
+      super(ContentType.APPLICATION_OCTET_STREAM);
+      this.file = file;
+    }
+
+    @Override
+    public String getFilename() {
+      return file.getFilename();
+    }
+
+    @Override
+    public long getContentLength() {
+      return file.getSize();
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+      file.writeTo(out);
     }
   }
 
+  /**
+   * Streams a classic entity to the connection from a virtual thread, through a small shared buffer.
+   */
+  private static final class StreamedEntityProducer extends AbstractClassicEntityProducer {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final HttpEntity entity;
+
+    private StreamedEntityProducer(HttpEntity entity) {
+      super(BUFFER_SIZE, ContentType.parse(entity.getContentType()), ENTITY_WRITERS);
+      this.entity = entity;
+    }
+
+    @Override
+    protected void produceData(ContentType contentType, OutputStream outputStream) throws IOException {
+      entity.writeTo(outputStream);
+    }
+  }
 }
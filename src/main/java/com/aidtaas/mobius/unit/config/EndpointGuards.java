@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.config;
+
+import com.aidtaas.mobius.unit.constants.BobConstants;
+import com.aidtaas.mobius.unit.exception.RetryableException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Circuit breakers and bulkheads of the outbound endpoints.
+ * Calls are grouped by the product they belong to, when configured and known, or else by the host
+ * they go to. Each group has a breaker that opens once the failure rate of its recent calls crosses
+ * the threshold, and a bulkhead that caps its concurrent calls. While a breaker is open, calls fail
+ * fast with a {@link RetryableException} whose retry delay lasts until the breaker half-opens; a few
+ * trial calls then decide whether it closes again.
+ * Metrics name an endpoint only when it is listed in the tagged endpoints or is a host with a
+ * per-host setting; every other endpoint is tagged {@value HttpConnectionPools#OTHER_ROUTES}.
+ */
+@Slf4j
+@ApplicationScoped
+@RequiredArgsConstructor
+public class EndpointGuards {
+
+  public static final String ENDPOINT_TAG = "endpoint";
+
+  private static final Duration IDLE_EXPIRY = Duration.ofMinutes(30);
+
+  private final ConfigProperties config;
+
+  private final MeterRegistry meterRegistry;
+
+  private final HttpConnectionPools connectionPools;
+
+  private Cache<String, Guard> guards;
+
+  @PostConstruct
+  public void init() {
+    guards = Caffeine.newBuilder()
+      .expireAfterAccess(IDLE_EXPIRY)
+      .build();
+    meterRegistry.gauge("bob.http.breaker.open", Tags.empty(), this, EndpointGuards::openCount);
+  }
+
+  /**
+   * Returns the key calls to an endpoint are guarded under.
+   *
+   * @param host      the host of the endpoint
+   * @param productId the product the call belongs to, may be null
+   * @return the product id when breakers are kept per product and it is known, else the host
+   */
+  public String keyOf(String host, String productId) {
+    if (config.circuitBreakerByProduct() && StringUtils.isNotEmpty(productId)) {
+      return productId;
+    }
+    return host;
+  }
+
+  /**
+   * Returns the tag an endpoint is counted under in metrics.
+   *
+   * @param key the endpoint key
+   * @return the key when it is a tagged endpoint or a configured host, else
+   *   {@value HttpConnectionPools#OTHER_ROUTES}
+   */
+  public String tagOf(String key) {
+    if (config.circuitBreakerTaggedEndpoints().map(endpoints -> endpoints.contains(key)).orElse(false)) {
+      return key;
+    }
+    return connectionPools.hostTag(key);
+  }
+
+  /**
+   * Lets a call through the breaker and the bulkhead of its endpoint.
+   * The returned guard must be told the outcome of the call once it completes.
+   *
+   * @param key the endpoint key
+   * @return the guard of the endpoint
+   * @throws RetryableException if the breaker is open or the bulkhead is full
+   */
+  public Guard acquire(String key) {
+    Guard guard = guards.get(key, Guard::new);
+    guard.acquire();
+    return guard;
+  }
+
+  private long openCount() {
+    return guards.asMap().values().stream().filter(Guard::isTripped).count();
+  }
+
+  private enum State {
+    CLOSED, OPEN, HALF_OPEN
+  }
+
+  /**
+   * The breaker and the bulkhead of one endpoint.
+   * The outcomes of the last calls are kept in a ring, the state changes under the guard's lock.
+   */
+  public final class Guard {
+
+    private final String key;
+
+    private final String tag;
+
+    private final Semaphore bulkhead;
+
+    private final boolean[] outcomes;
+
+    private int next;
+
+    private int recorded;
+
+    private int failures;
+
+    private State state = State.CLOSED;
+
+    private long openedAt;
+
+    private int trialsInFlight;
+
+    private int trialSuccesses;
+
+    private Guard(String key) {
+      this.key = key;
+      this.tag = tagOf(key);
+      int maxConcurrent = config.bulkheadMaxConcurrent();
+      this.bulkhead = new Semaphore(maxConcurrent > 0 ? maxConcurrent : Integer.MAX_VALUE);
+      this.outcomes = new boolean[Math.max(1, config.circuitBreakerWindowSize())];
+    }
+
+    private void acquire() {
+      admit();
+      if (!bulkhead.tryAcquire()) {
+        synchronized (this) {
+          if (state == State.HALF_OPEN) {
+            trialsInFlight--;
+          }
+        }
+        rejected("bulkhead");
+        throw new RetryableException("Too many concurrent calls to " + key, BobConstants.HTTP_STATUS_CODE_429);
+      }
+    }
+
+    private synchronized void admit() {
+      if (state == State.OPEN) {
+        long untilHalfOpen = openedAt + config.circuitBreakerOpenDuration() - System.currentTimeMillis();
+        if (untilHalfOpen > 0) {
+          rejected("open");
+          throw new RetryableException("Circuit breaker of " + key + " is open",
+            BobConstants.HTTP_STATUS_CODE_503, untilHalfOpen);
+        }
+        transition(State.HALF_OPEN);
+      }
+      if (state == State.HALF_OPEN) {
+        if (trialsInFlight >= config.circuitBreakerHalfOpenCalls()) {
+          rejected("open");
+          throw new RetryableException("Circuit breaker of " + key + " is half-open",
+            BobConstants.HTTP_STATUS_CODE_503, config.circuitBreakerOpenDuration());
+        }
+        trialsInFlight++;
+      }
+    }
+
+    /**
+     * Releases the bulkhead slot of a call and records its outcome.
+     *
+     * @param failed whether the endpoint failed to answer properly
+     */
+    public void release(boolean failed) {
+      bulkhead.release();
+      record(failed);
+    }
+
+    private synchronized void record(boolean failed) {
+      switch (state) {
+        case HALF_OPEN -> {
+          // A call started before the breaker half-opened counts as one of its trials
+          trialsInFlight = Math.max(0, trialsInFlight - 1);
+          if (failed) {
+            transition(State.OPEN);
+          } else if (++trialSuccesses >= config.circuitBreakerHalfOpenCalls()) {
+            transition(State.CLOSED);
+          }
+        }
+        case CLOSED -> {
+          if (recorded == outcomes.length) {
+            failures -= outcomes[next] ? 1 : 0;
+          } else {
+            recorded++;
+          }
+          outcomes[next] = failed;
+          failures += failed ? 1 : 0;
+          next = (next + 1) % outcomes.length;
+          if (recorded >= config.circuitBreakerMinimumCalls()
+            && failures * 100 >= config.circuitBreakerFailureRate() * recorded) {
+            transition(State.OPEN);
+          }
+        }
+        // Calls started before the breaker opened do not change it
+        case OPEN -> { }
+      }
+    }
+
+    private void transition(State target) {
+      log.info("Circuit breaker of {} changed from {} to {}", key, state, target);
+      state = target;
+      trialsInFlight = 0;
+      trialSuccesses = 0;
+      if (target == State.OPEN) {
+        openedAt = System.currentTimeMillis();
+      } else if (target == State.CLOSED) {
+        next = 0;
+        recorded = 0;
+        failures = 0;
+      }
+    }
+
+    private synchronized boolean isTripped() {
+      return state != State.CLOSED;
+    }
+
+    private void rejected(String reason) {
+      meterRegistry.counter("bob.http.breaker.rejected", ENDPOINT_TAG, tag, "reason", reason).increment();
+    }
+  }
+}
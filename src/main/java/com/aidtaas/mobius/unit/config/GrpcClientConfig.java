@@ -12,6 +12,7 @@ import io.grpc.ManagedChannel;
 import io.grpc.ManagedChannelBuilder;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Singleton;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -35,10 +36,13 @@ public class GrpcClientConfig {
   /**
    * Produces a blocking stub for the MeteringService.
    * This stub can be used to make synchronous gRPC calls to the MeteringService.
+   * A single stub is shared so that every user, including the startup warm-up, goes through the
+   * same channel.
    *
    * @return a MeteringServiceBlockingStub instance
    */
   @Produces
+  @Singleton
   public MeteringServiceGrpc.MeteringServiceBlockingStub meteringServiceBlockingStub() {
     ManagedChannel channel = ManagedChannelBuilder.forAddress(config.grpcServerAddress(), config.grpcServerPort())
             .usePlaintext()
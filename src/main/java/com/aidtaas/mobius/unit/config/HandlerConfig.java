@@ -1,130 +1,209 @@
-//
-///*
-// * Copyright (c) 2024.
-// * Gaian Solutions Pvt. Ltd.
-// * All rights reserved.
-// */
-//package com.aidtaas.mobius.unit.config;
-//
-//import com.aidtaas.mobius.unit.handlers.AnsibleHandler;
-//import com.aidtaas.mobius.unit.handlers.ApiOperationHandler;
-//import com.aidtaas.mobius.unit.handlers.PythonHandler;
-//import com.aidtaas.mobius.unit.handlers.ShellScriptHandler;
-//import com.aidtaas.mobius.unit.handlers.TerraformHandler;
-//import io.quarkus.runtime.StartupEvent;
-//import jakarta.enterprise.context.ApplicationScoped;
-//import jakarta.enterprise.event.Observes;
-//import java.util.stream.IntStream;
-//import lombok.RequiredArgsConstructor;
-//import lombok.SneakyThrows;
-//import lombok.extern.slf4j.Slf4j;
-//import org.camunda.bpm.client.ExternalTaskClient;
-//import org.camunda.bpm.client.backoff.ExponentialBackoffStrategy;
-//
-//@Slf4j
-//@ApplicationScoped
-//@RequiredArgsConstructor
-//public class HandlerConfig {
-//
-//  private final ConfigProperties config;
-//  private final ApiOperationHandler apiOperationHandler;
-//  private final AnsibleHandler ansibleHandler;
-//  private final PythonHandler pythonHandler;
-//  private final ShellScriptHandler shellScriptHandler;
-//  private final TerraformHandler terraformHandler;
-//
-//  @SneakyThrows
-//  void onStart(@Observes StartupEvent ev) {
-//    IntStream.range(0, config.apiWorkerCount()).forEach(this::startApiWorker);
-//    IntStream.range(0, config.terraformWorkerCount()).forEach(this::startTerraformWorker);
-//    IntStream.range(0, config.shellScriptWorkerCount()).forEach(this::startShellScriptWorker);
-//    IntStream.range(0, config.ansibleWorkerCount()).forEach(this::startAnsibleWorker);
-//    IntStream.range(0, config.pythonWorkerCount()).forEach(this::startPythonWorker);
-//    log.info("External Task Clients started successfully");
-//  }
-//
-//  private void startApiWorker(int workerIndex) {
-//    ExternalTaskClient client = ExternalTaskClient.create()
-//      .baseUrl(config.engineRestUrl())
-//      .workerId(config.apiWorkerId() + "-" + workerIndex)
-//      .maxTasks(config.apiMaxTasks())
-//      .asyncResponseTimeout(config.apiAsyncResponseTimeout())
-//      .backoffStrategy(new ExponentialBackoffStrategy(config.backoffMultiplier(),
-//        config.maxBackoffDelay(), config.waitTime()))
-//      .lockDuration(config.apiLockDuration())
-//      .usePriority(config.usePriority())
-//      .build();
-//
-//    client.subscribe("ApiOperationHandler")
-//      .handler(apiOperationHandler::execute)
-//      .open();
-//  }
-//
-//  private void startTerraformWorker(int workerIndex) {
-//    ExternalTaskClient client = ExternalTaskClient.create()
-//      .baseUrl(config.engineRestUrl())
-//      .workerId(config.terraformWorkerId() + "-" + workerIndex)
-//      .maxTasks(config.terraformMaxTasks())
-//      .asyncResponseTimeout(config.terraformAsyncResponseTimeout())
-//      .backoffStrategy(new ExponentialBackoffStrategy(config.backoffMultiplier(),
-//        config.maxBackoffDelay(), config.waitTime()))
-//      .lockDuration(config.terraformLockDuration())
-//      .usePriority(config.usePriority())
-//      .build();
-//
-//    client.subscribe("TerraformHandler")
-//      .handler(terraformHandler::execute)
-//      .open();
-//  }
-//
-//  private void startShellScriptWorker(int workerIndex) {
-//    ExternalTaskClient client = ExternalTaskClient.create()
-//      .baseUrl(config.engineRestUrl())
-//      .workerId(config.shellScriptWorkerId() + "-" + workerIndex)
-//      .maxTasks(config.shellScriptMaxTasks())
-//      .asyncResponseTimeout(config.shellScriptAsyncResponseTimeout())
-//      .backoffStrategy(new ExponentialBackoffStrategy(config.backoffMultiplier(),
-//        config.maxBackoffDelay(), config.waitTime()))
-//      .lockDuration(config.shellScriptLockDuration())
-//      .usePriority(config.usePriority())
-//      .build();
-//
-//    client.subscribe("ShellScriptHandler")
-//      .handler(shellScriptHandler::execute)
-//      .open();
-//  }
-//
-//  private void startAnsibleWorker(int workerIndex) {
-//    ExternalTaskClient client = ExternalTaskClient.create()
-//      .baseUrl(config.engineRestUrl())
-//      .workerId(config.ansibleWorkerId() + "-" + workerIndex)
-//      .maxTasks(config.ansibleMaxTasks())
-//      .asyncResponseTimeout(config.ansibleAsyncResponseTimeout())
-//      .backoffStrategy(new ExponentialBackoffStrategy(config.backoffMultiplier(),
-//        config.maxBackoffDelay(), config.waitTime()))
-//      .lockDuration(config.ansibleLockDuration())
-//      .usePriority(config.usePriority())
-//      .build();
-//
-//    client.subscribe("AnsibleHandler")
-//      .handler(ansibleHandler::execute)
-//      .open();
-//  }
-//
-//  private void startPythonWorker(int workerIndex) {
-//    ExternalTaskClient client = ExternalTaskClient.create()
-//      .baseUrl(config.engineRestUrl())
-//      .workerId(config.pythonWorkerId() + "-" + workerIndex)
-//      .maxTasks(config.pythonMaxTasks())
-//      .asyncResponseTimeout(config.pythonAsyncResponseTimeout())
-//      .backoffStrategy(new ExponentialBackoffStrategy(config.backoffMultiplier(),
-//        config.maxBackoffDelay(), config.waitTime()))
-//      .lockDuration(config.pythonLockDuration())
-//      .usePriority(config.usePriority())
-//      .build();
-//
-//    client.subscribe("PythonHandler")
-//      .handler(pythonHandler::execute)
-//      .open();
-//  }
-//}
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.config;
+
+import com.aidtaas.mobius.unit.enums.AffinityMode;
+import com.aidtaas.mobius.unit.handlers.AnsibleHandler;
+import com.aidtaas.mobius.unit.handlers.ApiOperationHandler;
+import com.aidtaas.mobius.unit.handlers.PythonHandler;
+import com.aidtaas.mobius.unit.handlers.ShellScriptHandler;
+import com.aidtaas.mobius.unit.handlers.TerraformHandler;
+import com.aidtaas.mobius.unit.worker.LockHeartbeat;
+import com.aidtaas.mobius.unit.worker.MultiTopicClientBuilder;
+import com.aidtaas.mobius.unit.worker.MultiTopicPoller;
+import com.aidtaas.mobius.unit.worker.TaskAffinity;
+import com.aidtaas.mobius.unit.worker.TenantFairQueue;
+import com.aidtaas.mobius.unit.worker.TopicDispatcher;
+import com.aidtaas.mobius.unit.worker.WorkerMembership;
+import com.aidtaas.mobius.unit.worker.WorkerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.inject.Instance;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.cache.Cache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.client.ExternalTaskClient;
+import org.camunda.bpm.client.backoff.ExponentialBackoffStrategy;
+import org.camunda.bpm.client.task.ExternalTaskHandler;
+
+import static com.aidtaas.mobius.unit.constants.BobConstants.ANSIBLE_HANDLER;
+import static com.aidtaas.mobius.unit.constants.BobConstants.API_OPERATION_HANDLER;
+import static com.aidtaas.mobius.unit.constants.BobConstants.PYTHON_HANDLER;
+import static com.aidtaas.mobius.unit.constants.BobConstants.SHELL_SCRIPT_HANDLER;
+import static com.aidtaas.mobius.unit.constants.BobConstants.TERRAFORM_HANDLER;
+
+/**
+ * Starts the external task worker of the pod.
+ * A single {@link MultiTopicPoller} fetches and locks tasks for all topics in one request and
+ * routes them to one {@link TopicDispatcher} per topic, which runs them on virtual threads.
+ * Fetch sizes adapt to the free slots and handler latency of each topic and are exported as gauges.
+ * Within a topic, tasks are started in weighted-fair order across tenants by a {@link TenantFairQueue}.
+ * Locks of accepted tasks are kept alive by a {@link LockHeartbeat} unless its interval is zero.
+ * A worker count of zero disables the topic. Limits of the running dispatchers can be changed
+ * through the worker admin API. When an affinity mode is set, tasks are routed to the pod that owns
+ * their process instance or tenant on a {@link TaskAffinity} hash ring kept in Redis.
+ */
+@Slf4j
+@ApplicationScoped
+@RequiredArgsConstructor
+public class HandlerConfig {
+
+  private final ConfigProperties config;
+  private final ApiOperationHandler apiOperationHandler;
+  private final AnsibleHandler ansibleHandler;
+  private final PythonHandler pythonHandler;
+  private final ShellScriptHandler shellScriptHandler;
+  private final TerraformHandler terraformHandler;
+  private final MeterRegistry registry;
+  private final Instance<Cache<String, String>> cache;
+
+  private final List<TopicDispatcher> dispatchers = new CopyOnWriteArrayList<>();
+
+  private ExternalTaskClient client;
+
+  private MultiTopicPoller poller;
+
+  private LockHeartbeat lockHeartbeat;
+
+  private WorkerMembership membership;
+
+  void onStart(@Observes StartupEvent ev) {
+    if (config.lockHeartbeatInterval() > 0) {
+      lockHeartbeat = new LockHeartbeat(config.lockHeartbeatInterval(), config.lockHeartbeatBatchSize());
+      WorkerMetrics.registerLockHeartbeat(registry, lockHeartbeat);
+    }
+
+    addDispatcher(API_OPERATION_HANDLER, apiOperationHandler, config.apiWorkerCount(), config.apiMaxTasks(),
+      config.apiMaxInFlight(), config.apiLockDuration());
+    addDispatcher(TERRAFORM_HANDLER, terraformHandler, config.terraformWorkerCount(), config.terraformMaxTasks(),
+      config.terraformMaxInFlight(), config.terraformLockDuration());
+    addDispatcher(SHELL_SCRIPT_HANDLER, shellScriptHandler, config.shellScriptWorkerCount(),
+      config.shellScriptMaxTasks(), config.shellScriptMaxInFlight(), config.shellScriptLockDuration());
+    addDispatcher(ANSIBLE_HANDLER, ansibleHandler, config.ansibleWorkerCount(), config.ansibleMaxTasks(),
+      config.ansibleMaxInFlight(), config.ansibleLockDuration());
+    addDispatcher(PYTHON_HANDLER, pythonHandler, config.pythonWorkerCount(), config.pythonMaxTasks(),
+      config.pythonMaxInFlight(), config.pythonLockDuration());
+
+    if (dispatchers.isEmpty()) {
+      log.info("All external task topics are disabled, no worker started");
+      return;
+    }
+
+    var builder = new MultiTopicClientBuilder(config.workerIdleWait());
+    client = builder
+      .baseUrl(config.engineRestUrl())
+      .workerId(config.workerId())
+      .maxTasks(dispatchers.stream().mapToInt(TopicDispatcher::getMaxTasks).sum())
+      .asyncResponseTimeout(config.workerAsyncResponseTimeout())
+      .backoffStrategy(new ExponentialBackoffStrategy(config.backoffMultiplier(),
+        config.maxBackoffDelay(), config.waitTime()))
+      .usePriority(config.usePriority())
+      .build();
+
+    poller = builder.getPoller();
+    WorkerMetrics.registerPoller(registry, poller);
+    startAffinity();
+    dispatchers.forEach(dispatcher -> {
+      dispatcher.setOnSlotReleased(poller::wakeUp);
+      WorkerMetrics.registerTopic(registry, dispatcher);
+      client.subscribe(dispatcher.getTopicName())
+        .lockDuration(dispatcher.getLockDuration())
+        .handler(dispatcher)
+        .open();
+    });
+    log.info("External Task Client started successfully for topics {}",
+      dispatchers.stream().map(TopicDispatcher::getTopicName).toList());
+  }
+
+  /**
+   * Drains the worker on shutdown: fetching stops first, running tasks get until the drain
+   * timeout to finish, and whatever is still running afterwards is unlocked so that another pod
+   * can pick it up without waiting for the lock to expire.
+   */
+  void onStop(@Observes ShutdownEvent ev) {
+    if (client == null) {
+      return;
+    }
+    poller.drain();
+    if (membership != null) {
+      membership.leave();
+    }
+    dispatchers.forEach(TopicDispatcher::shutdown);
+
+    long deadline = System.currentTimeMillis() + config.workerDrainTimeout();
+    int handedBack = 0;
+    for (TopicDispatcher dispatcher : dispatchers) {
+      if (!dispatcher.awaitTermination(deadline)) {
+        handedBack += dispatcher.handBackRunning();
+      }
+    }
+
+    if (lockHeartbeat != null) {
+      lockHeartbeat.stop();
+    }
+    client.stop();
+    log.info("External Task Client stopped, {} unfinished tasks handed back", handedBack);
+  }
+
+  /**
+   * Returns the dispatchers of the enabled topics.
+   *
+   * @return the dispatchers, empty until the worker is started
+   */
+  public List<TopicDispatcher> getDispatchers() {
+    return Collections.unmodifiableList(dispatchers);
+  }
+
+  /**
+   * Returns the dispatcher of a topic.
+   *
+   * @param topicName the topic name
+   * @return the dispatcher, empty if the topic is disabled
+   */
+  public Optional<TopicDispatcher> findDispatcher(String topicName) {
+    return dispatchers.stream().filter(dispatcher -> dispatcher.getTopicName().equals(topicName)).findFirst();
+  }
+
+  private void startAffinity() {
+    var mode = AffinityMode.fromValue(config.affinityMode());
+    if (mode == AffinityMode.NONE) {
+      return;
+    }
+    String podId = config.workerId() + "-" + Optional.ofNullable(System.getenv("HOSTNAME"))
+      .orElseGet(() -> UUID.randomUUID().toString());
+    membership = new WorkerMembership(cache.get(), podId, config.affinityHeartbeatInterval(),
+      config.affinityMemberTtl());
+    var taskAffinity = new TaskAffinity(membership, podId, mode);
+    poller.setTaskAffinity(taskAffinity);
+    WorkerMetrics.registerAffinity(registry, taskAffinity);
+    log.info("Task affinity by {} enabled for pod {}", mode.getValue(), podId);
+  }
+
+  private void addDispatcher(String topicName, ExternalTaskHandler handler, int workerCount, int maxTasks,
+                             int maxInFlight, long lockDuration) {
+    if (workerCount <= 0) {
+      log.info("Worker for topic {} is disabled", topicName);
+      return;
+    }
+    Set<String> configuredTenants = new HashSet<>(config.tenantWeights().keySet());
+    configuredTenants.addAll(config.tenantMaxInFlight().keySet());
+    configuredTenants.remove(TenantFairQueue.DEFAULT_KEY);
+    var queue = new TenantFairQueue(config.tenantWeights(), config.tenantMaxInFlight(),
+      config.tenantFairnessByProduct(), WorkerMetrics.queueWaitRecorder(registry, topicName, configuredTenants));
+    dispatchers.add(new TopicDispatcher(topicName, handler, maxTasks, maxInFlight, lockDuration, lockHeartbeat,
+      queue));
+  }
+}
@@ -1,4 +1,3 @@
-
 /*
  * Copyright (c) 2024.
  * Gaian Solutions Pvt. Ltd.
@@ -8,16 +7,24 @@ package com.aidtaas.mobius.unit.config;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.inject.Default;
+import jakarta.enterprise.inject.Disposes;
+import jakarta.enterprise.inject.Produces;
 import jakarta.inject.Named;
-import jakarta.ws.rs.Produces;
+import jakarta.inject.Singleton;
 import java.util.concurrent.TimeUnit;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.hc.client5.http.config.RequestConfig;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
-import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.TimeValue;
 
+/**
+ * Produces the single pooled, non-blocking HTTP client used for every outbound call of the unit.
+ * Requests are multiplexed over one IO reactor, so callers wait on a completion stage instead of
+ * a socket read. The connection pool and its per-host limits are owned by {@link HttpConnectionPools}.
+ */
 @Slf4j
 @ApplicationScoped
 @RequiredArgsConstructor
@@ -25,15 +32,13 @@ public class HttpClientConfig {
 
   private final ConfigProperties config;
 
+  private final HttpConnectionPools connectionPools;
+
   @Produces
   @Default
+  @Singleton
   @Named("BobHttpClient")
-  public CloseableHttpClient httpclient() {
-
-
-    PoolingHttpClientConnectionManager cm = new PoolingHttpClientConnectionManager();
-    cm.setMaxTotal(config.restClientMaxPoolSize());
-    cm.setDefaultMaxPerRoute(config.restClientMaxPerRoute());
+  public CloseableHttpAsyncClient httpclient() {
 
     RequestConfig requestConfig = RequestConfig.custom()
       .setConnectionRequestTimeout(config.restClientConnectTimeout(), TimeUnit.SECONDS)
@@ -41,10 +46,19 @@ public class HttpClientConfig {
       .setRedirectsEnabled(true)
       .build();
 
-    return HttpClients.custom()
-      .setConnectionManager(cm)
+    CloseableHttpAsyncClient client = HttpAsyncClients.custom()
+      .setConnectionManager(connectionPools.getConnectionManager())
       .setDefaultRequestConfig(requestConfig)
+      .evictExpiredConnections()
+      .evictIdleConnections(TimeValue.ofMilliseconds(config.restClientIdleEviction()))
       .build();
+    client.start();
+    return client;
+  }
+
+  public void close(@Disposes @Named("BobHttpClient") CloseableHttpAsyncClient client) {
+    log.info("Closing the HTTP client");
+    client.close(CloseMode.GRACEFUL);
   }
 
 }
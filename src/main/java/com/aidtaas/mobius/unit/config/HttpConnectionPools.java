@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.net.URI;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.TlsConfig;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+
+/**
+ * Owns the connection pool of the shared HTTP client.
+ * Each route gets the per-host limit configured for its host, matched on the full host name or on
+ * its first label (the service name of an in-cluster host), so one slow product cannot take every
+ * connection of the pool. Limits and per-route gauges are applied the first time a route is used.
+ * Only routes to hosts with a configured limit get gauges of their own, so the number of series stays
+ * bounded by the configuration; the routes of every other host that the pool still holds are summed
+ * up under the route {@value #OTHER_ROUTES}.
+ * Hosts are resolved through the {@link CachingDnsResolver}.
+ */
+@Slf4j
+@ApplicationScoped
+@RequiredArgsConstructor
+public class HttpConnectionPools {
+
+  public static final String ROUTE_TAG = "route";
+
+  public static final String OTHER_ROUTES = "other";
+
+  private final ConfigProperties config;
+
+  private final MeterRegistry meterRegistry;
+
+  private final CachingDnsResolver dnsResolver;
+
+  private final Set<HttpRoute> knownRoutes = ConcurrentHashMap.newKeySet();
+
+  @Getter
+  private PoolingAsyncClientConnectionManager connectionManager;
+
+  @PostConstruct
+  public void init() {
+    connectionManager = PoolingAsyncClientConnectionManagerBuilder.create()
+      .setPoolConcurrencyPolicy(PoolConcurrencyPolicy.STRICT)
+      .setDnsResolver(dnsResolver)
+      .setMaxConnTotal(config.restClientMaxPoolSize())
+      .setMaxConnPerRoute(config.restClientMaxPerRoute())
+      .setDefaultConnectionConfig(ConnectionConfig.custom()
+        .setConnectTimeout(config.restClientConnectTimeout(), TimeUnit.SECONDS)
+        .setSocketTimeout(config.restClientReadTimeout(), TimeUnit.SECONDS)
+        .setTimeToLive(config.restClientConnectionTtl(), TimeUnit.MILLISECONDS)
+        .setValidateAfterInactivity(TimeValue.ofSeconds(1))
+        .build())
+      .setDefaultTlsConfig(TlsConfig.custom()
+        .setVersionPolicy(Boolean.TRUE.equals(config.restClientHttp2())
+          ? HttpVersionPolicy.NEGOTIATE : HttpVersionPolicy.FORCE_HTTP_1)
+        .build())
+      .build();
+
+    meterRegistry.gauge("bob.http.pool.leased", Tags.empty(), connectionManager,
+      cm -> cm.getTotalStats().getLeased());
+    meterRegistry.gauge("bob.http.pool.available", Tags.empty(), connectionManager,
+      cm -> cm.getTotalStats().getAvailable());
+    meterRegistry.gauge("bob.http.pool.pending", Tags.empty(), connectionManager,
+      cm -> cm.getTotalStats().getPending());
+    meterRegistry.gauge("bob.http.pool.max", Tags.empty(), connectionManager, cm -> cm.getTotalStats().getMax());
+
+    Tags other = Tags.of(ROUTE_TAG, OTHER_ROUTES);
+    meterRegistry.gauge("bob.http.pool.route.leased", other, this, pools -> pools.otherRoutes(PoolStats::getLeased));
+    meterRegistry.gauge("bob.http.pool.route.available", other, this,
+      pools -> pools.otherRoutes(PoolStats::getAvailable));
+    meterRegistry.gauge("bob.http.pool.route.pending", other, this, pools -> pools.otherRoutes(PoolStats::getPending));
+    meterRegistry.gauge("bob.http.pool.route.max", other, this, pools -> pools.otherRoutes(PoolStats::getMax));
+  }
+
+  /**
+   * Applies the pool limit and registers the gauges of the route an endpoint is reached through, when
+   * its host has a configured limit. Routes of other hosts are not tracked here.
+   *
+   * @param uri the endpoint URI
+   */
+  public void prepareRoute(URI uri) {
+    HttpRoute route = routeOf(uri);
+    if (route == null || knownRoutes.contains(route)) {
+      return;
+    }
+    Integer limit = hostSetting(config.restClientHostMaxPerRoute(), uri.getHost());
+    if (limit == null || limit <= 0 || !knownRoutes.add(route)) {
+      return;
+    }
+
+    connectionManager.setMaxPerRoute(route, limit);
+    log.info("Pool limit of route {} set to {}", route, limit);
+
+    Tags tags = Tags.of(ROUTE_TAG, route.getTargetHost().toURI());
+    meterRegistry.gauge("bob.http.pool.route.leased", tags, route, r -> statsOf(r).getLeased());
+    meterRegistry.gauge("bob.http.pool.route.available", tags, route, r -> statsOf(r).getAvailable());
+    meterRegistry.gauge("bob.http.pool.route.pending", tags, route, r -> statsOf(r).getPending());
+    meterRegistry.gauge("bob.http.pool.route.max", tags, route, r -> statsOf(r).getMax());
+  }
+
+  private PoolStats statsOf(HttpRoute route) {
+    return connectionManager.getStats(route);
+  }
+
+  /**
+   * Sums a statistic over the routes the pool currently holds that have no gauges of their own. Routes
+   * whose connections the pool has closed are no longer part of it.
+   */
+  private int otherRoutes(ToIntFunction<PoolStats> stat) {
+    int sum = 0;
+    for (HttpRoute route : connectionManager.getRoutes()) {
+      if (!knownRoutes.contains(route)) {
+        sum += stat.applyAsInt(statsOf(route));
+      }
+    }
+    return sum;
+  }
+
+  /**
+   * Names the host of an endpoint in a metric tag. Hosts with a per-host setting keep their name, any
+   * other host is tagged {@value #OTHER_ROUTES}, so arbitrary endpoints do not each add a time series.
+   *
+   * @param host the host
+   * @return the tag value
+   */
+  public String hostTag(String host) {
+    return hostSetting(config.restClientHostMaxPerRoute(), host) != null
+      || hostSetting(config.restClientCompression(), host) != null ? host : OTHER_ROUTES;
+  }
+
+  /**
+   * Looks up a per-host setting by full host name, then by the first label of the host.
+   *
+   * @param settings the settings keyed by host
+   * @param host     the host
+   * @return the setting, or null when the host has none
+   */
+  public static <T> T hostSetting(Map<String, T> settings, String host) {
+    if (host == null) {
+      return null;
+    }
+    T setting = settings.get(host);
+    if (setting == null) {
+      setting = settings.get(host.split("\\.", 2)[0]);
+    }
+    return setting;
+  }
+
+  private static HttpRoute routeOf(URI uri) {
+    if (uri.getHost() == null || uri.getScheme() == null) {
+      return null;
+    }
+    boolean secure = URIScheme.HTTPS.same(uri.getScheme());
+    int port = uri.getPort() != -1 ? uri.getPort() : secure ? 443 : 80;
+    return new HttpRoute(new HttpHost(uri.getScheme(), uri.getHost(), port), null, secure);
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Caps the in-process retries of outbound calls to a share of the calls made.
+ * Every call deposits a fraction of a retry and every retry withdraws a whole one, on top of a small
+ * allowance per second so a quiet unit can still retry. When a dependency is down the budget runs
+ * dry quickly, so retries cannot multiply the load on it.
+ */
+@ApplicationScoped
+@RequiredArgsConstructor
+public class RetryBudget {
+
+  private static final long SECOND_MILLIS = 1000;
+
+  /**
+   * Number of calls whose deposits the balance can hold.
+   */
+  private static final int BALANCE_WINDOW = 1000;
+
+  private final ConfigProperties config;
+
+  private final MeterRegistry meterRegistry;
+
+  private double balance;
+
+  private long allowanceStart;
+
+  private int allowance;
+
+  @PostConstruct
+  public void init() {
+    meterRegistry.gauge("bob.http.client.retry.budget", Tags.empty(), this, RetryBudget::balance);
+  }
+
+  /**
+   * Records a call, adding its share of a retry to the budget.
+   */
+  public synchronized void deposit() {
+    balance = Math.min(balance + config.retryBudgetRatio(), config.retryBudgetRatio() * BALANCE_WINDOW);
+  }
+
+  /**
+   * Takes one retry from the budget.
+   *
+   * @return false if the budget is exhausted and the call must not be retried
+   */
+  public synchronized boolean tryWithdraw() {
+    long now = System.currentTimeMillis();
+    if (now - allowanceStart >= SECOND_MILLIS) {
+      allowanceStart = now;
+      allowance = config.retryBudgetMinPerSecond();
+    }
+    if (allowance > 0) {
+      allowance--;
+      return true;
+    }
+    if (balance >= 1) {
+      balance -= 1;
+      return true;
+    }
+    return false;
+  }
+
+  private synchronized double balance() {
+    return balance;
+  }
+}
@@ -0,0 +1,342 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.config;
+
+import com.aidtaas.mobius.unit.dto.ApiResponseBody;
+import com.aidtaas.mobius.unit.dto.ResponseContent;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.ws.rs.core.MultivaluedMap;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.LongConsumer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.nio.AsyncResponseConsumer;
+import org.apache.hc.core5.http.nio.CapacityChannel;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.jboss.resteasy.util.CaseInsensitiveMap;
+
+/**
+ * Receives a response body into memory up to a threshold and spills the rest of it to a temp file,
+ * so large downloads are neither decoded nor held on the heap while they arrive.
+ * The IO reactor only copies each chunk; the temp file is created and written on a virtual thread,
+ * one write after the other, and readers of the content wait until the last write has landed.
+ * The connection is only asked for as many bytes as the writer has room for: once
+ * {@value #WRITE_WINDOW} bytes are waiting to be written, reading pauses until the writer has
+ * drained half of them.
+ * A gzip, deflate or brotli coded body is stored as received and decoded while it is read; the
+ * bytes received and the bytes decoded are counted per content coding.
+ */
+@Slf4j
+public class SpillingResponseConsumer implements AsyncResponseConsumer<ApiResponseBody> {
+
+  static final int WRITE_WINDOW = 256 * 1024;
+
+  private static final ByteBuffer END_OF_STREAM = ByteBuffer.allocate(0);
+
+  private static final String SPILL_FILE_PREFIX = "bob-response-";
+
+  private static final String IDENTITY = "identity";
+
+  private static final Executor SPILL_WRITERS = Executors.newVirtualThreadPerTaskExecutor();
+
+  private static final FileAttribute<?> OWNER_ONLY =
+    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------"));
+
+  private static final Set<String> DECODED_ENCODINGS =
+    Set.of(ResponseContent.GZIP, ResponseContent.DEFLATE, ResponseContent.BROTLI);
+
+  private static final Set<String> ENCODED_ENTITY_HEADERS =
+    Set.of(HttpHeaders.CONTENT_ENCODING, HttpHeaders.CONTENT_LENGTH, HttpHeaders.CONTENT_MD5);
+
+  private final int threshold;
+
+  private final MeterRegistry meterRegistry;
+
+  // Guards the write window shared by the reactor and the writer
+  private final Object window = new Object();
+
+  private HttpResponse response;
+
+  private Charset charset;
+
+  private String encoding;
+
+  private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+  private Path file;
+
+  private FileChannel channel;
+
+  private CompletableFuture<Void> writes;
+
+  private long size;
+
+  private boolean built;
+
+  private FutureCallback<ApiResponseBody> resultCallback;
+
+  private CapacityChannel capacityChannel;
+
+  private long pendingWrites;
+
+  private boolean stalled;
+
+  public SpillingResponseConsumer(int threshold, MeterRegistry meterRegistry) {
+    this.threshold = threshold;
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  public void consumeResponse(HttpResponse response, EntityDetails entityDetails, HttpContext context,
+                              FutureCallback<ApiResponseBody> resultCallback) throws IOException {
+    this.resultCallback = resultCallback;
+    ContentType contentType = null;
+    if (entityDetails != null) {
+      try {
+        contentType = ContentType.parse(entityDetails.getContentType());
+      } catch (UnsupportedCharsetException e) {
+        throw new UnsupportedEncodingException(e.getMessage());
+      }
+    }
+    start(response, contentType);
+    if (entityDetails == null) {
+      resultCallback.completed(buildResult());
+    }
+  }
+
+  @Override
+  public void informationResponse(HttpResponse response, HttpContext context) {
+    // 1xx responses carry no body
+  }
+
+  private void start(HttpResponse response, ContentType contentType) {
+    this.response = response;
+    this.charset = contentType != null && contentType.getCharset() != null
+      ? contentType.getCharset() : StandardCharsets.UTF_8;
+
+    var contentEncoding = response.getFirstHeader(HttpHeaders.CONTENT_ENCODING);
+    if (contentEncoding != null) {
+      String value = contentEncoding.getValue().trim().toLowerCase(Locale.ROOT);
+      if (DECODED_ENCODINGS.contains(value)) {
+        encoding = value;
+      } else if (!IDENTITY.equals(value)) {
+        log.warn("Response with content encoding {} is passed on undecoded", value);
+      }
+    }
+  }
+
+  /**
+   * Called by the reactor once the bytes it was allowed to read have arrived. Grants the room left
+   * in the write window, or none while the writer is behind, in which case {@link #drained} grants
+   * it later.
+   */
+  @Override
+  public void updateCapacity(CapacityChannel capacityChannel) throws IOException {
+    int increment;
+    synchronized (window) {
+      this.capacityChannel = capacityChannel;
+      increment = freeWindow();
+      stalled = increment == 0;
+    }
+    if (increment > 0) {
+      capacityChannel.update(increment);
+    }
+  }
+
+  private int freeWindow() {
+    return (int) Math.max(0, WRITE_WINDOW - pendingWrites);
+  }
+
+  private void pending(int length) {
+    synchronized (window) {
+      pendingWrites += length;
+    }
+  }
+
+  /**
+   * Called after each write, also a failed one, so a stalled connection always resumes and a
+   * failure surfaces to the reader instead of a read timeout.
+   */
+  private void drained(int length) {
+    int increment;
+    CapacityChannel channel;
+    synchronized (window) {
+      pendingWrites -= length;
+      if (!stalled || pendingWrites > WRITE_WINDOW / 2) {
+        return;
+      }
+      stalled = false;
+      increment = freeWindow();
+      channel = capacityChannel;
+    }
+    try {
+      channel.update(increment);
+    } catch (IOException e) {
+      log.warn("Failed to resume reading the response body: {}", e.getMessage());
+    }
+  }
+
+  @Override
+  public void consume(ByteBuffer src) {
+    data(src, false);
+  }
+
+  @Override
+  public void streamEnd(List<? extends Header> trailers) {
+    data(END_OF_STREAM, true);
+    resultCallback.completed(buildResult());
+  }
+
+  @Override
+  public void failed(Exception cause) {
+    // The exchange reports the failure to its own callback, a partly spilled file is deleted on release
+  }
+
+  private void data(ByteBuffer src, boolean endOfStream) {
+    int length = src.remaining();
+    size += length;
+    if (file == null && buffer.size() + length > threshold) {
+      spill();
+    }
+    if (length > 0) {
+      // The reactor reuses the buffer, so the chunk is copied before it is handed to the writer
+      byte[] chunk = new byte[length];
+      src.get(chunk);
+      if (file != null) {
+        pending(length);
+        writes = writes.thenRunAsync(() -> write(chunk), SPILL_WRITERS)
+          .whenComplete((ignored, error) -> drained(length));
+      } else {
+        buffer.write(chunk, 0, length);
+      }
+    }
+    if (endOfStream && file != null) {
+      writes = writes.thenRunAsync(this::closeChannel, SPILL_WRITERS);
+    }
+  }
+
+  private void spill() {
+    file = Path.of(System.getProperty("java.io.tmpdir"), SPILL_FILE_PREFIX + UUID.randomUUID() + ".tmp");
+    byte[] buffered = buffer.toByteArray();
+    buffer = null;
+    pending(buffered.length);
+    writes = CompletableFuture.runAsync(() -> {
+      openChannel();
+      write(buffered);
+    }, SPILL_WRITERS).whenComplete((ignored, error) -> drained(buffered.length));
+    log.debug("Spilling response body above {} bytes to {}", threshold, file);
+  }
+
+  private void openChannel() {
+    try {
+      channel = FileSystems.getDefault().supportedFileAttributeViews().contains("posix")
+        ? FileChannel.open(file, Set.of(StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE), OWNER_ONLY)
+        : FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void write(byte[] chunk) {
+    try {
+      ByteBuffer src = ByteBuffer.wrap(chunk);
+      while (src.hasRemaining()) {
+        channel.write(src);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void closeChannel() {
+    try {
+      if (channel != null && channel.isOpen()) {
+        channel.close();
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private ApiResponseBody buildResult() {
+    // Header names are matched case-insensitively, HTTP/2 servers send them in lower case
+    MultivaluedMap<String, Object> responseHeaders = new CaseInsensitiveMap<>();
+    if (response != null) {
+      for (Header header : response.getHeaders()) {
+        // The body is exposed decoded, so the headers describing the coded entity no longer apply
+        if (encoding == null || ENCODED_ENTITY_HEADERS.stream().noneMatch(header.getName()::equalsIgnoreCase)) {
+          responseHeaders.add(header.getName(), header.getValue());
+        }
+      }
+    }
+
+    LongConsumer decodedListener = countBytes(encoding != null ? encoding : IDENTITY, "uncompressed");
+    if (encoding != null) {
+      countBytes(encoding, "compressed").accept(size);
+    } else {
+      decodedListener.accept(size);
+    }
+
+    var apiResponseBody = new ApiResponseBody();
+    apiResponseBody.setStatusCodeValue(response != null ? response.getCode() : 0);
+    apiResponseBody.setHeaders(responseHeaders);
+    apiResponseBody.setContent(file != null
+      ? ResponseContent.spilled(file, writes, size, charset, encoding, decodedListener)
+      : ResponseContent.inMemory(buffer.toByteArray(), charset, encoding, decodedListener));
+    built = true;
+    return apiResponseBody;
+  }
+
+  private LongConsumer countBytes(String contentEncoding, String form) {
+    var counter = meterRegistry.counter("bob.http.client.response.bytes", "encoding", contentEncoding, "form", form);
+    return counter::increment;
+  }
+
+  @Override
+  public void releaseResources() {
+    if (writes == null) {
+      return;
+    }
+    // Runs after the last write, also when a write failed and the rest of the chain was skipped
+    boolean keep = built;
+    writes.whenComplete((ignored, error) -> {
+      try {
+        closeChannel();
+        if (!keep) {
+          Files.deleteIfExists(file);
+        }
+      } catch (IOException | UncheckedIOException e) {
+        log.warn("Failed to release spilled response body {}: {}", file, e.getMessage());
+      }
+    });
+  }
+}
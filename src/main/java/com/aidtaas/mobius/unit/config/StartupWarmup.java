@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.config;
+
+import com.aidtaas.mobius.unit.dto.ApiResponseBody;
+import com.aidtaas.mobius.unit.grpc.MeteringServiceGrpc;
+import com.jayway.jsonpath.JsonPath;
+import io.grpc.ManagedChannel;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Named;
+import jakarta.interceptor.Interceptor;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.eclipse.microprofile.health.Readiness;
+
+/**
+ * Warms up the outbound paths of the unit before it takes any task.
+ * The hosts of the marketplace, Terraform ingestion and engine URLs are resolved into the DNS cache
+ * and connected to, so the TLS handshakes are done and the connections wait in the pool; the gRPC
+ * metering channel is asked to connect. When a replay URL is configured, a synthetic GET is then sent
+ * through the REST client and its response parsed a few times, to warm up the hot path of an API
+ * brick. The warm-up runs before the worker starts polling and is bounded by the warm-up timeout;
+ * readiness stays down until it has finished.
+ */
+@Slf4j
+@Readiness
+@ApplicationScoped
+public class StartupWarmup implements HealthCheck {
+
+  private final ConfigProperties config;
+
+  private final CachingDnsResolver dnsResolver;
+
+  private final HttpConnectionPools connectionPools;
+
+  private final CloseableHttpAsyncClient httpClient;
+
+  private final MeteringServiceGrpc.MeteringServiceBlockingStub meteringStub;
+
+  private final DynamicRestClient restClient;
+
+  private volatile boolean warmedUp;
+
+  public StartupWarmup(ConfigProperties config, CachingDnsResolver dnsResolver,
+                       HttpConnectionPools connectionPools,
+                       @Named("BobHttpClient") CloseableHttpAsyncClient httpClient,
+                       MeteringServiceGrpc.MeteringServiceBlockingStub meteringStub,
+                       DynamicRestClient restClient) {
+    this.config = config;
+    this.dnsResolver = dnsResolver;
+    this.connectionPools = connectionPools;
+    this.httpClient = httpClient;
+    this.meteringStub = meteringStub;
+    this.restClient = restClient;
+  }
+
+  void onStart(@Observes @Priority(Interceptor.Priority.PLATFORM_BEFORE) StartupEvent ev) {
+    if (!config.warmupEnabled()) {
+      warmedUp = true;
+      return;
+    }
+    long started = System.currentTimeMillis();
+    long deadline = started + config.warmupTimeout();
+    ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    try {
+      List<Future<?>> steps = new ArrayList<>();
+      originsToWarm().forEach(origin -> steps.add(executor.submit(() -> preconnect(origin, deadline))));
+      steps.add(executor.submit(this::connectMetering));
+      steps.forEach(step -> awaitStep(step, deadline));
+      replay(deadline);
+    } finally {
+      executor.shutdownNow();
+      warmedUp = true;
+      log.info("Warm-up finished in {} ms", System.currentTimeMillis() - started);
+    }
+  }
+
+  @Override
+  public HealthCheckResponse call() {
+    return HealthCheckResponse.named("warm-up").status(warmedUp).build();
+  }
+
+  private Set<URI> originsToWarm() {
+    Set<URI> origins = new LinkedHashSet<>();
+    Stream.of(config.marketplaceMasterConfigUrl(), config.marketplaceAllianceUrl(), config.tfEntityIngestionUrl(),
+        config.engineRestUrl())
+      .map(StartupWarmup::originOf)
+      .filter(Objects::nonNull)
+      .forEach(origins::add);
+    return origins;
+  }
+
+  private void preconnect(URI origin, long deadline) {
+    try {
+      dnsResolver.resolve(origin.getHost());
+      connectionPools.prepareRoute(origin);
+      // Any answer will do, the connection it was sent on stays in the pool
+      httpClient.execute(SimpleRequestBuilder.head(origin).build(), null)
+        .get(Math.max(1, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+      log.info("Pre-connected to {}", origin);
+    } catch (UnknownHostException e) {
+      log.warn("Host of {} could not be resolved during warm-up", origin);
+    } catch (ExecutionException | TimeoutException e) {
+      log.warn("Pre-connecting to {} failed: {}", origin, e.getMessage());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void connectMetering() {
+    if (meteringStub.getChannel() instanceof ManagedChannel channel) {
+      log.info("Metering channel is {}, connecting", channel.getState(true));
+    }
+  }
+
+  private void replay(long deadline) {
+    if (config.warmupReplayUrl().isEmpty()) {
+      return;
+    }
+    String url = config.warmupReplayUrl().get();
+    for (int i = 0; i < config.warmupReplayCount() && System.currentTimeMillis() < deadline; i++) {
+      ApiResponseBody response = null;
+      try {
+        response = restClient.makeApiCall(url, null, "GET", new HashMap<>());
+        JsonPath.parse(response.getBody()).read("$");
+      } catch (RuntimeException e) {
+        log.warn("Warm-up replay against {} failed, stopping: {}", url, e.getMessage());
+        return;
+      } finally {
+        if (response != null) {
+          response.release();
+        }
+      }
+    }
+  }
+
+  private static void awaitStep(Future<?> step, long deadline) {
+    try {
+      step.get(Math.max(1, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+    } catch (ExecutionException | TimeoutException e) {
+      log.warn("Warm-up step did not complete: {}", e.getMessage());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static URI originOf(String url) {
+    if (url == null) {
+      return null;
+    }
+    try {
+      // Path and query templates are not valid URI syntax, only the origin is needed anyway
+      URI uri = URI.create(url.split("[?{]", 2)[0]);
+      if (uri.getHost() == null) {
+        return null;
+      }
+      return new URI(uri.getScheme(), null, uri.getHost(), uri.getPort(), "/", null, null);
+    } catch (IllegalArgumentException | URISyntaxException e) {
+      log.warn("Skipping warm-up of {}: {}", url, e.getMessage());
+      return null;
+    }
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.config;
+
+import com.aidtaas.mobius.unit.worker.TaskDeadline;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.quarkus.vault.VaultKVSecretEngine;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reads secrets from the Vault KV engine through a cache keyed by path.
+ * Secrets are kept for the TTL and refreshed in the background once they are older than the refresh
+ * interval, so tasks keep reading the cached secrets while Vault is asked again; a failed refresh keeps
+ * them. A path that is missing or cannot be read is remembered as empty for the shorter negative TTL,
+ * so tasks do not ask Vault for it one after the other.
+ */
+@Slf4j
+@ApplicationScoped
+@RequiredArgsConstructor
+public class VaultSecrets {
+
+  private static final Secrets MISSING = new Secrets(Collections.emptyMap(), true);
+
+  private final ConfigProperties config;
+
+  private final MeterRegistry meterRegistry;
+
+  private final VaultKVSecretEngine vaultKVSecretEngine;
+
+  private LoadingCache<String, Secrets> secrets;
+
+  @PostConstruct
+  public void init() {
+    long ttl = Duration.ofMillis(config.vaultSecretsTtl()).toNanos();
+    long negativeTtl = Duration.ofMillis(config.vaultSecretsNegativeTtl()).toNanos();
+    secrets = Caffeine.newBuilder()
+      .maximumSize(config.vaultSecretsMaxSize())
+      .expireAfter(new Expiry<String, Secrets>() {
+        @Override
+        public long expireAfterCreate(String path, Secrets value, long currentTime) {
+          return value.missing() ? negativeTtl : ttl;
+        }
+
+        @Override
+        public long expireAfterUpdate(String path, Secrets value, long currentTime, long currentDuration) {
+          return expireAfterCreate(path, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String path, Secrets value, long currentTime, long currentDuration) {
+          return currentDuration;
+        }
+      })
+      .refreshAfterWrite(Duration.ofMillis(config.vaultSecretsRefresh()))
+      .recordStats()
+      .build(new SecretsLoader());
+    CaffeineCacheMetrics.monitor(meterRegistry, secrets, "bob.vault.secrets");
+  }
+
+  /**
+   * Returns the secrets stored at a path, reading Vault only when they are not cached.
+   *
+   * @param path the Vault path
+   * @return the secrets, empty if the path is missing or Vault cannot be read
+   */
+  public Map<String, String> read(String path) {
+    Secrets cached = secrets.getIfPresent(path);
+    if (cached == null) {
+      TaskDeadline.current().checkBudget("Vault read");
+      cached = secrets.get(path);
+    }
+    return cached.values();
+  }
+
+  /**
+   * Drops the cached secrets of a path, so the next read goes to Vault.
+   *
+   * @param path the Vault path
+   */
+  public void invalidate(String path) {
+    secrets.invalidate(path);
+    log.info("Invalidated the cached secrets of {}", path);
+  }
+
+  /**
+   * Drops all cached secrets.
+   */
+  public void invalidateAll() {
+    secrets.invalidateAll();
+    log.info("Invalidated all cached secrets");
+  }
+
+  private record Secrets(Map<String, String> values, boolean missing) {
+  }
+
+  private final class SecretsLoader implements CacheLoader<String, Secrets> {
+
+    @Override
+    public Secrets load(String path) {
+      try {
+        return readVault(path);
+      } catch (RuntimeException e) {
+        log.error("Error reading secrets of {} from vault", path, e);
+        return MISSING;
+      }
+    }
+
+    @Override
+    public Secrets reload(String path, Secrets oldValue) {
+      // Thrown errors keep the secrets already cached
+      return readVault(path);
+    }
+
+    private Secrets readVault(String path) {
+      Map<String, String> values = vaultKVSecretEngine.readSecret(path);
+      if (values == null || values.isEmpty()) {
+        log.warn("No secrets found in vault at {}", path);
+        return MISSING;
+      }
+      return new Secrets(Collections.unmodifiableMap(new HashMap<>(values)), false);
+    }
+  }
+}
@@ -36,8 +36,12 @@ public final class BobConstants {
 
   public static final Integer HTTP_STATUS_CODE_200 = 200;
   public static final Integer HTTP_STATUS_CODE_300 = 300;
+  public static final Integer HTTP_STATUS_CODE_304 = 304;
+  public static final Integer HTTP_STATUS_CODE_400 = 400;
   public static final Integer HTTP_STATUS_CODE_404 = 404;
+  public static final Integer HTTP_STATUS_CODE_429 = 429;
   public static final Integer HTTP_STATUS_CODE_500 = 500;
+  public static final Integer HTTP_STATUS_CODE_503 = 503;
 
   public static final String HTTP_METHOD = "HTTP_METHOD";
   public static final String HTTP_PAYLOAD = "HTTP_PAYLOAD";
@@ -59,6 +63,7 @@ public final class BobConstants {
   public static final Pattern PIP_INSTALL_PATTERN = Pattern.compile("(?m)^.*pip install.*(?:\r?\n)?");
   public static final DocumentContext EMPTY_JSON_CONTEXT = parse("{}");
   public static final Pattern ROOT_PATTERN = Pattern.compile("ROOT.");
+  public static final Pattern FILENAME_PATTERN = Pattern.compile("filename=\"?([^\";]+)\"?");
   public static final String CURRENT_RESPONSE_CODE = "$_RESPONSE_CODE[%s]";
   public static final String API_RESPONSE = "$_API_RESPONSE[%s]";
   public static final String GLOBAL_ERROR_VARIABLE = "$_ERROR_[%s][%s]";
@@ -66,10 +71,15 @@ public final class BobConstants {
   public static final String PRODUCT_ID = "productId";
   public static final String COMPONENT_ID = "componentId";
   public static final String PRODUCT_MASTER_CONFIG_ID = "productMasterConfigId";
+  public static final String HEDGE_REQUESTS = "hedgeRequests";
+  public static final String SENSITIVE_DATA = "secret::sensitive_data";
   public static final String INTERFACE_TYPE = "interfaceType";
   public static final String INTERFACE_PATH = "interfacePath";
   public static final String API_OPERATION_HANDLER = "ApiOperationHandler";
   public static final String TERRAFORM_HANDLER = "TerraformHandler";
+  public static final String SHELL_SCRIPT_HANDLER = "ShellScriptHandler";
+  public static final String ANSIBLE_HANDLER = "AnsibleHandler";
+  public static final String PYTHON_HANDLER = "PythonHandler";
   public static final String COMPONENT_NAME = "componentName";
   public static final String ITEMS = "items";
   public static final String TP_TENANT = "TP";
@@ -86,6 +96,7 @@ public final class BobConstants {
   public static final Set<String> VARIABLE_KEYS = Set.of("THREADS", "TABLE_SIZE", "TABLES", "TIME", "REPORT_INTERVAL");
   public static final String OUTPUTS = "outputs";
   public static final String CONTENT_TYPE = "Content-Type";
+  public static final String CONTENT_DISPOSITION = "Content-Disposition";
   public static final String APPLICATION_JSON = "application/json";
   public static final String MULTIPART_FORM_DATA = "multipart/form-data";
   public static final String APPLICATION_X_WWW_FORM_URLENCODED = "application/x-www-form-urlencoded";
@@ -125,8 +136,11 @@ public final class BobConstants {
   public static final String ERROR_FAILED_TO_CALL_REST_API = "Failed to call rest api";
   public static final String NO_CONTENT_FROM_THE_RESPONSE = "No content from the response";
   public static final int SEC_TO_MS_MULTIPLIER = 1000;
+  public static final long DEFAULT_SCRIPT_TIMEOUT = 600000L;
+  public static final long DEADLINE_RESERVE_MS = 2000L;
 
   public static final String BEARER = "Bearer ";
+  public static final String ADMIN_API_KEY_HEADER = "X-Admin-Key";
 
   public static final String WORKFLOW_ID_GLOBAL = "$_WORKFLOW_ID";
   public static final String TENANT_ID = "tenantId";
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.controller;
+
+import com.aidtaas.mobius.unit.dto.TopicSettingsDto;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.PUT;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.media.Content;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
+
+import static jakarta.ws.rs.core.MediaType.APPLICATION_JSON;
+
+@Path("/v1.0/admin/worker")
+@Produces(APPLICATION_JSON)
+@Consumes(APPLICATION_JSON)
+public interface WorkerAdminController {
+
+  @Operation(summary = "Get the runtime settings of all worker topics", hidden = true)
+  @APIResponses(
+    value = {
+      @APIResponse(responseCode = "200", description = "Success",
+        content = {@Content(schema = @Schema(implementation = TopicSettingsDto.class))}),
+      @APIResponse(responseCode = "401", description = "Unauthorized",
+        content = {@Content(schema = @Schema())})
+    }
+  )
+  @GET
+  @Path("/topics")
+  Response getTopics(@Context HttpHeaders httpHeaders);
+
+
+  @Operation(summary = "Get the runtime settings of a worker topic", hidden = true)
+  @APIResponses(
+    value = {
+      @APIResponse(responseCode = "200", description = "Success",
+        content = {@Content(schema = @Schema(implementation = TopicSettingsDto.class))}),
+      @APIResponse(responseCode = "401", description = "Unauthorized",
+        content = {@Content(schema = @Schema())}),
+      @APIResponse(responseCode = "404", description = "Not Found",
+        content = {@Content(schema = @Schema())})
+    }
+  )
+  @GET
+  @Path("/topics/{topicName}")
+  Response getTopic(@PathParam("topicName") String topicName, @Context HttpHeaders httpHeaders);
+
+
+  @Operation(summary = "Change the runtime settings of a worker topic", hidden = true)
+  @APIResponses(
+    value = {
+      @APIResponse(responseCode = "200", description = "Success",
+        content = {@Content(schema = @Schema(implementation = TopicSettingsDto.class))}),
+      @APIResponse(responseCode = "400", description = "Bad Request",
+        content = {@Content(schema = @Schema())}),
+      @APIResponse(responseCode = "401", description = "Unauthorized",
+        content = {@Content(schema = @Schema())}),
+      @APIResponse(responseCode = "404", description = "Not Found",
+        content = {@Content(schema = @Schema())})
+    }
+  )
+  @PUT
+  @Path("/topics/{topicName}")
+  Response updateTopic(@PathParam("topicName") String topicName, TopicSettingsDto settings,
+                       @Context HttpHeaders httpHeaders);
+
+
+  @Operation(summary = "Pause fetching of a worker topic", hidden = true)
+  @APIResponses(
+    value = {
+      @APIResponse(responseCode = "200", description = "Success",
+        content = {@Content(schema = @Schema(implementation = TopicSettingsDto.class))}),
+      @APIResponse(responseCode = "401", description = "Unauthorized",
+        content = {@Content(schema = @Schema())}),
+      @APIResponse(responseCode = "404", description = "Not Found",
+        content = {@Content(schema = @Schema())})
+    }
+  )
+  @PUT
+  @Path("/topics/{topicName}/pause")
+  Response pauseTopic(@PathParam("topicName") String topicName, @Context HttpHeaders httpHeaders);
+
+
+  @Operation(summary = "Resume fetching of a worker topic", hidden = true)
+  @APIResponses(
+    value = {
+      @APIResponse(responseCode = "200", description = "Success",
+        content = {@Content(schema = @Schema(implementation = TopicSettingsDto.class))}),
+      @APIResponse(responseCode = "401", description = "Unauthorized",
+        content = {@Content(schema = @Schema())}),
+      @APIResponse(responseCode = "404", description = "Not Found",
+        content = {@Content(schema = @Schema())})
+    }
+  )
+  @PUT
+  @Path("/topics/{topicName}/resume")
+  Response resumeTopic(@PathParam("topicName") String topicName, @Context HttpHeaders httpHeaders);
+
+
+  @Operation(summary = "Drop the cached Vault secrets of a path, or all of them", hidden = true)
+  @APIResponses(
+    value = {
+      @APIResponse(responseCode = "204", description = "No Content",
+        content = {@Content(schema = @Schema())}),
+      @APIResponse(responseCode = "401", description = "Unauthorized",
+        content = {@Content(schema = @Schema())})
+    }
+  )
+  @DELETE
+  @Path("/secrets")
+  Response invalidateSecrets(@QueryParam("path") String path, @Context HttpHeaders httpHeaders);
+}
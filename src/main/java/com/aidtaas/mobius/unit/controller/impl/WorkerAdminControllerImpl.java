@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.controller.impl;
+
+import com.aidtaas.mobius.unit.controller.WorkerAdminController;
+import com.aidtaas.mobius.unit.dto.TopicSettingsDto;
+import com.aidtaas.mobius.unit.service.WorkerAdminService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@ApplicationScoped
+@RequiredArgsConstructor
+public class WorkerAdminControllerImpl implements WorkerAdminController {
+
+  private final WorkerAdminService workerAdminService;
+
+  /**
+   * Get the runtime settings of all worker topics.
+   *
+   * @param httpHeaders The http headers.
+   * @return The response.
+   */
+  @Override
+  public Response getTopics(@Context HttpHeaders httpHeaders) {
+    log.info("GET:/v1.0/admin/worker/topics");
+    return workerAdminService.getTopics(httpHeaders);
+  }
+
+  /**
+   * Get the runtime settings of a worker topic.
+   *
+   * @param topicName   The topic name.
+   * @param httpHeaders The http headers.
+   * @return The response.
+   */
+  @Override
+  public Response getTopic(String topicName, @Context HttpHeaders httpHeaders) {
+    log.info("GET:/v1.0/admin/worker/topics/{}", topicName);
+    return workerAdminService.getTopic(topicName, httpHeaders);
+  }
+
+  /**
+   * Change the runtime settings of a worker topic.
+   *
+   * @param topicName   The topic name.
+   * @param settings    The settings to change.
+   * @param httpHeaders The http headers.
+   * @return The response.
+   */
+  @Override
+  public Response updateTopic(String topicName, TopicSettingsDto settings, @Context HttpHeaders httpHeaders) {
+    log.info("PUT:/v1.0/admin/worker/topics/{}", topicName);
+    return workerAdminService.updateTopic(topicName, settings, httpHeaders);
+  }
+
+  /**
+   * Pause fetching of a worker topic.
+   *
+   * @param topicName   The topic name.
+   * @param httpHeaders The http headers.
+   * @return The response.
+   */
+  @Override
+  public Response pauseTopic(String topicName, @Context HttpHeaders httpHeaders) {
+    log.info("PUT:/v1.0/admin/worker/topics/{}/pause", topicName);
+    return workerAdminService.setPaused(topicName, true, httpHeaders);
+  }
+
+  /**
+   * Resume fetching of a worker topic.
+   *
+   * @param topicName   The topic name.
+   * @param httpHeaders The http headers.
+   * @return The response.
+   */
+  @Override
+  public Response resumeTopic(String topicName, @Context HttpHeaders httpHeaders) {
+    log.info("PUT:/v1.0/admin/worker/topics/{}/resume", topicName);
+    return workerAdminService.setPaused(topicName, false, httpHeaders);
+  }
+
+  /**
+   * Drop the cached Vault secrets of a path, or all of them when no path is given.
+   *
+   * @param path        The Vault path.
+   * @param httpHeaders The http headers.
+   * @return The response.
+   */
+  @Override
+  public Response invalidateSecrets(String path, @Context HttpHeaders httpHeaders) {
+    log.info("DELETE:/v1.0/admin/worker/secrets");
+    return workerAdminService.invalidateSecrets(path, httpHeaders);
+  }
+}
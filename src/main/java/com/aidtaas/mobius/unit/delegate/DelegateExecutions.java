@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.delegate;
+
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.client.task.ExternalTaskHandler;
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+
+/**
+ * This class runs external task handlers in-process as JavaDelegates.
+ * Service tasks of co-located deployments execute the handler logic inside the engine command,
+ * without a fetch, complete or variable round trip to the engine REST API.
+ */
+@Slf4j
+public final class DelegateExecutions {
+
+  private DelegateExecutions() {
+  }
+
+  /**
+   * Executes the handler for the given execution and applies its outcome to the execution.
+   *
+   * @param handler   the external task handler
+   * @param execution the delegate execution
+   * @param topicName the topic the handler serves on the external-task path
+   */
+  public static void execute(ExternalTaskHandler handler, DelegateExecution execution, String topicName) {
+    long start = System.currentTimeMillis();
+    var externalTask = new DelegateExternalTask(execution, topicName);
+    var taskService = new DelegateTaskService(execution);
+
+    handler.execute(externalTask, taskService);
+
+    log.debug("In-process {} for execution {} took {} ms", topicName, execution.getId(),
+      System.currentTimeMillis() - start);
+    taskService.raiseOutcome();
+  }
+}
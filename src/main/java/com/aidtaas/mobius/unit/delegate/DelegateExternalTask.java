@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.delegate;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import lombok.Getter;
+import org.camunda.bpm.client.task.ExternalTask;
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.jobexecutor.JobExecutorContext;
+import org.camunda.bpm.engine.impl.persistence.entity.JobEntity;
+import org.camunda.bpm.engine.repository.ProcessDefinition;
+import org.camunda.bpm.engine.variable.VariableMap;
+import org.camunda.bpm.engine.variable.value.TypedValue;
+
+/**
+ * Presents a {@link DelegateExecution} of the embedded engine as an {@link ExternalTask}, so that
+ * the handlers run the same code for service tasks as for fetched external tasks.
+ * Everything is read eagerly when the task is created, because handlers may still use the task
+ * from asynchronous callbacks after the engine command has finished.
+ */
+@Getter
+public class DelegateExternalTask implements ExternalTask {
+
+  private final String id;
+  private final String executionId;
+  private final String activityId;
+  private final String activityInstanceId;
+  private final String processInstanceId;
+  private final String processDefinitionId;
+  private final String processDefinitionKey;
+  private final String processDefinitionVersionTag;
+  private final String tenantId;
+  private final String businessKey;
+  private final String topicName;
+  private final Integer retries;
+  private final Date createTime = new Date();
+  private final VariableMap variables;
+
+  public DelegateExternalTask(DelegateExecution execution, String topicName) {
+    ProcessDefinition processDefinition = execution.getProcessEngineServices().getRepositoryService()
+      .getProcessDefinition(execution.getProcessDefinitionId());
+
+    this.id = execution.getId();
+    this.executionId = execution.getId();
+    this.activityId = execution.getCurrentActivityId();
+    this.activityInstanceId = execution.getActivityInstanceId();
+    this.processInstanceId = execution.getProcessInstanceId();
+    this.processDefinitionId = execution.getProcessDefinitionId();
+    this.processDefinitionKey = processDefinition.getKey();
+    this.processDefinitionVersionTag = processDefinition.getVersionTag();
+    this.tenantId = execution.getTenantId();
+    this.businessKey = execution.getProcessBusinessKey();
+    this.topicName = topicName;
+    this.retries = currentJobRetries();
+    this.variables = execution.getVariablesTyped(true);
+  }
+
+  @Override
+  public String getErrorMessage() {
+    return null;
+  }
+
+  @Override
+  public String getErrorDetails() {
+    return null;
+  }
+
+  @Override
+  public Date getLockExpirationTime() {
+    return null;
+  }
+
+  @Override
+  public String getWorkerId() {
+    return null;
+  }
+
+  @Override
+  public long getPriority() {
+    return 0;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T getVariable(String variableName) {
+    return (T) variables.get(variableName);
+  }
+
+  @Override
+  public <T extends TypedValue> T getVariableTyped(String variableName) {
+    return variables.getValueTyped(variableName);
+  }
+
+  @Override
+  public <T extends TypedValue> T getVariableTyped(String variableName, boolean deserializeObjectValue) {
+    return variables.getValueTyped(variableName);
+  }
+
+  @Override
+  public Map<String, Object> getAllVariables() {
+    return variables;
+  }
+
+  @Override
+  public VariableMap getAllVariablesTyped() {
+    return variables;
+  }
+
+  @Override
+  public VariableMap getAllVariablesTyped(boolean deserializeObjectValues) {
+    return variables;
+  }
+
+  @Override
+  public String getExtensionProperty(String propertyKey) {
+    return null;
+  }
+
+  @Override
+  public Map<String, String> getExtensionProperties() {
+    return Collections.emptyMap();
+  }
+
+  /**
+   * Returns the retries left on the job running this execution, so that retry handling matches
+   * the external-task path. Synchronous executions have no job and report no retries.
+   */
+  private static Integer currentJobRetries() {
+    return Optional.ofNullable(Context.getJobExecutorContext())
+      .map(JobExecutorContext::getCurrentJob)
+      .map(JobEntity::getRetries)
+      .orElse(null);
+  }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.delegate;
+
+import java.util.Date;
+import java.util.Map;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.client.task.ExternalTask;
+import org.camunda.bpm.client.task.ExternalTaskService;
+import org.camunda.bpm.engine.ProcessEngineException;
+import org.camunda.bpm.engine.delegate.BpmnError;
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.jobexecutor.JobExecutorContext;
+import org.camunda.bpm.engine.impl.persistence.entity.JobEntity;
+
+/**
+ * {@link ExternalTaskService} that applies the handler's outcome directly to a
+ * {@link DelegateExecution} instead of calling the engine REST API.
+ * Variables are written to the execution right away. Failures and BPMN errors are recorded and
+ * only raised by {@link #raiseOutcome()} once the handler has returned, so that a handler's own
+ * exception handling cannot swallow them.
+ * When the execution runs in a job, i.e. its service task is async-before, the retries and retry
+ * delay the handler reported are given to the job, so a final failure raises an incident instead of
+ * being retried. These take precedence unless the activity configures a failed-job retry time cycle.
+ * Without a job there is nothing to retry: the failure is thrown to the caller of the engine, whose
+ * transaction is rolled back, as for any failing delegate.
+ */
+@Slf4j
+public class DelegateTaskService implements ExternalTaskService {
+
+  private final DelegateExecution execution;
+
+  @Getter
+  private boolean completed;
+
+  private String failureMessage;
+
+  private Integer failureRetries;
+
+  private long failureRetryTimeout;
+
+  private String errorCode;
+
+  private String errorMessage;
+
+  public DelegateTaskService(DelegateExecution execution) {
+    this.execution = execution;
+  }
+
+  @Override
+  public void lock(String externalTaskId, long lockDuration) {
+    // service tasks run inside the engine command and hold no lock
+  }
+
+  @Override
+  public void lock(ExternalTask externalTask, long lockDuration) {
+    // service tasks run inside the engine command and hold no lock
+  }
+
+  @Override
+  public void unlock(ExternalTask externalTask) {
+    failureMessage = "Task was handed back by the handler";
+  }
+
+  @Override
+  public void complete(ExternalTask externalTask) {
+    completed = true;
+  }
+
+  @Override
+  public void setVariables(String processInstanceId, Map<String, Object> variables) {
+    setVariables(variables, null);
+  }
+
+  @Override
+  public void setVariables(ExternalTask externalTask, Map<String, Object> variables) {
+    setVariables(variables, null);
+  }
+
+  @Override
+  public void complete(ExternalTask externalTask, Map<String, Object> variables) {
+    complete(externalTask.getId(), variables, null);
+  }
+
+  @Override
+  public void complete(ExternalTask externalTask, Map<String, Object> variables,
+                       Map<String, Object> localVariables) {
+    complete(externalTask.getId(), variables, localVariables);
+  }
+
+  @Override
+  public void complete(String externalTaskId, Map<String, Object> variables, Map<String, Object> localVariables) {
+    setVariables(variables, localVariables);
+    completed = true;
+  }
+
+  @Override
+  public void handleFailure(ExternalTask externalTask, String errorMessage, String errorDetails, int retries,
+                            long retryTimeout) {
+    handleFailure(externalTask.getId(), errorMessage, errorDetails, retries, retryTimeout, null, null);
+  }
+
+  @Override
+  public void handleFailure(String externalTaskId, String errorMessage, String errorDetails, int retries,
+                            long retryTimeout) {
+    handleFailure(externalTaskId, errorMessage, errorDetails, retries, retryTimeout, null, null);
+  }
+
+  @Override
+  public void handleFailure(String externalTaskId, String errorMessage, String errorDetails, int retries,
+                            long retryTimeout, Map<String, Object> variables, Map<String, Object> localVariables) {
+    setVariables(variables, localVariables);
+    failureMessage = errorDetails != null ? errorMessage + ": " + errorDetails : errorMessage;
+    failureRetries = retries;
+    failureRetryTimeout = retryTimeout;
+  }
+
+  @Override
+  public void handleBpmnError(ExternalTask externalTask, String errorCode) {
+    handleBpmnError(externalTask.getId(), errorCode, null, null);
+  }
+
+  @Override
+  public void handleBpmnError(ExternalTask externalTask, String errorCode, String errorMessage) {
+    handleBpmnError(externalTask.getId(), errorCode, errorMessage, null);
+  }
+
+  @Override
+  public void handleBpmnError(ExternalTask externalTask, String errorCode, String errorMessage,
+                              Map<String, Object> variables) {
+    handleBpmnError(externalTask.getId(), errorCode, errorMessage, variables);
+  }
+
+  @Override
+  public void handleBpmnError(String externalTaskId, String errorCode, String errorMessage,
+                              Map<String, Object> variables) {
+    setVariables(variables, null);
+    this.errorCode = errorCode;
+    this.errorMessage = errorMessage;
+  }
+
+  @Override
+  public void extendLock(ExternalTask externalTask, long newDuration) {
+    // service tasks run inside the engine command and hold no lock
+  }
+
+  @Override
+  public void extendLock(String externalTaskId, long newDuration) {
+    // service tasks run inside the engine command and hold no lock
+  }
+
+  /**
+   * Raises what the handler reported: a BPMN error is thrown as {@link BpmnError} so that boundary
+   * events catch it, a failure is thrown as {@link ProcessEngineException} once the job has been given
+   * the reported retries, so that the engine retries it after the retry delay or creates an incident.
+   */
+  public void raiseOutcome() {
+    if (errorCode != null) {
+      throw new BpmnError(errorCode, errorMessage);
+    }
+    if (failureMessage != null) {
+      if (failureRetries != null) {
+        applyRetries(failureRetries, failureRetryTimeout);
+      }
+      throw new ProcessEngineException(failureMessage);
+    }
+    if (!completed) {
+      log.warn("Handler returned without completing execution {}", execution.getId());
+    }
+  }
+
+  /**
+   * Gives the job running the execution the reported retries and retry delay. The failure rolls back
+   * the transaction of the job, so they are written in a transaction of their own; the engine then
+   * takes one retry off for the failure and creates an incident once none are left.
+   */
+  private void applyRetries(int retries, long retryTimeout) {
+    JobExecutorContext jobContext = Context.getJobExecutorContext();
+    if (jobContext == null || jobContext.getCurrentJob() == null) {
+      log.warn("Execution {} failed outside of a job, the failure is raised to the caller of the engine",
+        execution.getId());
+      return;
+    }
+    String jobId = jobContext.getCurrentJob().getId();
+    Date dueDate = new Date(System.currentTimeMillis() + Math.max(0, retryTimeout));
+    Context.getProcessEngineConfiguration().getCommandExecutorTxRequiresNew().execute(commandContext -> {
+      JobEntity job = commandContext.getJobManager().findJobById(jobId);
+      if (job != null) {
+        job.setRetries(Math.max(0, retries) + 1);
+        job.setDuedate(dueDate);
+      }
+      return null;
+    });
+  }
+
+  private void setVariables(Map<String, Object> variables, Map<String, Object> localVariables) {
+    if (variables != null) {
+      execution.setVariables(variables);
+    }
+    if (localVariables != null) {
+      execution.setVariablesLocal(localVariables);
+    }
+  }
+}
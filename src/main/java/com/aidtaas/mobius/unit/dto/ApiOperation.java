@@ -13,10 +13,10 @@ import com.jayway.jsonpath.DocumentContext;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Map;
+import java.util.function.Supplier;
 import lombok.AllArgsConstructor;
-import lombok.Builder;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
@@ -58,8 +58,12 @@ public class ApiOperation extends Operation {
   @JsonIgnore
   protected DocumentContext productJson;
 
-  @Builder.Default
-  private Map<String, String> secrets = new HashMap<>();
+  /**
+   * Reads the Vault secrets of the product; only called once a field turns out to be sensitive.
+   */
+  @JsonIgnore
+  @EqualsAndHashCode.Exclude
+  private transient Supplier<Map<String, String>> secretsLoader;
 
   public ApiOperation(ExternalTask externalTask, ExternalTaskService externalTaskService) {
 
@@ -69,6 +73,15 @@ public class ApiOperation extends Operation {
 
   }
 
+  /**
+   * Returns the Vault secrets of the product, reading them on first use.
+   *
+   * @return the secrets, empty if none can be read
+   */
+  public Map<String, String> readSecrets() {
+    return secretsLoader != null ? secretsLoader.get() : Collections.emptyMap();
+  }
+
   private void writeObject(ObjectOutputStream stream) throws IOException {
     stream.defaultWriteObject();
   }
@@ -1,4 +1,3 @@
-
 /*
  * Copyright (c) 2024.
  * Gaian Solutions Pvt. Ltd.
@@ -6,14 +5,20 @@
  */
 package com.aidtaas.mobius.unit.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.ws.rs.core.MultivaluedHashMap;
 import jakarta.ws.rs.core.MultivaluedMap;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -30,24 +35,136 @@ import org.apache.commons.lang3.builder.ToStringStyle;
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class ApiResponseBody implements Serializable {
 
-  private static final long serialVersionUID = 1L;
+  private static final long serialVersionUID = 2L;
+
+  private static final int SERIALIZED_CHUNK_SIZE = 8192;
 
   @Builder.Default
   private MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
   private String body;
   private int statusCodeValue;
 
+  /**
+   * The raw body as received, decoded into {@link #body} only when it is asked for.
+   */
+  @JsonIgnore
+  private transient ResponseContent content;
+
+  /**
+   * Returns the body as a string, decoding the received content on first access.
+   *
+   * @return the body
+   */
+  public String getBody() {
+    if (body == null && content != null) {
+      body = content.asString();
+    }
+    return body;
+  }
+
+  /**
+   * Returns the size of the body in bytes without decoding it into a string.
+   *
+   * @return the body size
+   */
+  @JsonIgnore
+  public long getBodySize() {
+    if (content != null) {
+      return content.size();
+    }
+    return body != null ? body.getBytes(StandardCharsets.UTF_8).length : 0;
+  }
+
+  public boolean hasBody() {
+    if (content != null) {
+      return content.encodedSize() > 0;
+    }
+    return body != null && !body.isEmpty();
+  }
+
+  /**
+   * Returns the raw bytes of the body, without decoding binary content as text.
+   *
+   * @return the body bytes
+   */
+  @JsonIgnore
+  public byte[] getBodyBytes() {
+    if (content != null) {
+      return content.asBytes();
+    }
+    return body != null ? body.getBytes(StandardCharsets.UTF_8) : new byte[0];
+  }
+
+  /**
+   * Opens a stream over the body without decoding it.
+   *
+   * @return the stream
+   * @throws IOException if the spilled body cannot be read
+   */
+  public InputStream openBodyStream() throws IOException {
+    if (content != null) {
+      return content.openStream();
+    }
+    return new ByteArrayInputStream(body != null ? body.getBytes(StandardCharsets.UTF_8) : new byte[0]);
+  }
+
+  /**
+   * Deletes the spilled body, if any. The decoded body stays available.
+   */
+  public void release() {
+    if (content != null) {
+      content.release();
+    }
+  }
+
+  /**
+   * Writes a body that has not been decoded yet as a sequence of chunks streamed from the received
+   * content, ended by an empty chunk, so it is never held whole as a string.
+   */
   private void writeObject(ObjectOutputStream stream) throws IOException {
     stream.defaultWriteObject();
+    boolean streamed = body == null && content != null;
+    stream.writeBoolean(streamed);
+    if (!streamed) {
+      return;
+    }
+    stream.writeUTF(content.charset().name());
+    byte[] chunk = new byte[SERIALIZED_CHUNK_SIZE];
+    try (InputStream in = content.openStream()) {
+      for (int read = in.read(chunk); read >= 0; read = in.read(chunk)) {
+        if (read > 0) {
+          stream.writeInt(read);
+          stream.write(chunk, 0, read);
+        }
+      }
+    }
+    stream.writeInt(0);
   }
 
   private void readObject(ObjectInputStream stream)
     throws IOException, ClassNotFoundException {
     stream.defaultReadObject();
+    if (!stream.readBoolean()) {
+      return;
+    }
+    Charset charset = Charset.forName(stream.readUTF());
+    var bytes = new ByteArrayOutputStream();
+    for (int length = stream.readInt(); length > 0; length = stream.readInt()) {
+      bytes.write(stream.readNBytes(length));
+    }
+    content = ResponseContent.inMemory(bytes.toByteArray(), charset, null, size -> { });
   }
 
+  /**
+   * Describes the response without decoding or reading its body.
+   */
   @Override
   public String toString() {
-    return ToStringBuilder.reflectionToString(this, ToStringStyle.JSON_STYLE);
+    return new ToStringBuilder(this, ToStringStyle.JSON_STYLE)
+      .append("statusCodeValue", statusCodeValue)
+      .append("headers", headers)
+      .append("bodySize", content != null ? content.encodedSize() : getBodySize())
+      .append("spilled", content != null && content.isSpilled())
+      .toString();
   }
 }
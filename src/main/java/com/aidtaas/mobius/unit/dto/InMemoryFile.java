@@ -1,4 +1,3 @@
-
 /*
  * Copyright (c) 2024.
  * Gaian Solutions Pvt. Ltd.
@@ -7,30 +6,39 @@
 package com.aidtaas.mobius.unit.dto;
 
 import com.aidtaas.mobius.error.services.exception.ObjectMappingException;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.util.Arrays;
 import java.util.Objects;
-import lombok.Builder;
-import lombok.Data;
+import lombok.Getter;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
 import org.camunda.bpm.engine.variable.value.FileValue;
 
-import static com.google.common.io.ByteStreams.toByteArray;
-
-@Data
-@Builder
+/**
+ * A file variable held once in memory as a read-only buffer.
+ * The buffer is shared by every reader, so sending the file or measuring it does not copy it again.
+ */
 @JsonInclude(JsonInclude.Include.NON_NULL)
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class InMemoryFile implements Serializable {
 
   private static final long serialVersionUID = 1L;
 
+  @Getter
   private final String filename;
-  private final byte[] fileData;
+
+  @JsonIgnore
+  private transient ByteBuffer data;
 
   /**
    * Constructor for the InMemoryFile class.
@@ -40,27 +48,73 @@ public class InMemoryFile implements Serializable {
    * @param byteArray the data of the file
    */
   public InMemoryFile(String name, byte[] byteArray) {
-    this.fileData = Arrays.copyOf(byteArray, byteArray.length);
+    this.data = ByteBuffer.wrap(Arrays.copyOf(byteArray, byteArray.length)).asReadOnlyBuffer();
     this.filename = name;
   }
 
   /**
    * Constructor for the InMemoryFile class.
-   * It initializes the filename and file data fields from a FileValue object.
-   * It throws an ObjectMappingException if an error occurs while writing to the byte array.
+   * It reads the content of a FileValue object once and keeps it as a read-only buffer.
+   * It throws an ObjectMappingException if an error occurs while reading the file.
    *
    * @param file the FileValue object
    */
   public InMemoryFile(FileValue file) {
-    byte[] byteData;
-    try {
-      byteData = toByteArray(file.getValue());
+    try (InputStream in = file.getValue()) {
+      this.data = ByteBuffer.wrap(in.readAllBytes()).asReadOnlyBuffer();
     } catch (IOException e) {
-      throw new ObjectMappingException("error while writing to byteArray", e);
+      throw new ObjectMappingException("error while reading the file", e);
     }
-
     this.filename = file.getFilename();
-    this.fileData = Arrays.copyOf(byteData, byteData.length);
+  }
+
+  /**
+   * Returns the size of the file in bytes.
+   *
+   * @return the size
+   */
+  @JsonIgnore
+  public long getSize() {
+    return data.remaining();
+  }
+
+  /**
+   * Returns a copy of the file content, for callers that need an array.
+   *
+   * @return the file data
+   */
+  public byte[] getFileData() {
+    byte[] copy = new byte[data.remaining()];
+    data.duplicate().get(copy);
+    return copy;
+  }
+
+  /**
+   * Writes the file content to a stream without copying it on the heap.
+   *
+   * @param out the stream
+   * @throws IOException if the stream cannot be written
+   */
+  public void writeTo(OutputStream out) throws IOException {
+    ByteBuffer content = data.duplicate();
+    var channel = Channels.newChannel(out);
+    while (content.hasRemaining()) {
+      channel.write(content);
+    }
+  }
+
+  private void writeObject(ObjectOutputStream stream) throws IOException {
+    stream.defaultWriteObject();
+    stream.writeInt(data.remaining());
+    writeTo(stream);
+  }
+
+  private void readObject(ObjectInputStream stream)
+    throws IOException, ClassNotFoundException {
+    stream.defaultReadObject();
+    byte[] content = new byte[stream.readInt()];
+    stream.readFully(content);
+    data = ByteBuffer.wrap(content).asReadOnlyBuffer();
   }
 
   /**
@@ -80,7 +134,7 @@ public class InMemoryFile implements Serializable {
     }
     InMemoryFile that = (InMemoryFile) object;
     return Objects.equals(filename, that.filename)
-      && Arrays.equals(fileData, that.fileData);
+      && Objects.equals(data, that.data);
   }
 
   /**
@@ -91,11 +145,14 @@ public class InMemoryFile implements Serializable {
    */
   @Override
   public int hashCode() {
-    return Objects.hash(filename, Arrays.hashCode(fileData));
+    return Objects.hash(filename, data);
   }
 
   @Override
   public String toString() {
-    return ToStringBuilder.reflectionToString(this, ToStringStyle.JSON_STYLE);
+    return new ToStringBuilder(this, ToStringStyle.JSON_STYLE)
+      .append("filename", filename)
+      .append("size", getSize())
+      .toString();
   }
 }
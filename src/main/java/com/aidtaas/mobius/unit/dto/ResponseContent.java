@@ -0,0 +1,271 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.dto;
+
+import com.aidtaas.mobius.unit.exception.NonRetryableException;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.LongConsumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.brotli.dec.BrotliInputStream;
+
+/**
+ * Raw bytes of a response body, read lazily.
+ * Small bodies are held in memory; larger ones are spilled to a temp file while they are received,
+ * and reads of a spilled body wait until the file has been written out.
+ * The temp file is deleted on {@link #release()}, or once the content is no longer reachable.
+ * A compressed body is kept as received and decoded while it is read.
+ */
+@Slf4j
+public final class ResponseContent {
+
+  public static final String GZIP = "gzip";
+
+  public static final String DEFLATE = "deflate";
+
+  public static final String BROTLI = "br";
+
+  private static final Cleaner CLEANER = Cleaner.create();
+
+  private final byte[] bytes;
+
+  private final Path file;
+
+  private final CompletableFuture<Void> written;
+
+  private final long encodedSize;
+
+  private final Charset charset;
+
+  private final String encoding;
+
+  private final LongConsumer decodedListener;
+
+  private final Cleaner.Cleanable cleanable;
+
+  private volatile long decodedSize = -1;
+
+  private ResponseContent(byte[] bytes, Path file, CompletableFuture<Void> written, long encodedSize,
+                          Charset charset, String encoding, LongConsumer decodedListener) {
+    this.bytes = bytes;
+    this.file = file;
+    this.written = written;
+    this.encodedSize = encodedSize;
+    this.charset = charset;
+    this.encoding = encoding;
+    this.decodedListener = decodedListener;
+    this.cleanable = file != null ? CLEANER.register(this, new FileDeleter(file, written)) : null;
+    if (encoding == null) {
+      this.decodedSize = encodedSize;
+    }
+  }
+
+  /**
+   * Creates the content of a body held in memory.
+   *
+   * @param bytes           the bytes as received
+   * @param charset         the charset of the decoded body
+   * @param encoding        the content coding of the bytes, null when not encoded
+   * @param decodedListener receives the decoded size once the body has been decoded
+   * @return the content
+   */
+  public static ResponseContent inMemory(byte[] bytes, Charset charset, String encoding,
+                                         LongConsumer decodedListener) {
+    return new ResponseContent(bytes, null, null, bytes.length, charset, encoding, decodedListener);
+  }
+
+  /**
+   * Creates the content of a body spilled to a temp file.
+   *
+   * @param file            the temp file, deleted on release
+   * @param written         completes once the whole body has been written to the file
+   * @param size            the number of bytes received
+   * @param charset         the charset of the decoded body
+   * @param encoding        the content coding of the bytes, null when not encoded
+   * @param decodedListener receives the decoded size once the body has been decoded
+   * @return the content
+   */
+  public static ResponseContent spilled(Path file, CompletableFuture<Void> written, long size, Charset charset,
+                                        String encoding, LongConsumer decodedListener) {
+    return new ResponseContent(null, file, written, size, charset, encoding, decodedListener);
+  }
+
+  /**
+   * Returns the size of the decoded body. For a compressed body this decodes it once, without
+   * keeping the decoded bytes.
+   *
+   * @return the decoded size
+   */
+  public long size() {
+    if (decodedSize < 0) {
+      try (InputStream in = openStream()) {
+        in.transferTo(OutputStream.nullOutputStream());
+      } catch (IOException e) {
+        throw new NonRetryableException("Error reading the response body", e);
+      }
+    }
+    return decodedSize;
+  }
+
+  public long encodedSize() {
+    return encodedSize;
+  }
+
+  public boolean isSpilled() {
+    return file != null;
+  }
+
+  public Charset charset() {
+    return charset;
+  }
+
+  /**
+   * Opens a stream over the decoded content without loading it on the heap.
+   *
+   * @return the stream
+   * @throws IOException if the spilled file cannot be opened or the content cannot be decoded
+   */
+  public InputStream openStream() throws IOException {
+    InputStream raw;
+    if (file != null) {
+      awaitWritten();
+      raw = Files.newInputStream(file);
+    } else {
+      raw = new ByteArrayInputStream(bytes);
+    }
+    if (encoding == null) {
+      return raw;
+    }
+    return new DecodedSizeCounter(decode(raw));
+  }
+
+  public byte[] asBytes() {
+    if (encoding == null && file == null) {
+      return bytes;
+    }
+    try (InputStream in = openStream()) {
+      return in.readAllBytes();
+    } catch (IOException e) {
+      throw new NonRetryableException("Error reading the response body", e);
+    }
+  }
+
+  public String asString() {
+    if (encoding == null) {
+      if (file == null) {
+        return new String(bytes, charset);
+      }
+      try {
+        awaitWritten();
+        return Files.readString(file, charset);
+      } catch (IOException e) {
+        throw new NonRetryableException("Error reading the response body", e);
+      }
+    }
+    return new String(asBytes(), charset);
+  }
+
+  /**
+   * Deletes the spilled file, if any.
+   */
+  public void release() {
+    if (cleanable != null) {
+      cleanable.clean();
+    }
+  }
+
+  private void awaitWritten() throws IOException {
+    try {
+      written.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof UncheckedIOException ioException) {
+        throw ioException.getCause();
+      }
+      throw new IOException("Error spilling the response body", e.getCause());
+    }
+  }
+
+  private InputStream decode(InputStream raw) throws IOException {
+    return switch (encoding) {
+      case GZIP -> new GZIPInputStream(raw);
+      case DEFLATE -> new InflaterInputStream(raw);
+      case BROTLI -> new BrotliInputStream(raw);
+      default -> throw new IOException("Unsupported content encoding " + encoding);
+    };
+  }
+
+  private void decoded(long size) {
+    if (decodedSize < 0) {
+      decodedSize = size;
+      if (decodedListener != null) {
+        decodedListener.accept(size);
+      }
+    }
+  }
+
+  /**
+   * Counts the decoded bytes read and records the decoded size once the end of the body is reached.
+   */
+  private final class DecodedSizeCounter extends FilterInputStream {
+
+    private long count;
+
+    private DecodedSizeCounter(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b == -1) {
+        decoded(count);
+      } else {
+        count++;
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int n = super.read(b, off, len);
+      if (n == -1) {
+        decoded(count);
+      } else {
+        count += n;
+      }
+      return n;
+    }
+  }
+
+  /**
+   * Deletes the spilled file once the writes to it are over, so a late write cannot recreate it.
+   */
+  private record FileDeleter(Path file, CompletableFuture<Void> written) implements Runnable {
+
+    @Override
+    public void run() {
+      written.whenComplete((ignored, error) -> {
+        try {
+          Files.deleteIfExists(file);
+        } catch (IOException e) {
+          log.warn("Failed to delete spilled response body {}: {}", file, e.getMessage());
+        }
+      });
+    }
+  }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.enums;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+public enum AffinityMode {
+
+  NONE("none"), PROCESS_INSTANCE("process-instance"), TENANT("tenant");
+
+  private String value;
+
+  AffinityMode(String value) {
+    this.value = value;
+  }
+
+  @JsonValue
+  public String getValue() {
+    return value;
+  }
+
+  public static AffinityMode fromValue(String value) {
+    for (AffinityMode mode : values()) {
+      if (mode.value.equalsIgnoreCase(value)) {
+        return mode;
+      }
+    }
+    throw new IllegalArgumentException("Unknown affinity mode: " + value);
+  }
+}
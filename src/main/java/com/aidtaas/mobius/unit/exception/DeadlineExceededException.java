@@ -0,0 +1,22 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.exception;
+
+/**
+ * This class represents a deadline exceeded exception.
+ * An instance of this class is thrown when the lock of the external task does not leave enough time
+ * for the next step, so that the task is handed back instead of doing work whose result would be rejected.
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+  public DeadlineExceededException(String errorMessage) {
+    super(errorMessage);
+  }
+
+  public DeadlineExceededException(String errorMessage, Throwable exception) {
+    super(errorMessage, exception);
+  }
+}
@@ -15,23 +15,44 @@ public class RetryableException extends RuntimeException {
 
   private final int statusCode;
 
+  private final long retryDelay;
+
   public RetryableException(String errorMessage, int statusCode) {
+    this(errorMessage, statusCode, 0);
+  }
+
+  /**
+   * Creates an exception that asks for the retry to wait at least the given delay, e.g. until an
+   * open circuit breaker lets calls through again.
+   *
+   * @param errorMessage the error message
+   * @param statusCode   the status code
+   * @param retryDelay   the minimum delay before the retry in milliseconds, 0 for the default
+   */
+  public RetryableException(String errorMessage, int statusCode, long retryDelay) {
     super(errorMessage);
     this.statusCode = statusCode;
+    this.retryDelay = retryDelay;
   }
 
   public RetryableException(String errorMessage, Throwable exception) {
     super(errorMessage, exception);
     this.statusCode = 0;
+    this.retryDelay = 0;
   }
 
   public RetryableException(String errorMessage) {
     super(errorMessage);
     this.statusCode = 0;
+    this.retryDelay = 0;
   }
 
   public int getStatusCode() {
     return statusCode;
   }
 
+  public long getRetryDelay() {
+    return retryDelay;
+  }
+
 }
@@ -8,6 +8,7 @@ package com.aidtaas.mobius.unit.handlers;
 
 import com.aidtaas.mobius.unit.config.Config;
 import com.aidtaas.mobius.unit.constants.BobConstants;
+import com.aidtaas.mobius.unit.delegate.DelegateExecutions;
 import com.aidtaas.mobius.unit.dto.Operation;
 import com.aidtaas.mobius.unit.utils.CommonUtils;
 import com.aidtaas.mobius.error.services.exception.ObjectMappingException;
@@ -17,6 +18,7 @@ import com.jcraft.jsch.ChannelExec;
 import com.jcraft.jsch.JSchException;
 import com.jcraft.jsch.Session;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Named;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
@@ -40,6 +42,7 @@ import org.slf4j.Logger;
  * handler includes a method to execute an Ansible command.
  */
 @Slf4j
+@Named
 @ApplicationScoped
 public class AnsibleHandler  implements ExternalTaskHandler, JavaDelegate {
 
@@ -90,8 +93,8 @@ public class AnsibleHandler  implements ExternalTaskHandler, JavaDelegate {
 
 
   @Override
-  public void execute(DelegateExecution delegateExecution) throws Exception {
-
+  public void execute(DelegateExecution delegateExecution) {
+    DelegateExecutions.execute(this, delegateExecution, BobConstants.ANSIBLE_HANDLER);
   }
 
 
@@ -15,8 +15,10 @@ import com.aidtaas.mobius.unit.component.ApiOperationManager;
 import com.aidtaas.mobius.unit.component.RestApiOperator;
 import com.aidtaas.mobius.unit.config.ConfigProperties;
 import com.aidtaas.mobius.unit.constants.BobConstants;
+import com.aidtaas.mobius.unit.delegate.DelegateExecutions;
 import com.aidtaas.mobius.unit.dto.ApiOperation;
 import com.aidtaas.mobius.unit.enums.ApiType;
+import com.aidtaas.mobius.unit.exception.DeadlineExceededException;
 import com.aidtaas.mobius.unit.exception.NonRetryableException;
 import com.aidtaas.mobius.unit.exception.RetryableException;
 import com.aidtaas.mobius.unit.utils.ActionLogUtil;
@@ -24,7 +26,9 @@ import com.aidtaas.mobius.unit.utils.BobValidator;
 import com.aidtaas.mobius.unit.utils.CommonUtils;
 import com.aidtaas.mobius.unit.utils.MeteringUtils;
 import com.aidtaas.mobius.unit.utils.TfUtils;
+import com.aidtaas.mobius.unit.worker.TaskDeadline;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Named;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.camunda.bpm.client.task.ExternalTask;
@@ -47,6 +51,7 @@ import static com.aidtaas.mobius.unit.constants.BobConstants.REQUESTER_TYPE_GLOB
  * The handler includes a method to execute an external task.
  */
 @Slf4j
+@Named
 @ApplicationScoped
 @RequiredArgsConstructor
 public class ApiOperationHandler implements ExternalTaskHandler, JavaDelegate {
@@ -90,6 +95,7 @@ public class ApiOperationHandler implements ExternalTaskHandler, JavaDelegate {
       validator.validateApiOperation(apiOperation);
       if (apiOperation.getInput().getApiType().getValue().equalsIgnoreCase(ApiType.REST.getValue())) {
         apiOperationManager.retrieveRestApiInfo(apiOperation);
+        TaskDeadline.current().startSideEffects("API operation");
         restApiOperator.performOperation(apiOperation, externalTask);
       } else {
         throw new NonRetryableException("Operation of this type is not yet supported! ");
@@ -110,6 +116,10 @@ public class ApiOperationHandler implements ExternalTaskHandler, JavaDelegate {
           NodeType.BRICKS, externalTask.getActivityId(), null,
           null, ActionLogRequestStatus.SUCCESS));
 
+    } catch (DeadlineExceededException deadlineExceededException) {
+
+      CommonUtils.handBack(externalTask, externalTaskService, deadlineExceededException);
+
     } catch (RetryableException retryableException) {
 
       constructErrorDetails(externalTask, retryableException, apiOperation, requesterType, requesterId);
@@ -118,7 +128,8 @@ public class ApiOperationHandler implements ExternalTaskHandler, JavaDelegate {
         apiOperation.getInput().getActivityId()), retryableException.getStatusCode());
 
       int retries = CommonUtils.calculateRetries(externalTask, config.retryCount());
-      long retryTimeout = (long) config.retryDelay() * (config.retryCount() - retries);
+      long retryTimeout = Math.max((long) config.retryDelay() * (config.retryCount() - retries),
+        retryableException.getRetryDelay());
 
       externalTaskService.handleFailure(externalTask.getId(), "Failed to call the rest api",
         retryableException.getMessage(), retries, retryTimeout, apiOperation.getRuntimeVariables(), null);
@@ -156,14 +167,8 @@ public class ApiOperationHandler implements ExternalTaskHandler, JavaDelegate {
   }
 
   @Override
-  public void execute(DelegateExecution delegateExecution) throws Exception {
-    String workflowId = CommonUtils.getWorkflowId(delegateExecution);
-    log.info("*********** BEGIN JavaDelegate [ApiOperationHandler] - [{}] **************", workflowId);
-    var requesterType = RequesterType.valueOf((String) delegateExecution.getVariable(REQUESTER_TYPE_GLOBAL));
-    var requesterId = delegateExecution.getVariable(REQUESTER_ID_GLOBAL).toString();
-
-
-    log.info("################### END JavaDelegate [ApiOperationHandler] - [{}] ###################", workflowId);
+  public void execute(DelegateExecution delegateExecution) {
+    DelegateExecutions.execute(this, delegateExecution, BobConstants.API_OPERATION_HANDLER);
   }
 
   private void constructErrorDetails(ExternalTask externalTask, Exception apiException,
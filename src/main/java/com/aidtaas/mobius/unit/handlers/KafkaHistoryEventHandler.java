@@ -55,12 +55,13 @@ public class KafkaHistoryEventHandler implements HistoryEventHandler {
 
   /**
    * This method is responsible for handling a list of HistoryEvents. It processes the list of
-   * HistoryEvents in parallel by calling the handleEvent method for each HistoryEvent.
+   * HistoryEvents in order, on the calling thread, by calling the handleEvent method for each
+   * HistoryEvent. Publishing only hands the payload to the Kafka emitter, so it does not block.
    *
    * @param historyEvents The list of HistoryEvent objects that need to be handled.
    */
   @Override
   public void handleEvents(List<HistoryEvent> historyEvents) {
-    historyEvents.parallelStream().forEach(this::handleEvent);
+    historyEvents.forEach(this::handleEvent);
   }
 }
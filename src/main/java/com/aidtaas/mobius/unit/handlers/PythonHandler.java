@@ -8,6 +8,7 @@ package com.aidtaas.mobius.unit.handlers;
 
 import com.aidtaas.mobius.unit.config.Config;
 import com.aidtaas.mobius.unit.constants.BobConstants;
+import com.aidtaas.mobius.unit.delegate.DelegateExecutions;
 import com.aidtaas.mobius.unit.dto.Operation;
 import com.fasterxml.jackson.core.json.JsonReadFeature;
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -16,6 +17,7 @@ import com.jcraft.jsch.JSch;
 import com.jcraft.jsch.JSchException;
 import com.jcraft.jsch.Session;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Named;
 import java.io.BufferedReader;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -48,6 +50,7 @@ import static com.aidtaas.mobius.unit.constants.BobConstants.BYTE_SIZE;
  * The handler includes a method to execute a Python script.
  */
 @Slf4j
+@Named
 @ApplicationScoped
 public class PythonHandler  implements ExternalTaskHandler, JavaDelegate {
 
@@ -106,8 +109,8 @@ public class PythonHandler  implements ExternalTaskHandler, JavaDelegate {
   }
 
   @Override
-  public void execute(DelegateExecution delegateExecution) throws Exception {
-
+  public void execute(DelegateExecution delegateExecution) {
+    DelegateExecutions.execute(this, delegateExecution, BobConstants.PYTHON_HANDLER);
   }
 
   /**
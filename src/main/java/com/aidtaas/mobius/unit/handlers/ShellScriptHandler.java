@@ -18,19 +18,24 @@ import com.aidtaas.mobius.unit.config.Config;
 import com.aidtaas.mobius.unit.config.DynamicRestClient;
 import com.aidtaas.mobius.unit.config.URLResolver;
 import com.aidtaas.mobius.unit.constants.BobConstants;
+import com.aidtaas.mobius.unit.delegate.DelegateExecutions;
 import com.aidtaas.mobius.unit.dto.ApiResponseBody;
 import com.aidtaas.mobius.unit.dto.PipelineDto;
 import com.aidtaas.mobius.unit.dto.ScriptOperation;
 import com.aidtaas.mobius.unit.enums.ScriptSource;
+import com.aidtaas.mobius.unit.exception.DeadlineExceededException;
 import com.aidtaas.mobius.unit.exception.NonRetryableException;
 import com.aidtaas.mobius.unit.utils.ActionLogUtil;
 import com.aidtaas.mobius.unit.utils.CommonUtils;
 import com.aidtaas.mobius.unit.utils.BobValidator;
+import com.aidtaas.mobius.unit.utils.SingleFlight;
+import com.aidtaas.mobius.unit.worker.TaskDeadline;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.jcraft.jsch.ChannelSftp;
 import com.jcraft.jsch.JSch;
 import com.jcraft.jsch.Session;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Named;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -61,6 +66,7 @@ import static com.aidtaas.mobius.unit.constants.BobConstants.REQUESTER_TYPE_GLOB
  * handler includes a method to execute a shell script command.
  */
 @Slf4j
+@Named
 @ApplicationScoped
 @RequiredArgsConstructor
 public class ShellScriptHandler  implements ExternalTaskHandler, JavaDelegate {
@@ -79,6 +85,8 @@ public class ShellScriptHandler  implements ExternalTaskHandler, JavaDelegate {
 
   private final ConfigProperties config;
 
+  private final SingleFlight<PipelineKey, String> pipelineFetches = new SingleFlight<>("pipeline");
+
   /**
    * Executes an external task. It logs the start and end of the execution and the variables of the
    * task.
@@ -99,6 +107,7 @@ public class ShellScriptHandler  implements ExternalTaskHandler, JavaDelegate {
       validator.validateScriptOperation(scriptOperation);
       scriptOperationManager.retrieveScriptInfo(scriptOperation);
 
+      TaskDeadline.current().startSideEffects("shell script");
       prepareDataAndExecuteCommands(scriptOperation);
       externalTaskService.complete(externalTask, scriptOperation.getRuntimeVariables());
       CompletableFuture.runAsync(() ->
@@ -106,6 +115,8 @@ public class ShellScriptHandler  implements ExternalTaskHandler, JavaDelegate {
           NodeType.BRICKS, externalTask.getActivityId(), null,
           null, ActionLogRequestStatus.SUCCESS));
 
+    } catch (DeadlineExceededException e) {
+      CommonUtils.handBack(externalTask, externalTaskService, e);
     } catch (Exception e) {
       log.error("Error while executing the shell script", e);
       scriptOperation.getRuntimeVariables().put(String.format(BobConstants.GLOBAL_ERROR_VARIABLE,
@@ -129,8 +140,8 @@ public class ShellScriptHandler  implements ExternalTaskHandler, JavaDelegate {
   }
 
   @Override
-  public void execute(DelegateExecution delegateExecution) throws Exception {
-
+  public void execute(DelegateExecution delegateExecution) {
+    DelegateExecutions.execute(this, delegateExecution, BobConstants.SHELL_SCRIPT_HANDLER);
   }
 
   /**
@@ -238,19 +249,31 @@ public class ShellScriptHandler  implements ExternalTaskHandler, JavaDelegate {
     if (pipelineDetails.length > 1) {
       pipelineVersion = pipelineDetails[1];
     }
+    String auth = scriptOperation.getExternalTask().getVariable(AUTHORIZATION_GLOBAL);
     Map<String, String> headers = new HashMap<>();
-    headers.put(AUTHORIZATION, scriptOperation.getExternalTask().getVariable(AUTHORIZATION_GLOBAL));
+    headers.put(AUTHORIZATION, auth);
     Map<String, String> queryParams = new HashMap<>();
     queryParams.put("pipelineId", pipelineId);
     queryParams.put("version", pipelineVersion);
     String finalUrl = urlResolver.constructUrl(config.bobGetPipelineUrl(), queryParams, null);
-    ApiResponseBody responseBody = dynamicRestClient.makeApiCall(finalUrl, null, "GET", headers);
-    JsonNode jsonNode = Config.OBJECT_MAPPER.readTree(responseBody.getBody());
+    // Scripts started together mostly run the same pipeline, they share one fetch of it
+    String pipelineJson = pipelineFetches.get(new PipelineKey(finalUrl, auth), () -> {
+      ApiResponseBody responseBody = dynamicRestClient.makeApiCall(finalUrl, null, "GET", headers);
+      try {
+        return responseBody.getBody();
+      } finally {
+        responseBody.release();
+      }
+    }, config.singleFlightTimeout());
+    JsonNode jsonNode = Config.OBJECT_MAPPER.readTree(pipelineJson);
     PipelineDto pipelineDto = Config.OBJECT_MAPPER.convertValue(jsonNode, PipelineDto.class);
     String combinedScript = pipelineDto.getCombinedScript();
     uploadScriptViaSftp(session, finalPath, combinedScript, scriptVariables.get("fileName").toString());
   }
 
+  private record PipelineKey(String url, String auth) {
+  }
+
   private void uploadScriptViaSftp(Session session, String remoteScriptPath, String combinedContent, String fileName) throws Exception {
     ChannelSftp sftpChannel = (ChannelSftp) session.openChannel("sftp");
     sftpChannel.connect();
@@ -16,15 +16,18 @@ import com.aidtaas.mobius.unit.component.ScriptOperationManager;
 import com.aidtaas.mobius.unit.config.ConfigProperties;
 import com.aidtaas.mobius.unit.config.Config;
 import com.aidtaas.mobius.unit.constants.BobConstants;
+import com.aidtaas.mobius.unit.delegate.DelegateExecutions;
 import com.aidtaas.mobius.unit.dto.InfraDTO;
 import com.aidtaas.mobius.unit.dto.ScriptOperation;
 import com.aidtaas.mobius.unit.dto.UserDTO;
 import com.aidtaas.mobius.unit.enums.ScriptSource;
+import com.aidtaas.mobius.unit.exception.DeadlineExceededException;
 import com.aidtaas.mobius.unit.exception.NonRetryableException;
 import com.aidtaas.mobius.unit.utils.ActionLogUtil;
 import com.aidtaas.mobius.unit.utils.CommonUtils;
 import com.aidtaas.mobius.unit.utils.TfUtils;
 import com.aidtaas.mobius.unit.utils.BobValidator;
+import com.aidtaas.mobius.unit.worker.TaskDeadline;
 import com.aidtaas.mobius.error.services.exception.ObjectMappingException;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.jcraft.jsch.Channel;
@@ -32,6 +35,7 @@ import com.jcraft.jsch.ChannelSftp;
 import com.jcraft.jsch.JSch;
 import com.jcraft.jsch.Session;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Named;
 import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -63,6 +67,7 @@ import static com.aidtaas.mobius.unit.constants.BobConstants.REQUESTER_TYPE_GLOB
  * handler includes a method to execute a shell script command.
  */
 @Slf4j
+@Named
 @ApplicationScoped
 @RequiredArgsConstructor
 public class TerraformHandler  implements ExternalTaskHandler, JavaDelegate {
@@ -104,6 +109,7 @@ public class TerraformHandler  implements ExternalTaskHandler, JavaDelegate {
 
       log.info("---- Preparing and executing the commands ----");
 
+      TaskDeadline.current().startSideEffects("terraform script");
       prepareDataAndExecuteCommands(scriptOperation);
 
       log.info("---- Completing the external task ----");
@@ -117,6 +123,8 @@ public class TerraformHandler  implements ExternalTaskHandler, JavaDelegate {
           NodeType.BRICKS, externalTask.getActivityId(), null,
           null, ActionLogRequestStatus.SUCCESS));
 
+    } catch (DeadlineExceededException e) {
+      CommonUtils.handBack(externalTask, externalTaskService, e);
     } catch (Exception e) {
       log.error("Error while executing the terraform script", e);
       scriptOperation.getRuntimeVariables().put(String.format(BobConstants.GLOBAL_ERROR_VARIABLE,
@@ -140,8 +148,8 @@ public class TerraformHandler  implements ExternalTaskHandler, JavaDelegate {
   }
 
   @Override
-  public void execute(DelegateExecution delegateExecution) throws Exception {
-
+  public void execute(DelegateExecution delegateExecution) {
+    DelegateExecutions.execute(this, delegateExecution, BobConstants.TERRAFORM_HANDLER);
   }
 
   public void prepareDataAndExecuteCommands(ScriptOperation scriptOperation) {
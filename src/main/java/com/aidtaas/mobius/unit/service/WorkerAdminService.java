@@ -0,0 +1,22 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.service;
+
+import com.aidtaas.mobius.unit.dto.TopicSettingsDto;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+
+public interface WorkerAdminService {
+  Response getTopics(HttpHeaders httpHeaders);
+
+  Response getTopic(String topicName, HttpHeaders httpHeaders);
+
+  Response updateTopic(String topicName, TopicSettingsDto settings, HttpHeaders httpHeaders);
+
+  Response setPaused(String topicName, boolean paused, HttpHeaders httpHeaders);
+
+  Response invalidateSecrets(String path, HttpHeaders httpHeaders);
+}
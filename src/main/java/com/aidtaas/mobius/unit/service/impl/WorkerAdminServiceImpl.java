@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.service.impl;
+
+import com.aidtaas.mobius.unit.config.ConfigProperties;
+import com.aidtaas.mobius.unit.config.HandlerConfig;
+import com.aidtaas.mobius.unit.config.VaultSecrets;
+import com.aidtaas.mobius.unit.dto.TopicSettingsDto;
+import com.aidtaas.mobius.unit.exception.AuthorizationException;
+import com.aidtaas.mobius.unit.exception.ValidationException;
+import com.aidtaas.mobius.unit.service.WorkerAdminService;
+import com.aidtaas.mobius.unit.worker.TopicDispatcher;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.function.Function;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+import static com.aidtaas.mobius.unit.constants.BobConstants.ADMIN_API_KEY_HEADER;
+import static com.aidtaas.mobius.unit.constants.BobConstants.REQUESTER_ID;
+
+/**
+ * Views and changes the limits of the external task worker at runtime, and drops its cached secrets.
+ * Every request must carry the admin API key; the API is disabled while no key is configured.
+ */
+@Slf4j
+@ApplicationScoped
+@RequiredArgsConstructor
+public class WorkerAdminServiceImpl implements WorkerAdminService {
+
+  private final HandlerConfig handlerConfig;
+  private final ConfigProperties config;
+  private final VaultSecrets vaultSecrets;
+
+  /**
+   * Get the runtime settings of all worker topics.
+   *
+   * @param httpHeaders the http headers
+   * @return the response
+   */
+  @Override
+  public Response getTopics(HttpHeaders httpHeaders) {
+    authorize(httpHeaders);
+    return Response.ok(handlerConfig.getDispatchers().stream().map(WorkerAdminServiceImpl::toSettings).toList())
+      .build();
+  }
+
+  /**
+   * Get the runtime settings of a worker topic.
+   *
+   * @param topicName   the topic name
+   * @param httpHeaders the http headers
+   * @return the response
+   */
+  @Override
+  public Response getTopic(String topicName, HttpHeaders httpHeaders) {
+    authorize(httpHeaders);
+    return withDispatcher(topicName, WorkerAdminServiceImpl::toSettings);
+  }
+
+  /**
+   * Change the runtime settings of a worker topic. Settings that are not set are left unchanged.
+   *
+   * @param topicName   the topic name
+   * @param settings    the settings to change
+   * @param httpHeaders the http headers
+   * @return the response
+   */
+  @Override
+  public Response updateTopic(String topicName, TopicSettingsDto settings, HttpHeaders httpHeaders) {
+    authorize(httpHeaders);
+    if (settings == null) {
+      throw new ValidationException("Topic settings are required");
+    }
+    requirePositive("maxInFlight", settings.getMaxInFlight());
+    requirePositive("maxTasks", settings.getMaxTasks());
+    requirePositive("lockDuration", settings.getLockDuration());
+
+    return withDispatcher(topicName, (TopicDispatcher dispatcher) -> {
+      if (settings.getMaxInFlight() != null) {
+        dispatcher.setMaxInFlight(settings.getMaxInFlight());
+      }
+      if (settings.getMaxTasks() != null) {
+        dispatcher.setMaxTasks(settings.getMaxTasks());
+      }
+      if (settings.getLockDuration() != null) {
+        dispatcher.setLockDuration(settings.getLockDuration());
+      }
+      if (settings.getPaused() != null) {
+        applyPaused(dispatcher, settings.getPaused());
+      }
+      log.info("Worker topic {} changed by {} to {}", topicName, httpHeaders.getHeaderString(REQUESTER_ID),
+        settings);
+      return toSettings(dispatcher);
+    });
+  }
+
+  /**
+   * Pause or resume fetching of a worker topic.
+   *
+   * @param topicName   the topic name
+   * @param paused      whether the topic is paused
+   * @param httpHeaders the http headers
+   * @return the response
+   */
+  @Override
+  public Response setPaused(String topicName, boolean paused, HttpHeaders httpHeaders) {
+    authorize(httpHeaders);
+    return withDispatcher(topicName, (TopicDispatcher dispatcher) -> {
+      applyPaused(dispatcher, paused);
+      log.info("Worker topic {} {} by {}", topicName, paused ? "paused" : "resumed",
+        httpHeaders.getHeaderString(REQUESTER_ID));
+      return toSettings(dispatcher);
+    });
+  }
+
+  /**
+   * Drop the cached Vault secrets of a path, or all of them when no path is given.
+   *
+   * @param path        the Vault path
+   * @param httpHeaders the http headers
+   * @return the response
+   */
+  @Override
+  public Response invalidateSecrets(String path, HttpHeaders httpHeaders) {
+    authorize(httpHeaders);
+    if (StringUtils.isEmpty(path)) {
+      vaultSecrets.invalidateAll();
+    } else {
+      vaultSecrets.invalidate(path);
+    }
+    log.info("Cached secrets invalidated by {}", httpHeaders.getHeaderString(REQUESTER_ID));
+    return Response.noContent().build();
+  }
+
+  private void authorize(HttpHeaders httpHeaders) {
+    String expected = config.adminApiKey().orElse(null);
+    String provided = httpHeaders.getHeaderString(ADMIN_API_KEY_HEADER);
+    if (StringUtils.isEmpty(expected) || StringUtils.isEmpty(provided)
+      || !MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8), provided.getBytes(StandardCharsets.UTF_8))) {
+      log.warn("Rejected worker admin request from {}", httpHeaders.getHeaderString(REQUESTER_ID));
+      throw new AuthorizationException("A valid admin API key is required to manage the worker.");
+    }
+  }
+
+  private Response withDispatcher(String topicName, Function<TopicDispatcher, TopicSettingsDto> action) {
+    return handlerConfig.findDispatcher(topicName)
+      .map(action)
+      .map(settings -> Response.ok(settings).build())
+      .orElseGet(() -> Response.status(Response.Status.NOT_FOUND)
+        .entity(String.format("Topic %s is not enabled on this worker", topicName)).build());
+  }
+
+  private static void applyPaused(TopicDispatcher dispatcher, boolean paused) {
+    if (paused) {
+      dispatcher.pause();
+    } else {
+      dispatcher.resume();
+    }
+  }
+
+  private static void requirePositive(String name, Number value) {
+    if (value != null && value.longValue() <= 0) {
+      throw new ValidationException(name + " must be greater than zero");
+    }
+  }
+
+  private static TopicSettingsDto toSettings(TopicDispatcher dispatcher) {
+    return TopicSettingsDto.builder()
+      .topicName(dispatcher.getTopicName())
+      .maxInFlight(dispatcher.getMaxInFlight())
+      .maxTasks(dispatcher.getMaxTasks())
+      .lockDuration(dispatcher.getLockDuration())
+      .paused(dispatcher.isPaused())
+      .inFlight(dispatcher.inFlight())
+      .freeSlots(dispatcher.freeSlots())
+      .queued(dispatcher.queued())
+      .lastFetchSize(dispatcher.getFetchSizeController().lastFetchSize())
+      .build();
+  }
+}
@@ -42,6 +42,8 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 import static com.aidtaas.mobius.unit.constants.BobConstants.AUTHORIZATION;
 import static com.aidtaas.mobius.unit.constants.BobConstants.DELETE;
@@ -54,6 +56,9 @@ import static com.aidtaas.mobius.unit.constants.BobConstants.POST;
 @RequiredArgsConstructor
 public class ActionLogUtil {
 
+  // Callbacks of the fire-and-forget ACL calls, kept off the IO reactor that completes the calls
+  private static final Executor CALLBACKS = Executors.newVirtualThreadPerTaskExecutor();
+
   private final ConfigProperties config;
 
   private final DynamicRestClient dynamicRestClient;
@@ -64,6 +69,8 @@ public class ActionLogUtil {
 
   private final CacheUtils cacheUtils;
 
+  private final SingleFlight<WorkflowKey, String> workflowFetches = new SingleFlight<>("previous workflow");
+
   /**
    * Action log.
    *
@@ -193,21 +200,41 @@ public class ActionLogUtil {
     try {
       Map<String, String> headers = new LinkedHashMap<>();
       headers.put(AUTHORIZATION, auth);
-      dynamicRestClient.makeApiCall(config.aclCreateBulkNodeRelationUrl(),
-        nodeRelationCreateRequestList, POST, headers);
-      log.info("Bulk Node relation api call successful");
+      dynamicRestClient.makeApiCallAsync(config.aclCreateBulkNodeRelationUrl(),
+          nodeRelationCreateRequestList, POST, headers)
+        .whenCompleteAsync((response, e) -> {
+          if (e == null) {
+            response.release();
+            log.info("Bulk Node relation api call successful");
+          } else {
+            publishNodeRelations(nodeRelationCreateRequestList, e);
+          }
+        }, CALLBACKS);
     } catch (RuntimeException e) {
-      log.error("---------Exception msg for bulk node relation: {}", e.getMessage());
-      nodeRelationCreateRequestList.stream().forEach((NodeRelationCreateRequest nodeRelationCreateRequest) -> {
-        try {
-          kafkaProducer.publishNodeRelation(Config.OBJECT_MAPPER.writeValueAsString(nodeRelationCreateRequest));
-        } catch (JsonProcessingException ex) {
-          log.error("Error for node relation request to string: ", ex);
-          throw new ObjectMappingException("Error while converting list of action log request to string");
-        }
-      });
-      log.info("Bulk Node relation published to kafka successfully");
+      publishNodeRelations(nodeRelationCreateRequestList, e);
+    }
+  }
+
+  /**
+   * Publishes the node relations to kafka when the bulk node relation api call failed. Nobody waits
+   * for this fallback, so a relation that cannot be serialized is logged and skipped.
+   *
+   * @param nodeRelationCreateRequestList the node relation create request list
+   * @param e                             the failure of the api call
+   */
+  private void publishNodeRelations(List<NodeRelationCreateRequest> nodeRelationCreateRequestList, Throwable e) {
+    log.error("---------Exception msg for bulk node relation: {}", e.getMessage());
+    int skipped = 0;
+    for (NodeRelationCreateRequest nodeRelationCreateRequest : nodeRelationCreateRequestList) {
+      try {
+        kafkaProducer.publishNodeRelation(Config.OBJECT_MAPPER.writeValueAsString(nodeRelationCreateRequest));
+      } catch (JsonProcessingException ex) {
+        log.error("Error for node relation request to string: ", ex);
+        skipped++;
+      }
     }
+    log.info("Bulk Node relation published to kafka, {} of {} relations skipped", skipped,
+      nodeRelationCreateRequestList.size());
   }
 
   /**
@@ -261,8 +288,15 @@ public class ActionLogUtil {
       Map<String, String> headers = new LinkedHashMap<>();
       headers.put(AUTHORIZATION, auth);
       String url = urlResolver.constructUrl(config.aclDeleteNodeRelationUrl(), queryParams, null);
-      dynamicRestClient.makeApiCall(url, null, DELETE, headers);
-      log.info("Delete Node relation api call successful");
+      dynamicRestClient.makeApiCallAsync(url, null, DELETE, headers)
+        .whenCompleteAsync((response, e) -> {
+          if (e == null) {
+            response.release();
+            log.info("Delete Node relation api call successful");
+          } else {
+            log.error("---------Exception msg for node relation: {}", e.getMessage());
+          }
+        }, CALLBACKS);
     } catch (RuntimeException e) {
       log.error("---------Exception msg for node relation: {}", e.getMessage());
     }
@@ -284,12 +318,23 @@ public class ActionLogUtil {
     String url = urlResolver.constructUrl(config.serviceDeployedWf(), queryParams, null);
     Map<String, String> headers = new LinkedHashMap<>();
     headers.put(AUTHORIZATION, auth);
-    ApiResponseBody apiResponseBody = dynamicRestClient.makeApiCall(url, null, GET, headers);
+    // Every instance of a redeployed workflow asks for the same previous version, they share one fetch of it
+    String workflowJson = workflowFetches.get(new WorkflowKey(url, auth), () -> {
+      ApiResponseBody apiResponseBody = DynamicRestClient.await(dynamicRestClient.makeApiCallAsync(url, null, GET,
+        headers));
+      try {
+        return apiResponseBody.getBody();
+      } finally {
+        apiResponseBody.release();
+      }
+    }, config.singleFlightTimeout());
     try {
-      return Config.OBJECT_MAPPER.readValue(apiResponseBody.getBody(), Workflow.class);
+      return Config.OBJECT_MAPPER.readValue(workflowJson, Workflow.class);
     } catch (JsonProcessingException e) {
       throw new ObjectMappingException("Error parsing previous deployed workflow JSON", e);
     }
   }
 
+  private record WorkflowKey(String url, String auth) {
+  }
 }
@@ -24,18 +24,14 @@ import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.ObjectUtils;
 
-import java.util.AbstractMap.SimpleEntry;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
 
 import static com.google.common.collect.Sets.newHashSet;
 import static java.lang.String.format;
 import static java.util.Optional.ofNullable;
-import static java.util.stream.Collectors.toConcurrentMap;
 
 /**
  * This class represents a Gaian BPMN validator implementation.
@@ -107,12 +103,7 @@ public class BobValidator {
           getException(BobConstants.INTERFACE_PATH, activityName, activityId, processInstanceId)));
 
       input.setFields(ofNullable(inputs.get(BobConstants.ITEMS)).map(Map.class::cast).map(items ->
-
-        ((Map<String, Field>) items).entrySet().parallelStream().map((Entry<String, Field> field) ->
-            new SimpleEntry<>(field.getKey(), Config.OBJECT_MAPPER.convertValue(field.getValue(), Field.class)))
-          .filter(ObjectUtils::isNotEmpty).filter(field -> Objects.nonNull(field.getValue().getType()))
-          .collect(toConcurrentMap(Entry::getKey, Entry::getValue))
-
+        toFields((Map<String, Object>) items)
       ).orElseThrow(() -> getException("Fields", activityName, activityId, processInstanceId)));
 
       log.info("Validating outputs for activity {} of process instance {}", activityId, processInstanceId);
@@ -150,10 +141,7 @@ public class BobValidator {
     }
 
     ofNullable(outputs.get(BobConstants.OUTPUTS)).map(Map.class::cast).map(
-        variables -> ((Map<String, Object>) variables).entrySet().parallelStream()
-          .map((Entry<String, Object> variable) -> new SimpleEntry<>(variable.getKey(),
-            Config.OBJECT_MAPPER.convertValue(variable.getValue(), OutputAttribute.class))).filter(ObjectUtils::isNotEmpty)
-          .collect(toConcurrentMap(Entry::getKey, Entry::getValue)))
+        variables -> toOutputAttributes((Map<String, Object>) variables))
       .ifPresent(output::setItems);
   }
 
@@ -196,10 +184,7 @@ public class BobValidator {
           getException(BobConstants.COMPONENT_ID, activityName, activityId, processInstanceId)));
 
       input.setFields(ofNullable(inputs.get(BobConstants.ITEMS)).map(Map.class::cast).map(items ->
-        ((Map<String, Field>) items).entrySet().parallelStream().map((Entry<String, Field> field) ->
-            new SimpleEntry<>(field.getKey(), Config.OBJECT_MAPPER.convertValue(field.getValue(), Field.class)))
-          .filter(ObjectUtils::isNotEmpty).filter(field -> Objects.nonNull(field.getValue().getType()))
-          .collect(toConcurrentMap(Entry::getKey, Entry::getValue))
+        toFields((Map<String, Object>) items)
       ).orElseThrow(() -> getException("Fields", activityName, activityId, processInstanceId)));
 
       log.info(BobConstants.VALIDATING_INPUTS_FOR_ACTIVITY_OF_PROCESS_INSTANCE, activityId, processInstanceId);
@@ -231,13 +216,34 @@ public class BobValidator {
     }
 
     ofNullable(outputs.get(BobConstants.OUTPUTS)).map(Map.class::cast).map(
-        variables -> ((Map<String, Object>) variables).entrySet().parallelStream()
-          .map((Entry<String, Object> variable) -> new SimpleEntry<>(variable.getKey(),
-            Config.OBJECT_MAPPER.convertValue(variable.getValue(), OutputAttribute.class))).filter(ObjectUtils::isNotEmpty)
-          .collect(toConcurrentMap(Entry::getKey, Entry::getValue)))
+        variables -> toOutputAttributes((Map<String, Object>) variables))
       .ifPresent(output::setItems);
   }
 
+  /**
+   * Converts the items of a brick to fields, dropping the items without a type.
+   *
+   * @param items the items
+   * @return the fields
+   */
+  private static Map<String, Field> toFields(Map<String, Object> items) {
+    return GroupResolver.resolve(items,
+      (String name, Object item) -> Config.OBJECT_MAPPER.convertValue(item, Field.class),
+      field -> field != null && Objects.nonNull(field.getType()));
+  }
+
+  /**
+   * Converts the outputs of a brick to output attributes.
+   *
+   * @param variables the outputs
+   * @return the output attributes
+   */
+  private static Map<String, OutputAttribute> toOutputAttributes(Map<String, Object> variables) {
+    return GroupResolver.resolve(variables,
+      (String name, Object variable) -> Config.OBJECT_MAPPER.convertValue(variable, OutputAttribute.class),
+      Objects::nonNull);
+  }
+
   /**
    * Returns an exception with a formatted message.
    * The message includes the item, activity name, activity ID, and process instance ID.
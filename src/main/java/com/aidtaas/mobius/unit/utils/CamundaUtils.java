@@ -21,17 +21,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.MapUtils;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.hc.client5.http.classic.methods.HttpPost;
 import org.apache.hc.client5.http.entity.mime.MultipartEntityBuilder;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
-import org.apache.hc.core5.http.ClassicHttpResponse;
 import org.apache.hc.core5.http.ContentType;
 import org.apache.hc.core5.http.HttpEntity;
-import org.apache.hc.core5.http.ParseException;
-import org.apache.hc.core5.http.io.entity.EntityUtils;
-import org.apache.hc.core5.http.protocol.BasicHttpContext;
-import org.apache.hc.core5.http.protocol.HttpContext;
 import org.jboss.resteasy.plugins.providers.multipart.InputPart;
 import org.jboss.resteasy.plugins.providers.multipart.MultipartFormDataInput;
 
@@ -99,11 +91,9 @@ public class CamundaUtils {
     entityBuilder.addBinaryBody(DATA, tempFile, ContentType.APPLICATION_XML, GAIANWORKFLOW + BPMN);
 
     HttpEntity entity = entityBuilder.build();
-    var httpPost = new HttpPost(camundaDeploymentUrl);
-    httpPost.setEntity(entity);
-    CloseableHttpClient httpClient = HttpClients.createDefault();
-    HttpContext context = new BasicHttpContext();
-    deploymentResponse = httpClient.execute(httpPost, context, this::getDeploymentResponse);
+    ApiResponseBody response = DynamicRestClient.await(
+      restClient.sendEntityAsync(camundaDeploymentUrl, POST, entity, Map.of()));
+    deploymentResponse = getDeploymentResponse(response);
     log.info("end of deployToCamunda method of CamundaHelperUtils class with deploymentResponse: {}",
       deploymentResponse);
     return deploymentResponse;
@@ -114,15 +104,13 @@ public class CamundaUtils {
    *
    * @param response The HTTP response.
    * @return The deployment response.
-   * @throws IOException    If there is an error while reading the response.
-   * @throws ParseException If there is an error while parsing the response.
+   * @throws IOException If there is an error while reading the response.
    */
-  private DeploymentResponse getDeploymentResponse(ClassicHttpResponse response) throws IOException, ParseException {
-    HttpEntity responseEntity = response.getEntity();
-    if (response.getCode() == HTTP_STATUS_CODE_200) {
-      return Config.OBJECT_MAPPER.readValue(EntityUtils.toString(responseEntity), DeploymentResponse.class);
+  private DeploymentResponse getDeploymentResponse(ApiResponseBody response) throws IOException {
+    if (response.getStatusCodeValue() == HTTP_STATUS_CODE_200) {
+      return Config.OBJECT_MAPPER.readValue(response.getBody(), DeploymentResponse.class);
     } else {
-      var errorResponse = EntityUtils.toString(responseEntity);
+      var errorResponse = response.getBody();
       Map<String, String> errorMessage = Config.OBJECT_MAPPER.readValue(errorResponse, Map.class);
       if (MapUtils.isEmpty(errorMessage)) {
         throw new ApiException(errorResponse);
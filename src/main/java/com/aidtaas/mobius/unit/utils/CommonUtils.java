@@ -11,9 +11,11 @@ import com.aidtaas.mobius.unit.constants.BobConstants;
 import com.aidtaas.mobius.unit.dto.InMemoryFile;
 import com.aidtaas.mobius.unit.dto.ScriptOperation;
 import com.aidtaas.mobius.unit.enums.ScriptSource;
+import com.aidtaas.mobius.unit.exception.DeadlineExceededException;
 import com.aidtaas.mobius.unit.exception.NonRetryableException;
 import com.aidtaas.mobius.unit.exception.StateLockException;
 import com.aidtaas.mobius.unit.handlers.TerraformHandler;
+import com.aidtaas.mobius.unit.worker.TaskDeadline;
 import com.aidtaas.mobius.error.services.exception.ObjectMappingException;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -27,7 +29,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.URI;
-import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -46,6 +47,7 @@ import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.hc.core5.http.HttpStatus;
 import org.camunda.bpm.client.task.ExternalTask;
+import org.camunda.bpm.client.task.ExternalTaskService;
 import org.camunda.bpm.engine.delegate.DelegateExecution;
 import org.camunda.bpm.engine.variable.value.FileValue;
 import org.camunda.bpm.engine.variable.value.TypedValue;
@@ -124,6 +126,24 @@ public final class CommonUtils {
     return retries - 1;
   }
 
+  /**
+   * Hands a task whose deadline ran out back to the engine without consuming a retry.
+   * If the lock has already expired the unlock fails and the task is simply left to expire.
+   *
+   * @param externalTask        the external task
+   * @param externalTaskService the external task service
+   * @param e                   the deadline exceeded exception
+   */
+  public static void handBack(ExternalTask externalTask, ExternalTaskService externalTaskService,
+                              DeadlineExceededException e) {
+    log.warn("Handing back task {}: {}", externalTask.getId(), e.getMessage());
+    try {
+      externalTaskService.unlock(externalTask);
+    } catch (RuntimeException unlockError) {
+      log.warn("Failed to unlock task {}: {}", externalTask.getId(), unlockError.getMessage());
+    }
+  }
+
   public static Map<String, Object> getStringObjectMap(String scriptVariables) {
     Map<String, Object> scriptVariablesMap;
 
@@ -227,14 +247,10 @@ public final class CommonUtils {
       .map(Object::toString)
       .map(Long::parseLong)
       .map(timeoutInSeconds -> timeoutInSeconds * BobConstants.SEC_TO_MS_MULTIPLIER)
-      .orElseGet(() -> {
-        Instant lockExpirationTime = scriptOperation.getExternalTask().getLockExpirationTime().toInstant();
-        Instant currentTime = Instant.now();
-        return lockExpirationTime.toEpochMilli() - currentTime.toEpochMilli();
-      });
+      .orElse(BobConstants.DEFAULT_SCRIPT_TIMEOUT);
 
     scriptOperation.setTimeoutDuration(timeoutDuration);
-    scriptOperation.getExternalTaskService().extendLock(scriptOperation.getExternalTask(), timeoutDuration);
+    extendLockForScript(scriptOperation, timeoutDuration);
 
     Map<String, Object> finalScriptVariables = extractScriptVariables(inputFields);
 
@@ -263,6 +279,24 @@ public final class CommonUtils {
       create, staticPath, finalScriptVariables);
   }
 
+  /**
+   * Extends the task lock once to cover the whole script when the lock heartbeat does not renew it,
+   * either because it is disabled or because a renewal failed. The completion reserve is added on
+   * top so that the script timeout is not cut short by the lock deadline.
+   *
+   * @param scriptOperation the script operation
+   * @param timeoutDuration the script timeout in milliseconds
+   */
+  private static void extendLockForScript(ScriptOperation scriptOperation, long timeoutDuration) {
+    TaskDeadline deadline = TaskDeadline.current();
+    if (deadline.isRenewed()) {
+      return;
+    }
+    long lockDuration = timeoutDuration + BobConstants.DEADLINE_RESERVE_MS;
+    scriptOperation.getExternalTaskService().extendLock(scriptOperation.getExternalTask(), lockDuration);
+    deadline.extended(System.currentTimeMillis() + lockDuration);
+  }
+
   private static String getRequiredField(Map<String, Object> inputFields, String key) {
     return Optional.ofNullable(inputFields.get(key))
       .map(Object::toString)
@@ -329,6 +363,7 @@ public final class CommonUtils {
     InputStream errorStream;
     ExecutorService executor;
     long timeoutMillis;
+    TaskDeadline.current().checkBudget("command " + command);
     try {
       channel = (ChannelExec) session.openChannel("exec");
       channel.setCommand(command);
@@ -337,7 +372,7 @@ public final class CommonUtils {
       errorStream = channel.getErrStream();
 
       executor = Executors.newFixedThreadPool(TerraformHandler.LOG_READER_THREAD_POOL);
-      timeoutMillis = scriptOperation.getTimeoutDuration();
+      timeoutMillis = TaskDeadline.current().timeoutMillis(scriptOperation.getTimeoutDuration());
 
       channel.connect();
     } catch (JSchException e) {
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+
+/**
+ * Resolves the entries of a group, such as the attributes of a field or the items of a brick, into a new map.
+ * Groups hold a handful of entries whose resolution is cheap, so they are walked sequentially, on the thread of
+ * the task, into a map sized for them up front.
+ */
+public final class GroupResolver {
+
+  private GroupResolver() {
+  }
+
+  /**
+   * Resolves every entry of a group and keeps the values the filter accepts.
+   *
+   * @param group    the entries to resolve
+   * @param resolver resolves the value of an entry from its key and value
+   * @param filter   accepts the resolved values to keep
+   * @param <K>      the key type
+   * @param <V>      the type of the values to resolve
+   * @param <R>      the type of the resolved values
+   * @return the resolved entries, mutable
+   */
+  public static <K, V, R> Map<K, R> resolve(Map<K, V> group, BiFunction<? super K, ? super V, ? extends R> resolver,
+                                            Predicate<? super R> filter) {
+    Map<K, R> resolved = HashMap.newHashMap(group.size());
+    group.forEach((K key, V value) -> {
+      R resolvedValue = resolver.apply(key, value);
+      if (filter.test(resolvedValue)) {
+        resolved.put(key, resolvedValue);
+      }
+    });
+    return resolved;
+  }
+}
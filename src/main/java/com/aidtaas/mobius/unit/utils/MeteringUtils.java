@@ -10,6 +10,7 @@ import com.aidtaas.mobius.unit.constants.BobConstants;
 import com.aidtaas.mobius.unit.dto.ApiMeteringDTO;
 import com.aidtaas.mobius.unit.dto.ApiOperation;
 import com.aidtaas.mobius.unit.dto.ApiResponseBody;
+import com.aidtaas.mobius.unit.dto.InMemoryFile;
 import com.aidtaas.mobius.unit.dto.JobStatusDTO;
 import com.aidtaas.mobius.unit.enums.Environment;
 import com.aidtaas.mobius.unit.grpc.ApiInformation;
@@ -18,8 +19,6 @@ import jakarta.ws.rs.core.MultivaluedMap;
 import java.io.ByteArrayInputStream;
 import java.time.Instant;
 import java.util.Map;
-import java.util.Objects;
-import java.util.concurrent.atomic.AtomicLong;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ObjectUtils;
 import org.camunda.bpm.client.task.ExternalTask;
@@ -37,6 +36,7 @@ import static java.util.UUID.randomUUID;
 @Slf4j
 public final class MeteringUtils {
 
+  private static final String FILE_INPUT = "fileInput";
 
   private MeteringUtils() {
   }
@@ -82,22 +82,34 @@ public final class MeteringUtils {
 
   private static void setFileSize(ExternalTask externalTask, ApiMeteringDTO apiMeteringDTO) {
 
-    var fileSizeInBytes = new AtomicLong(0L);
-
-    externalTask.getAllVariables().forEach((String key, Object value) -> {
-      if (Objects.equals(key, "fileInput")) {
-        log.info("File found in variable: {}", key);
-        ByteArrayInputStream file = (ByteArrayInputStream) value;
-        fileSizeInBytes.set(file.readAllBytes().length);
-      }
-    });
-
-    long size = fileSizeInBytes.get();
-    log.info("File size: {}", fileSizeInBytes);
+    long size = fileInputSize(externalTask);
+    log.info("File size: {}", size);
     apiMeteringDTO.setFileSizeInBytes(size);
 
   }
 
+  /**
+   * Returns the size of the file uploaded through the {@code fileInput} variable, without reading it.
+   *
+   * @param externalTask the external task
+   * @return the file size in bytes, 0 if there is no file
+   */
+  private static long fileInputSize(ExternalTask externalTask) {
+    Object fileInput = externalTask.getVariable(FILE_INPUT);
+    if (fileInput == null) {
+      return 0;
+    }
+    log.info("File found in variable: {}", FILE_INPUT);
+    if (fileInput instanceof ByteArrayInputStream file) {
+      // available() is the number of bytes left to read, so the stream stays untouched for the upload
+      return file.available();
+    }
+    if (fileInput instanceof InMemoryFile file) {
+      return file.getSize();
+    }
+    return 0;
+  }
+
 
   /**
    * Creates a new metering statistic.
@@ -148,37 +160,38 @@ public final class MeteringUtils {
       .setTenantType(getTenantType(apiOperation))
       .setTenantId(getValueOrDefault(apiOperation.getExecutorTenantId()))
       .setSource(apiOperation.getInput().getComponentId())
-      .setDataSize(setDataSize(externalTask, apiResponse.getHeaders()))
+      .setDataSize(setDataSize(externalTask, apiResponse))
       .setRequestType(headers.get(CONTENT_TYPE));
 
     return apiMeteringBuilder.build();
   }
   
-  private static long setDataSize(ExternalTask externalTask, MultivaluedMap<String, Object> headers) {
+  /**
+   * Computes the data size of a call: the size of a downloaded file plus the size of the file
+   * uploaded through the {@code fileInput} variable. Both sizes come from what is already known about
+   * the content, neither file is read to measure it.
+   *
+   * @param externalTask the external task
+   * @param apiResponse  the API response
+   * @return the data size in bytes
+   */
+  private static long setDataSize(ExternalTask externalTask, ApiResponseBody apiResponse) {
 
     long downloadFileSize = 0;
+    MultivaluedMap<String, Object> headers = apiResponse.getHeaders();
 
-    if(headers.containsKey("Content-Disposition")) {
-      String contentDisposition = headers.get("Content-Disposition").toString();
-      if(contentDisposition.contains("attachment")) {
-        downloadFileSize = Long.parseLong(headers.get("Content-Length").toString());
+    if (headers.containsKey(BobConstants.CONTENT_DISPOSITION)) {
+      String contentDisposition = headers.get(BobConstants.CONTENT_DISPOSITION).toString();
+      if (contentDisposition.contains("attachment")) {
+        downloadFileSize = apiResponse.getBodySize();
       }
-    } else if (headers.get(CONTENT_TYPE).toString().contains("application/octet-stream")) {
-      downloadFileSize = Long.parseLong(headers.get("Content-Length").toString());
+    } else if (String.valueOf(headers.getFirst(CONTENT_TYPE)).contains("application/octet-stream")) {
+      downloadFileSize = apiResponse.getBodySize();
     }
 
-    var fileSizeInBytes = new AtomicLong(0L);
-
-    externalTask.getAllVariables().forEach((String key, Object value) -> {
-      if (Objects.equals(key, "fileInput")) {
-        log.info("File found in variable: {}", key);
-        ByteArrayInputStream file = (ByteArrayInputStream) value;
-        fileSizeInBytes.set(file.readAllBytes().length);
-      }
-    });
-
-    long size = fileSizeInBytes.get()+downloadFileSize;
-    log.info("File size: {}", fileSizeInBytes);
+    long uploadFileSize = fileInputSize(externalTask);
+    long size = uploadFileSize + downloadFileSize;
+    log.info("File size: {}", uploadFileSize);
     return size;
   }
 
@@ -214,8 +227,8 @@ public final class MeteringUtils {
    * @return the API response body size
    */
   private static int getApiResponseBodySize(ApiResponseBody apiResponse) {
-    if (isResponseValid(apiResponse) && ObjectUtils.isNotEmpty(apiResponse.getBody())) {
-      return apiResponse.getBody().getBytes().length;
+    if (isResponseValid(apiResponse) && apiResponse.hasBody()) {
+      return (int) apiResponse.getBodySize();
     }
     return 0;
   }
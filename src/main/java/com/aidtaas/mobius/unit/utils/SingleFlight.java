@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.utils;
+
+import com.aidtaas.mobius.unit.exception.NonRetryableException;
+import com.aidtaas.mobius.unit.exception.RetryableException;
+import com.aidtaas.mobius.unit.worker.TaskDeadline;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Coalesces concurrent identical lookups.
+ * While the lookup of a key is in flight, callers asking for the same key wait for it instead of starting
+ * their own. The lookup runs apart from any caller, so it is not bound by the deadline of the task that
+ * started it; each caller waits at most its own timeout, and gets its own copy of a failure.
+ * Results are shared by every caller of a flight and must not be modified.
+ *
+ * @param <K> the key type
+ * @param <V> the result type
+ */
+@Slf4j
+public final class SingleFlight<K, V> {
+
+  private static final Executor FLIGHTS = Executors.newVirtualThreadPerTaskExecutor();
+
+  private final String name;
+
+  private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+  /**
+   * Creates a single-flight group.
+   *
+   * @param name what is looked up, for log and error messages
+   */
+  public SingleFlight(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Returns the result of the lookup of a key, joining the lookup in flight if there is one.
+   *
+   * @param key           the key
+   * @param lookup        looks the key up, called only when no lookup of the key is in flight
+   * @param timeoutMillis how long this caller waits, capped by the deadline of its task
+   * @return the result
+   * @throws RetryableException if the wait times out or the lookup failed with a retryable error
+   */
+  public V get(K key, Supplier<V> lookup, long timeoutMillis) {
+    CompletableFuture<V> started = new CompletableFuture<>();
+    CompletableFuture<V> flight = inFlight.putIfAbsent(key, started);
+    if (flight == null) {
+      flight = started;
+      FLIGHTS.execute(() -> run(key, lookup, started));
+    } else {
+      log.debug("Joining the {} lookup in flight", name);
+    }
+    return await(flight, timeoutMillis, name);
+  }
+
+  private void run(K key, Supplier<V> lookup, CompletableFuture<V> flight) {
+    try {
+      flight.complete(lookup.get());
+    } catch (RuntimeException e) {
+      flight.completeExceptionally(e);
+    } finally {
+      inFlight.remove(key, flight);
+    }
+  }
+
+  /**
+   * Waits for a shared lookup without cancelling it for the other callers.
+   *
+   * @param flight        the lookup
+   * @param timeoutMillis how long to wait, capped by the deadline of the current task
+   * @param what          what is looked up, for the error message
+   * @param <V>           the result type
+   * @return the result
+   * @throws RetryableException if the wait times out or the lookup failed with a retryable error
+   */
+  public static <V> V await(CompletableFuture<V> flight, long timeoutMillis, String what) {
+    long timeout = TaskDeadline.current().timeoutMillis(timeoutMillis);
+    try {
+      return flight.get(timeout, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      throw new RetryableException(String.format("Timed out after %d ms waiting for the %s lookup", timeout, what));
+    } catch (ExecutionException e) {
+      throw ownCopy(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RetryableException("Interrupted while waiting for the " + what + " lookup", e);
+    }
+  }
+
+  /**
+   * Copies the failure of a shared lookup, so callers do not rethrow the same instance concurrently.
+   * The copy keeps the type, status code and retry delay of the failure, and has it as its cause.
+   */
+  private static RuntimeException ownCopy(Throwable failure) {
+    RuntimeException copy;
+    if (failure instanceof RetryableException retryable) {
+      copy = new RetryableException(retryable.getMessage(), retryable.getStatusCode(), retryable.getRetryDelay());
+    } else if (failure instanceof NonRetryableException nonRetryable) {
+      copy = new NonRetryableException(nonRetryable.getMessage(), nonRetryable.getStatusCode());
+    } else {
+      return new NonRetryableException(String.valueOf(failure.getMessage()), failure);
+    }
+    copy.initCause(failure);
+    return copy;
+  }
+}
@@ -10,7 +10,6 @@ import com.aidtaas.mobius.unit.config.ConfigProperties;
 import com.aidtaas.mobius.unit.config.DynamicRestClient;
 import com.aidtaas.mobius.unit.config.URLResolver;
 import com.aidtaas.mobius.unit.constants.BobConstants;
-import com.aidtaas.mobius.unit.dto.ApiResponseBody;
 import jakarta.enterprise.context.ApplicationScoped;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -56,7 +55,7 @@ public class TfUtils {
   }
 
   /**
-   * Sends data to Terraform.
+   * Sends data to Terraform without waiting for the response.
    *
    * @param uri  the URI
    * @param body the body
@@ -70,13 +69,20 @@ public class TfUtils {
       entityList.add(body);
       Map<String, String> headers = new HashMap<>();
       headers.put(AUTHORIZATION, auth);
-      ApiResponseBody response = restService.makeApiCall(uri, entityList, "POST", headers);
-      log.info("Response from TF {}", response.getStatusCodeValue());
-      if (response.getStatusCodeValue() == HttpURLConnection.HTTP_CREATED) {
-        log.info("Posted the metering info to TF");
-      } else {
-        log.info("Unable to post the metering info to TF");
-      }
+      restService.makeApiCallAsync(uri, entityList, "POST", headers)
+        .whenComplete((response, e) -> {
+          if (e != null) {
+            log.error("Error in sending to TF: {}", e.getMessage());
+            return;
+          }
+          response.release();
+          log.info("Response from TF {}", response.getStatusCodeValue());
+          if (response.getStatusCodeValue() == HttpURLConnection.HTTP_CREATED) {
+            log.info("Posted the metering info to TF");
+          } else {
+            log.info("Unable to post the metering info to TF");
+          }
+        });
     } catch (Exception e) {
       log.error("Error in sending to TF: {}", e.getMessage());
     }
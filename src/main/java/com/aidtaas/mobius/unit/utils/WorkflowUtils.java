@@ -62,7 +62,7 @@ public class WorkflowUtils {
   public Workflow getLatestWorkflow(String url, String auth) {
     Map<String, String> headers = new LinkedHashMap<>();
     headers.put(AUTHORIZATION, auth);
-    ApiResponseBody apiResponseBody = restClient.makeApiCall(url, null, GET, headers);
+    ApiResponseBody apiResponseBody = DynamicRestClient.await(restClient.makeApiCallAsync(url, null, GET, headers));
     try {
       return Config.OBJECT_MAPPER.readValue(apiResponseBody.getBody(), Workflow.class);
     } catch (JsonProcessingException e) {
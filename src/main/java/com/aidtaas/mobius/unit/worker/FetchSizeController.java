@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.worker;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.Getter;
+
+/**
+ * Decides how many tasks of a topic the next fetch-and-lock may lock.
+ * A fetched task either starts in a free slot or waits in the topic's queue for one. The controller
+ * only fetches as many tasks as the topic can start within the lock budget, a safe share of the lock
+ * duration: free slots, plus the tasks the busy slots get through in that budget at the recent p50
+ * handler latency, minus the tasks already waiting. Without a lock heartbeat a task must also finish
+ * within the budget, so the time it may wait shrinks by the recent p95 latency; when nothing is left,
+ * only one task is fetched at a time and only into a free slot. The backlog never exceeds the
+ * in-flight limit, so once the queue holds that many tasks the topic is left out of the fetch.
+ * The size is capped by the topic's max tasks.
+ */
+public class FetchSizeController {
+
+  static final double LOCK_SAFETY_FACTOR = 0.8;
+
+  private static final int LATENCY_WINDOW_SIZE = 256;
+
+  @Getter
+  private final LatencyWindow latencies = new LatencyWindow(LATENCY_WINDOW_SIZE);
+
+  private final AtomicInteger lastFetchSize = new AtomicInteger();
+
+  private final AtomicInteger lastStartable = new AtomicInteger();
+
+  /**
+   * Computes the fetch size of the next poll cycle.
+   *
+   * @param freeSlots    the free in-flight slots of the topic
+   * @param queued       the tasks of the topic waiting for a slot
+   * @param maxInFlight  the in-flight limit of the topic
+   * @param maxTasks     the upper bound of tasks per fetch
+   * @param lockDuration the lock duration of the topic in milliseconds
+   * @param lockRenewed  whether locks of accepted tasks are kept alive by the heartbeat
+   * @return the fetch size, zero when the topic is saturated
+   */
+  public int decide(int freeSlots, int queued, int maxInFlight, int maxTasks, long lockDuration,
+                    boolean lockRenewed) {
+    long budget = (long) (lockDuration * LOCK_SAFETY_FACTOR);
+    long waitBudget = lockRenewed ? budget : budget - latencies.percentile(0.95);
+    int free = Math.max(0, freeSlots);
+    int room;
+    if (waitBudget <= 0) {
+      lastStartable.set(0);
+      room = Math.min(1, free - queued);
+    } else {
+      int startable = startableWithin(waitBudget, maxInFlight);
+      lastStartable.set(startable);
+      room = free + startable - queued;
+    }
+    int fetchSize = Math.max(0, Math.min(maxTasks, room));
+    lastFetchSize.set(fetchSize);
+    return fetchSize;
+  }
+
+  public int lastFetchSize() {
+    return lastFetchSize.get();
+  }
+
+  /**
+   * Returns how many waiting tasks the last decision expected the topic to start within the lock budget.
+   *
+   * @return the startable backlog
+   */
+  public int lastStartable() {
+    return lastStartable.get();
+  }
+
+  /**
+   * Returns how many tasks the busy slots get through within the given time, at most one round of
+   * the in-flight limit. Before any latency is known a full round is assumed.
+   */
+  private int startableWithin(long waitBudget, int maxInFlight) {
+    long p50 = latencies.percentile(0.5);
+    if (p50 <= 0) {
+      return maxInFlight;
+    }
+    return (int) Math.min(maxInFlight, maxInFlight * waitBudget / p50);
+  }
+}
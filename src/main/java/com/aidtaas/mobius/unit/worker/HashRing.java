@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.worker;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Immutable consistent-hash ring over the live worker pods.
+ * Every pod is placed on the ring at a number of virtual points, so that keys spread evenly and
+ * a pod joining or leaving only moves the keys of its own segments.
+ */
+public final class HashRing {
+
+  private static final int VIRTUAL_NODES = 64;
+
+  private final NavigableMap<Long, String> ring = new TreeMap<>();
+
+  private final Set<String> members;
+
+  public HashRing(Collection<String> members) {
+    this.members = Set.copyOf(new TreeSet<>(members));
+    for (String member : this.members) {
+      for (int i = 0; i < VIRTUAL_NODES; i++) {
+        ring.put(hash(member + "#" + i), member);
+      }
+    }
+  }
+
+  /**
+   * Returns the pod owning the key.
+   *
+   * @param key the affinity key
+   * @return the owning pod, or null when the ring is empty
+   */
+  public String ownerOf(String key) {
+    if (ring.isEmpty()) {
+      return null;
+    }
+    Map.Entry<Long, String> entry = ring.ceilingEntry(hash(key));
+    return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+  }
+
+  public Set<String> getMembers() {
+    return members;
+  }
+
+  private static long hash(String value) {
+    try {
+      byte[] digest = MessageDigest.getInstance("MD5").digest(value.getBytes(StandardCharsets.UTF_8));
+      return ByteBuffer.wrap(digest).getLong();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("MD5 is not available", e);
+    }
+  }
+}
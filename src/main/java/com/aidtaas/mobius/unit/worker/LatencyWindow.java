@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.worker;
+
+import java.util.Arrays;
+
+/**
+ * Sliding window over the most recent handler latencies of a topic.
+ */
+public class LatencyWindow {
+
+  private final long[] samples;
+
+  private int next;
+
+  private int size;
+
+  public LatencyWindow(int capacity) {
+    this.samples = new long[capacity];
+  }
+
+  /**
+   * Records a handler latency, overwriting the oldest sample once the window is full.
+   *
+   * @param millis the latency in milliseconds
+   */
+  public synchronized void record(long millis) {
+    samples[next] = millis;
+    next = (next + 1) % samples.length;
+    size = Math.min(size + 1, samples.length);
+  }
+
+  /**
+   * Returns the given percentile of the recorded latencies.
+   *
+   * @param quantile the quantile, between 0 and 1
+   * @return the latency in milliseconds, or zero when nothing was recorded yet
+   */
+  public synchronized long percentile(double quantile) {
+    if (size == 0) {
+      return 0;
+    }
+    long[] sorted = Arrays.copyOf(samples, size);
+    Arrays.sort(sorted);
+    int index = (int) Math.ceil(quantile * size) - 1;
+    return sorted[Math.max(0, Math.min(index, size - 1))];
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.worker;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.client.task.ExternalTask;
+import org.camunda.bpm.client.task.ExternalTaskService;
+
+/**
+ * Central lock-extension heartbeat for all in-flight external tasks of the pod.
+ * A task is tracked from the moment its handler starts until the handler returns, which is when
+ * it has been completed, failed or unlocked. On every tick the tasks whose lock has less than half
+ * of its duration left are renewed, the most urgent first, at most one batch per tick.
+ * Topics can therefore run with short lock durations: a crashed pod stops renewing and its tasks
+ * become available to other workers quickly, while long terraform or ansible runs keep their lock.
+ * Each renewal moves the task's {@link TaskDeadline}; a failed renewal marks it as no longer renewable.
+ */
+@Slf4j
+public class LockHeartbeat {
+
+  private final Map<String, TrackedLock> locks = new ConcurrentHashMap<>();
+
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+    Thread.ofPlatform().name("lock-heartbeat").daemon().factory());
+
+  private final int batchSize;
+
+  public LockHeartbeat(long interval, int batchSize) {
+    this.batchSize = batchSize;
+    scheduler.scheduleWithFixedDelay(this::renew, interval, interval, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Starts renewing the lock of the task.
+   *
+   * @param externalTask        the external task
+   * @param externalTaskService the external task service
+   * @param lockDuration        the lock duration used for each renewal
+   * @param deadline            the deadline of the task, moved on every renewal
+   */
+  public void track(ExternalTask externalTask, ExternalTaskService externalTaskService, long lockDuration,
+                    TaskDeadline deadline) {
+    long expiresAt = externalTask.getLockExpirationTime() != null
+      ? externalTask.getLockExpirationTime().getTime()
+      : System.currentTimeMillis() + lockDuration;
+    locks.put(externalTask.getId(), new TrackedLock(externalTask.getId(), externalTaskService, lockDuration,
+      deadline, expiresAt));
+  }
+
+  /**
+   * Stops renewing the lock of the task.
+   *
+   * @param taskId the task id
+   */
+  public void untrack(String taskId) {
+    locks.remove(taskId);
+  }
+
+  /**
+   * Returns the number of tasks whose lock is currently renewed.
+   *
+   * @return the tracked task count
+   */
+  public int tracked() {
+    return locks.size();
+  }
+
+  /**
+   * Stops the heartbeat. Locks that are still tracked simply expire.
+   */
+  public void stop() {
+    scheduler.shutdownNow();
+  }
+
+  private void renew() {
+    long now = System.currentTimeMillis();
+    List<TrackedLock> due = locks.values().stream()
+      .filter(lock -> lock.expiresAt() - now <= lock.lockDuration() / 2)
+      .sorted(Comparator.comparingLong(TrackedLock::expiresAt))
+      .limit(batchSize)
+      .toList();
+
+    for (TrackedLock lock : due) {
+      try {
+        long renewedAt = System.currentTimeMillis();
+        lock.externalTaskService().extendLock(lock.taskId(), lock.lockDuration());
+        lock.deadline().renewed(renewedAt + lock.lockDuration());
+        locks.computeIfPresent(lock.taskId(), (id, current) -> current.renewed(renewedAt));
+      } catch (Exception e) {
+        log.warn("Failed to extend lock of task {}, no longer renewing it: {}", lock.taskId(), e.getMessage());
+        lock.deadline().renewalFailed();
+        locks.remove(lock.taskId());
+      }
+    }
+
+    if (!due.isEmpty()) {
+      log.debug("Extended {} task locks, {} tracked", due.size(), locks.size());
+    }
+  }
+
+  private record TrackedLock(String taskId, ExternalTaskService externalTaskService, long lockDuration,
+                             TaskDeadline deadline, long expiresAt) {
+
+    TrackedLock renewed(long now) {
+      return new TrackedLock(taskId, externalTaskService, lockDuration, deadline, now + lockDuration);
+    }
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.worker;
+
+import lombok.Getter;
+import org.camunda.bpm.client.impl.ExternalTaskClientBuilderImpl;
+
+/**
+ * Builds an external task client backed by a {@link MultiTopicPoller} instead of the stock
+ * subscription manager.
+ */
+public class MultiTopicClientBuilder extends ExternalTaskClientBuilderImpl {
+
+  private final long idleWait;
+
+  @Getter
+  private MultiTopicPoller poller;
+
+  public MultiTopicClientBuilder(long idleWait) {
+    this.idleWait = idleWait;
+  }
+
+  @Override
+  protected void initEngineClient() {
+    var requestExecutor = new PollerRequestExecutor(httpClientBuilder.build(), objectMapper);
+    engineClient = new PollerEngineClient(workerId, maxTasks, asyncResponseTimeout, baseUrl, requestExecutor,
+      usePriority, orderingConfig);
+  }
+
+  @Override
+  protected void initTopicSubscriptionManager() {
+    poller = new MultiTopicPoller((PollerEngineClient) engineClient, typedValues, lockDuration, idleWait);
+    topicSubscriptionManager = poller;
+    topicSubscriptionManager.setBackoffStrategy(getBackoffStrategy());
+
+    if (isBackoffStrategyDisabled) {
+      topicSubscriptionManager.disableBackoffStrategy();
+    }
+
+    if (isAutoFetchingEnabled()) {
+      topicSubscriptionManager.start();
+    }
+  }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.worker;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.client.task.ExternalTask;
+import org.camunda.bpm.client.task.ExternalTaskHandler;
+import org.camunda.bpm.client.topic.impl.TopicSubscriptionManager;
+import org.camunda.bpm.client.topic.impl.dto.FetchAndLockResponseDto;
+import org.camunda.bpm.client.topic.impl.dto.TopicRequestDto;
+import org.camunda.bpm.client.variable.impl.TypedValues;
+
+/**
+ * Single poller for every subscribed topic of the pod.
+ * Each cycle issues one long-polling fetch-and-lock request that covers only the topics whose
+ * {@link TopicDispatcher} can take work. The batch size is the sum of the topic shares.
+ * The engine only knows a global {@code maxTasks}, so tasks that go past a topic's share are
+ * unlocked again straight away and can be picked up by another pod or by the next cycle.
+ * Each request uses the current lock duration of the topic's dispatcher, which may have been
+ * changed at runtime. With a {@link TaskAffinity} set, tasks owned by another pod may be handed
+ * back; handed-back tasks are counted by reason.
+ */
+@Slf4j
+public class MultiTopicPoller extends TopicSubscriptionManager {
+
+  private final PollerEngineClient pollerEngineClient;
+
+  private final long idleWait;
+
+  private final int defaultShare;
+
+  private final Map<String, AtomicLong> handedBack = new ConcurrentHashMap<>();
+
+  private final AtomicBoolean saturated = new AtomicBoolean();
+
+  private final AtomicBoolean draining = new AtomicBoolean();
+
+  @Setter
+  private TaskAffinity taskAffinity;
+
+  public MultiTopicPoller(PollerEngineClient engineClient, TypedValues typedValues, long clientLockDuration,
+                          long idleWait) {
+    super(engineClient, typedValues, clientLockDuration);
+    this.pollerEngineClient = engineClient;
+    this.idleWait = idleWait;
+    this.defaultShare = engineClient.getMaxTasks();
+  }
+
+  @Override
+  protected void acquire() {
+    if (draining.get()) {
+      suspend(idleWait);
+      return;
+    }
+
+    taskTopicRequests.clear();
+    externalTaskHandlers.clear();
+    subscriptions.forEach(this::prepareAcquisition);
+
+    Map<String, Integer> shares = new HashMap<>();
+    List<TopicRequestDto> requests = new ArrayList<>(taskTopicRequests.size());
+    for (TopicRequestDto request : taskTopicRequests) {
+      int share = shareOf(request.getTopicName());
+      if (share > 0) {
+        shares.put(request.getTopicName(), share);
+        requests.add(withCurrentLockDuration(request));
+      }
+    }
+
+    saturated.set(requests.isEmpty());
+    if (requests.isEmpty()) {
+      suspend(idleWait);
+      return;
+    }
+
+    pollerEngineClient.setMaxTasks(shares.values().stream().mapToInt(Integer::intValue).sum());
+    FetchAndLockResponseDto response = fetchAndLock(requests);
+    response.getExternalTasks().forEach(externalTask -> route(externalTask, shares));
+
+    if (!isBackoffStrategyDisabled.get()) {
+      runBackoffStrategy(response);
+    }
+  }
+
+  /**
+   * Wakes the poller up when it is idle because every topic was saturated.
+   */
+  public void wakeUp() {
+    resume();
+  }
+
+  /**
+   * Stops fetching right away. Tasks returned by a fetch that is still in progress are unlocked
+   * instead of being executed.
+   */
+  public void drain() {
+    draining.set(true);
+  }
+
+  /**
+   * Tells whether the last poll cycle skipped fetching because no topic had room.
+   *
+   * @return true when the poller is paused by saturation
+   */
+  public boolean isSaturated() {
+    return saturated.get();
+  }
+
+  /**
+   * Returns the number of fetched tasks unlocked again for a reason.
+   *
+   * @param reason overflow, no-handler, draining or affinity
+   * @return the count since start
+   */
+  public long handedBackCount(String reason) {
+    AtomicLong count = handedBack.get(reason);
+    return count != null ? count.get() : 0;
+  }
+
+  private int shareOf(String topicName) {
+    ExternalTaskHandler handler = externalTaskHandlers.get(topicName);
+    if (handler instanceof TopicDispatcher dispatcher) {
+      return dispatcher.fetchShare();
+    }
+    return defaultShare;
+  }
+
+  private TopicRequestDto withCurrentLockDuration(TopicRequestDto request) {
+    if (!(externalTaskHandlers.get(request.getTopicName()) instanceof TopicDispatcher dispatcher)
+      || dispatcher.getLockDuration() == request.getLockDuration()) {
+      return request;
+    }
+    var updated = new TopicRequestDto(request.getTopicName(), dispatcher.getLockDuration(), request.getVariables(),
+      request.getBusinessKey());
+    updated.setLocalVariables(request.isLocalVariables());
+    updated.setProcessDefinitionId(request.getProcessDefinitionId());
+    updated.setProcessDefinitionIdIn(request.getProcessDefinitionIdIn());
+    updated.setProcessDefinitionKey(request.getProcessDefinitionKey());
+    updated.setProcessDefinitionKeyIn(request.getProcessDefinitionKeyIn());
+    updated.setProcessDefinitionVersionTag(request.getProcessDefinitionVersionTag());
+    updated.setProcessVariables(request.getProcessVariables());
+    updated.setWithoutTenantId(request.isWithoutTenantId());
+    updated.setTenantIdIn(request.getTenantIdIn());
+    updated.setIncludeExtensionProperties(request.isIncludeExtensionProperties());
+    return updated;
+  }
+
+  private void route(ExternalTask externalTask, Map<String, Integer> shares) {
+    int remaining = shares.merge(externalTask.getTopicName(), -1, Integer::sum);
+    ExternalTaskHandler handler = externalTaskHandlers.get(externalTask.getTopicName());
+    if (draining.get()) {
+      handBack(externalTask, "draining");
+    } else if (handler == null) {
+      handBack(externalTask, "no-handler");
+    } else if (remaining < 0) {
+      handBack(externalTask, "overflow");
+    } else if (taskAffinity != null && handler instanceof TopicDispatcher dispatcher
+      && !taskAffinity.shouldTake(externalTask, dispatcher)) {
+      handBack(externalTask, "affinity");
+    } else {
+      handleExternalTask(externalTask, handler);
+    }
+  }
+
+  private void handBack(ExternalTask externalTask, String reason) {
+    log.debug("Handing back task {} of topic {}: {}", externalTask.getId(), externalTask.getTopicName(), reason);
+    handedBack.computeIfAbsent(reason, r -> new AtomicLong()).incrementAndGet();
+    try {
+      engineClient.unlock(externalTask.getId());
+    } catch (RuntimeException e) {
+      log.error("Failed to unlock task {}: {}", externalTask.getId(), e.getMessage());
+    }
+  }
+}
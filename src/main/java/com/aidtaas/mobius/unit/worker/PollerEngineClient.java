@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.worker;
+
+import org.camunda.bpm.client.impl.EngineClient;
+import org.camunda.bpm.client.impl.RequestExecutor;
+import org.camunda.bpm.client.task.OrderingConfig;
+
+/**
+ * Engine client whose fetch-and-lock batch size can be changed between two fetches.
+ * The stock client fixes {@code maxTasks} when it is built.
+ */
+public class PollerEngineClient extends EngineClient {
+
+  public PollerEngineClient(String workerId, int maxTasks, Long asyncResponseTimeout, String baseUrl,
+                            RequestExecutor engineInteraction, boolean usePriority, OrderingConfig orderingConfig) {
+    super(workerId, maxTasks, asyncResponseTimeout, baseUrl, engineInteraction, usePriority, orderingConfig);
+  }
+
+  /**
+   * Sets the number of tasks requested by the next fetch-and-lock call.
+   * Only the polling thread calls this, right before it fetches.
+   *
+   * @param maxTasks the batch size
+   */
+  public void setMaxTasks(int maxTasks) {
+    this.maxTasks = maxTasks;
+  }
+
+  public int getMaxTasks() {
+    return maxTasks;
+  }
+}
@@ -0,0 +1,21 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.worker;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.hc.client5.http.classic.HttpClient;
+import org.camunda.bpm.client.impl.RequestExecutor;
+
+/**
+ * Exposes the constructor of the client's {@link RequestExecutor} so that the poller can build
+ * its own {@link PollerEngineClient}.
+ */
+public class PollerRequestExecutor extends RequestExecutor {
+
+  public PollerRequestExecutor(HttpClient httpClient, ObjectMapper objectMapper) {
+    super(httpClient, objectMapper);
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.worker;
+
+import com.aidtaas.mobius.unit.constants.BobConstants;
+import com.aidtaas.mobius.unit.enums.AffinityMode;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.camunda.bpm.client.task.ExternalTask;
+
+/**
+ * Sticky routing of tasks to worker pods.
+ * A task's process instance or tenant is hashed onto the {@link HashRing} of live pods. The pod
+ * owning the key executes the task, so the consecutive bricks of a process instance hit the same
+ * pod-local caches. A fetched task owned by another pod is handed back so that its owner can
+ * fetch it, unless this topic is idle or the task has already been handed back once by this
+ * pod. The second rule bounds the extra delay to one poll cycle when the owner is busy.
+ */
+public class TaskAffinity {
+
+  private static final int MAX_DEFERRED = 10_000;
+
+  private static final Duration DEFERRED_TTL = Duration.ofMinutes(5);
+
+  private final WorkerMembership membership;
+
+  private final String podId;
+
+  private final AffinityMode mode;
+
+  private final Map<String, Boolean> deferred = Caffeine.newBuilder()
+    .maximumSize(MAX_DEFERRED)
+    .expireAfterWrite(DEFERRED_TTL)
+    .<String, Boolean>build()
+    .asMap();
+
+  private final AtomicLong owned = new AtomicLong();
+
+  private final AtomicLong fallback = new AtomicLong();
+
+  private final AtomicLong handedBack = new AtomicLong();
+
+  public TaskAffinity(WorkerMembership membership, String podId, AffinityMode mode) {
+    this.membership = membership;
+    this.podId = podId;
+    this.mode = mode;
+  }
+
+  /**
+   * Decides whether this pod executes the task.
+   *
+   * @param externalTask the external task
+   * @param dispatcher   the dispatcher of the task's topic
+   * @return false if the task should be handed back to its owner
+   */
+  public boolean shouldTake(ExternalTask externalTask, TopicDispatcher dispatcher) {
+    String owner = membership.ring().ownerOf(keyOf(externalTask));
+    if (owner == null || owner.equals(podId)) {
+      owned.incrementAndGet();
+      return true;
+    }
+    if (isIdle(dispatcher) || deferred.remove(externalTask.getId()) != null) {
+      fallback.incrementAndGet();
+      return true;
+    }
+    deferred.put(externalTask.getId(), Boolean.TRUE);
+    handedBack.incrementAndGet();
+    return false;
+  }
+
+  public long ownedCount() {
+    return owned.get();
+  }
+
+  public long fallbackCount() {
+    return fallback.get();
+  }
+
+  public long handedBackCount() {
+    return handedBack.get();
+  }
+
+  public int liveMembers() {
+    return membership.ring().getMembers().size();
+  }
+
+  private String keyOf(ExternalTask externalTask) {
+    if (mode == AffinityMode.TENANT) {
+      Object tenant = externalTask.getVariable(BobConstants.TENANT_ID_GLOBAL);
+      if (tenant != null) {
+        return tenant.toString();
+      }
+    }
+    return externalTask.getProcessInstanceId();
+  }
+
+  private static boolean isIdle(TopicDispatcher dispatcher) {
+    return dispatcher.queued() == 0 && dispatcher.freeSlots() * 2 >= dispatcher.getMaxInFlight();
+  }
+}
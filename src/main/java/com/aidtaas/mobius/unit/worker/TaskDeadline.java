@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.worker;
+
+import com.aidtaas.mobius.unit.constants.BobConstants;
+import com.aidtaas.mobius.unit.exception.DeadlineExceededException;
+import org.camunda.bpm.client.task.ExternalTask;
+
+/**
+ * Time budget of an external task, derived from its lock expiration time.
+ * The {@link TopicDispatcher} binds the deadline to the thread running the handler, so the config
+ * fetch, the Vault read, outbound HTTP and SSH calls and the completion can consult
+ * {@link #current()} without it being passed down the call chain.
+ * While the {@link LockHeartbeat} renews the lock the deadline moves with it and outbound timeouts
+ * are left as configured; once the lock can no longer be renewed, timeouts are capped by the time
+ * left and steps that cannot finish before the lock expires are not started.
+ * The checks only apply until the handler marks that its side effects have started: from then on
+ * the task is carried through to its outcome, which the engine rejects if the lock was lost, rather
+ * than handed back to be executed a second time.
+ * Tasks without a lock, such as in-process delegate executions, have no deadline.
+ */
+public final class TaskDeadline {
+
+  public static final TaskDeadline NONE = new TaskDeadline(Long.MAX_VALUE, true);
+
+  private static final ThreadLocal<TaskDeadline> CURRENT = new ThreadLocal<>();
+
+  private volatile long expiresAt;
+
+  private volatile boolean renewable;
+
+  private volatile boolean sideEffectsStarted;
+
+  private TaskDeadline(long expiresAt, boolean renewable) {
+    this.expiresAt = expiresAt;
+    this.renewable = renewable;
+  }
+
+  /**
+   * Creates the deadline of a task from its lock expiration time.
+   *
+   * @param externalTask the external task
+   * @param renewable    whether the lock is renewed by the heartbeat
+   * @return the deadline, {@link #NONE} if the task has no lock
+   */
+  public static TaskDeadline of(ExternalTask externalTask, boolean renewable) {
+    if (externalTask.getLockExpirationTime() == null) {
+      return NONE;
+    }
+    return new TaskDeadline(externalTask.getLockExpirationTime().getTime(), renewable);
+  }
+
+  /**
+   * Returns the deadline of the task handled by the current thread.
+   *
+   * @return the deadline, {@link #NONE} outside a task
+   */
+  public static TaskDeadline current() {
+    TaskDeadline deadline = CURRENT.get();
+    return deadline != null ? deadline : NONE;
+  }
+
+  static void bind(TaskDeadline deadline) {
+    CURRENT.set(deadline);
+  }
+
+  static void unbind() {
+    CURRENT.remove();
+  }
+
+  /**
+   * Returns the time left before the lock expires.
+   *
+   * @return the remaining time in milliseconds
+   */
+  public long remainingMillis() {
+    return this == NONE ? Long.MAX_VALUE : expiresAt - System.currentTimeMillis();
+  }
+
+  /**
+   * Returns true while the {@link LockHeartbeat} keeps the lock alive, or when the task has no lock.
+   *
+   * @return whether the lock is renewed
+   */
+  public boolean isRenewed() {
+    return renewable;
+  }
+
+  /**
+   * Records a lock extension made by the handler itself, so timeouts are capped by the new expiry.
+   *
+   * @param newExpiresAt the new lock expiration time in epoch milliseconds
+   */
+  public void extended(long newExpiresAt) {
+    renewed(newExpiresAt);
+  }
+
+  /**
+   * Returns true once the lock has expired, renewed or not.
+   *
+   * @return whether the deadline has passed
+   */
+  public boolean isExpired() {
+    return remainingMillis() <= 0;
+  }
+
+  /**
+   * Checks the budget one last time before the task changes state outside the worker, then stops
+   * the budget and lock checks from failing; timeouts are still capped.
+   *
+   * @param step the side-effecting step about to start, for the error message
+   * @throws DeadlineExceededException if the budget is insufficient
+   */
+  public void startSideEffects(String step) {
+    checkBudget(step);
+    if (this != NONE) {
+      sideEffectsStarted = true;
+    }
+  }
+
+  /**
+   * Caps a configured timeout so that the call ends before the lock does, keeping back the time
+   * needed to report the outcome. The timeout is returned unchanged while the lock is renewed.
+   *
+   * @param configuredMillis the configured timeout in milliseconds
+   * @return the timeout to use in milliseconds
+   */
+  public long timeoutMillis(long configuredMillis) {
+    if (renewable) {
+      return configuredMillis;
+    }
+    return Math.max(1, Math.min(configuredMillis, remainingMillis() - BobConstants.DEADLINE_RESERVE_MS));
+  }
+
+  /**
+   * Fails fast if the time left cannot cover a step and the completion after it. While the lock is
+   * renewed the heartbeat extends the budget, so only a lock that has already lapsed fails the check.
+   *
+   * @param step the step about to start, for the error message
+   * @throws DeadlineExceededException if the budget is insufficient
+   */
+  public void checkBudget(String step) {
+    if (renewable) {
+      checkLock(step);
+    } else if (!sideEffectsStarted && remainingMillis() <= BobConstants.DEADLINE_RESERVE_MS) {
+      throw new DeadlineExceededException(String.format("Not starting %s, task lock expires in %d ms", step,
+        remainingMillis()));
+    }
+  }
+
+  /**
+   * Fails fast if the lock has already expired, in which case the engine would reject the outcome.
+   * This also holds while the heartbeat is on, when a lapsed lock means the renewals fell behind.
+   *
+   * @param step the step about to start, for the error message
+   * @throws DeadlineExceededException if the lock has expired
+   */
+  public void checkLock(String step) {
+    if (!sideEffectsStarted && isExpired()) {
+      throw new DeadlineExceededException(String.format("Not starting %s, task lock expired %d ms ago", step,
+        -remainingMillis()));
+    }
+  }
+
+  void renewed(long newExpiresAt) {
+    if (this != NONE) {
+      expiresAt = newExpiresAt;
+    }
+  }
+
+  void renewalFailed() {
+    if (this != NONE) {
+      renewable = false;
+    }
+  }
+}
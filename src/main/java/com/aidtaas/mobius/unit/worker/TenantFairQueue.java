@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.worker;
+
+import com.aidtaas.mobius.unit.config.Config;
+import com.aidtaas.mobius.unit.constants.BobConstants;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ObjLongConsumer;
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.client.task.ExternalTask;
+import org.camunda.bpm.client.task.ExternalTaskService;
+
+/**
+ * Weighted-fair queue between fetch-and-lock and execution.
+ * Tasks are grouped in lanes keyed by tenant, or by tenant and product. Lanes are served by
+ * stride scheduling: the eligible lane with the smallest pass value goes next and its pass grows by
+ * {@code 1 / weight}, so over time each lane gets execution slots in proportion to its weight.
+ * A lane is not eligible while it runs as many tasks as its concurrency cap. A new lane starts at
+ * the current virtual time, so an idle tenant cannot build up credit. A lane never queues more
+ * tasks than its cap, which stops one tenant from filling the dispatcher with waiting work.
+ */
+@Slf4j
+public class TenantFairQueue {
+
+  public static final String DEFAULT_KEY = "default";
+
+  private static final String UNKNOWN_TENANT = "unknown";
+
+  private final Map<String, Lane> lanes = new HashMap<>();
+
+  private final Map<String, Integer> weights;
+
+  private final Map<String, Integer> caps;
+
+  private final boolean byProduct;
+
+  private final ObjLongConsumer<String> waitRecorder;
+
+  private double virtualTime;
+
+  private int size;
+
+  public TenantFairQueue(Map<String, Integer> weights, Map<String, Integer> caps, boolean byProduct,
+                         ObjLongConsumer<String> waitRecorder) {
+    this.weights = weights;
+    this.caps = caps;
+    this.byProduct = byProduct;
+    this.waitRecorder = waitRecorder;
+  }
+
+  /**
+   * Returns the fairness key of the task: its tenant, followed by the product id of the activity
+   * when fairness is applied per product.
+   *
+   * @param externalTask the external task
+   * @return the fairness key
+   */
+  public String keyOf(ExternalTask externalTask) {
+    Object tenant = externalTask.getVariable(BobConstants.TENANT_ID_GLOBAL);
+    String key = tenant != null ? tenant.toString() : UNKNOWN_TENANT;
+    if (!byProduct) {
+      return key;
+    }
+    String productId = productIdOf(externalTask);
+    return productId != null ? key + BobConstants.PATH_DELIMITER + productId : key;
+  }
+
+  /**
+   * Queues a task in the lane of its key.
+   *
+   * @param task the task
+   * @return false if the lane already holds as many waiting tasks as its cap
+   */
+  public synchronized boolean offer(QueuedTask task) {
+    Lane lane = lanes.computeIfAbsent(task.key(), key -> new Lane(settingOf(weights, key), settingOf(caps, key),
+      virtualTime));
+    if (lane.waiting.size() >= lane.cap) {
+      return false;
+    }
+    lane.waiting.addLast(task);
+    size++;
+    return true;
+  }
+
+  /**
+   * Takes the next task to execute, or null when no lane is eligible.
+   *
+   * @return the next task
+   */
+  public synchronized QueuedTask poll() {
+    Lane next = null;
+    for (Lane lane : lanes.values()) {
+      if (!lane.waiting.isEmpty() && lane.running < lane.cap && (next == null || lane.pass < next.pass)) {
+        next = lane;
+      }
+    }
+    if (next == null) {
+      return null;
+    }
+
+    QueuedTask task = next.waiting.pollFirst();
+    size--;
+    next.running++;
+    virtualTime = next.pass;
+    next.pass += 1.0 / next.weight;
+    waitRecorder.accept(task.key(), System.currentTimeMillis() - task.enqueuedAt());
+    return task;
+  }
+
+  /**
+   * Marks a task taken by {@link #poll()} as finished and drops lanes that became idle.
+   *
+   * @param key the key of the task
+   */
+  public synchronized void done(String key) {
+    Lane lane = lanes.get(key);
+    if (lane == null) {
+      return;
+    }
+    lane.running--;
+    if (lane.running <= 0 && lane.waiting.isEmpty()) {
+      lanes.remove(key);
+    }
+  }
+
+  public synchronized int size() {
+    return size;
+  }
+
+  private static String productIdOf(ExternalTask externalTask) {
+    Object inputs = externalTask.getVariable(String.format(BobConstants.INPUT_KEY_FORMAT,
+      externalTask.getActivityId()));
+    if (inputs == null) {
+      return null;
+    }
+    try {
+      JsonNode componentId = Config.OBJECT_MAPPER.readTree(inputs.toString()).get(BobConstants.COMPONENT_ID);
+      return componentId != null && !componentId.isNull() ? componentId.asText() : null;
+    } catch (Exception e) {
+      log.debug("No product id for task {}: {}", externalTask.getId(), e.getMessage());
+      return null;
+    }
+  }
+
+  private static int settingOf(Map<String, Integer> settings, String key) {
+    String tenant = key.split(BobConstants.PATH_DELIMITER, 2)[0];
+    Integer value = settings.getOrDefault(key, settings.getOrDefault(tenant, settings.get(DEFAULT_KEY)));
+    return value == null || value <= 0 ? Integer.MAX_VALUE : value;
+  }
+
+  /**
+   * A task waiting for execution.
+   *
+   * @param externalTask        the external task
+   * @param externalTaskService the external task service
+   * @param key                 the fairness key, tenant or tenant/product
+   * @param enqueuedAt          the time the task was queued
+   */
+  public record QueuedTask(ExternalTask externalTask, ExternalTaskService externalTaskService, String key,
+                           long enqueuedAt) {
+  }
+
+  private static final class Lane {
+
+    private final Deque<QueuedTask> waiting = new ArrayDeque<>();
+
+    private final int weight;
+
+    private final int cap;
+
+    private double pass;
+
+    private int running;
+
+    private Lane(int weight, int cap, double pass) {
+      this.weight = weight;
+      this.cap = cap;
+      this.pass = pass;
+    }
+  }
+}
@@ -0,0 +1,329 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.worker;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.camunda.bpm.client.task.ExternalTask;
+import org.camunda.bpm.client.task.ExternalTaskHandler;
+import org.camunda.bpm.client.task.ExternalTaskService;
+
+/**
+ * Per-topic executor of the {@link MultiTopicPoller}.
+ * Every task is run on its own virtual thread, while a semaphore caps the number of tasks of the
+ * topic that may run at the same time. Accepted tasks wait in a {@link TenantFairQueue}, and each
+ * free slot goes to the task the queue picks next, so that one tenant flooding the topic cannot
+ * starve the others of execution slots. The poller asks {@link #fetchShare()} how many tasks of
+ * the topic it may lock in the next fetch; the answer comes from the topic's
+ * {@link FetchSizeController}, which leaves room for a backlog the topic can start within the lock
+ * budget, so the queue has tenants to choose between while a saturated topic is still left out of
+ * the request. From acceptance until the handler returns, the
+ * {@link LockHeartbeat}, when enabled, keeps the task's lock alive. The handler runs with the
+ * task's {@link TaskDeadline} bound to its thread.
+ * Limits, lock duration and the paused state can be changed at runtime; changes apply to the
+ * next poll cycle and, for the in-flight limit, to the next task accepted.
+ */
+@Slf4j
+public class TopicDispatcher implements ExternalTaskHandler {
+
+  @Getter
+  private final String topicName;
+
+  @Getter
+  private volatile int maxTasks;
+
+  @Getter
+  private volatile int maxInFlight;
+
+  @Getter
+  private volatile long lockDuration;
+
+  @Getter
+  private volatile boolean paused;
+
+  private final ExternalTaskHandler handler;
+
+  private final ResizableSemaphore slots;
+
+  private final ExecutorService executor;
+
+  private final LockHeartbeat lockHeartbeat;
+
+  @Getter
+  private final TenantFairQueue queue;
+
+  private final Map<String, RunningTask> running = new ConcurrentHashMap<>();
+
+  @Getter
+  private final FetchSizeController fetchSizeController = new FetchSizeController();
+
+  @Setter
+  private Runnable onSlotReleased = () -> { };
+
+  public TopicDispatcher(String topicName, ExternalTaskHandler handler, int maxTasks, int maxInFlight,
+                         long lockDuration, LockHeartbeat lockHeartbeat, TenantFairQueue queue) {
+    this.topicName = topicName;
+    this.handler = handler;
+    this.maxTasks = maxTasks;
+    this.maxInFlight = maxInFlight;
+    this.lockDuration = lockDuration;
+    this.lockHeartbeat = lockHeartbeat;
+    this.queue = queue;
+    this.slots = new ResizableSemaphore(maxInFlight);
+    this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(topicName + "-", 0).factory());
+  }
+
+  /**
+   * Queues the task in the lane of its tenant and starts whatever the queue lets through next.
+   * If the tenant already has as many tasks waiting as it may run, the task is unlocked so that it
+   * can be fetched again, by this or another pod.
+   *
+   * @param externalTask        the external task
+   * @param externalTaskService the external task service
+   */
+  @Override
+  public void execute(ExternalTask externalTask, ExternalTaskService externalTaskService) {
+    var queued = new TenantFairQueue.QueuedTask(externalTask, externalTaskService, queue.keyOf(externalTask),
+      System.currentTimeMillis());
+    var deadline = TaskDeadline.of(externalTask, lockHeartbeat != null);
+    running.put(externalTask.getId(), new RunningTask(externalTask, externalTaskService, deadline));
+    if (lockHeartbeat != null) {
+      lockHeartbeat.track(externalTask, externalTaskService, lockDuration, deadline);
+    }
+    if (!queue.offer(queued)) {
+      log.debug("Tenant {} has too many queued tasks in topic {}", queued.key(), topicName);
+      untrack(externalTask);
+      release(externalTask, externalTaskService);
+      return;
+    }
+    dispatchNext();
+  }
+
+  /**
+   * Returns how many tasks of this topic may be locked by the next fetch.
+   *
+   * @return the fetch share, zero when the topic is saturated
+   */
+  public int fetchShare() {
+    if (paused) {
+      return 0;
+    }
+    return fetchSizeController.decide(slots.availablePermits(), queue.size(), maxInFlight, maxTasks, lockDuration,
+      lockHeartbeat != null);
+  }
+
+  /**
+   * Changes the number of tasks of this topic that may be in flight. When shrinking, running tasks
+   * are left alone and new tasks are accepted again once enough of them have finished.
+   *
+   * @param newMaxInFlight the new in-flight limit
+   */
+  public synchronized void setMaxInFlight(int newMaxInFlight) {
+    int delta = newMaxInFlight - maxInFlight;
+    maxInFlight = newMaxInFlight;
+    if (delta > 0) {
+      slots.release(delta);
+      dispatchNext();
+      onSlotReleased.run();
+    } else if (delta < 0) {
+      slots.reducePermits(-delta);
+    }
+  }
+
+  /**
+   * Changes the upper bound of tasks of this topic locked per fetch.
+   *
+   * @param maxTasks the new fetch size bound
+   */
+  public void setMaxTasks(int maxTasks) {
+    this.maxTasks = maxTasks;
+  }
+
+  /**
+   * Changes the lock duration used for fetching and renewing tasks of this topic. Tasks that are
+   * already tracked keep the duration they were accepted with.
+   *
+   * @param lockDuration the new lock duration in milliseconds
+   */
+  public void setLockDuration(long lockDuration) {
+    this.lockDuration = lockDuration;
+  }
+
+  /**
+   * Stops fetching tasks of this topic. Tasks already accepted are still executed.
+   */
+  public void pause() {
+    paused = true;
+  }
+
+  /**
+   * Resumes fetching tasks of this topic.
+   */
+  public void resume() {
+    paused = false;
+    onSlotReleased.run();
+  }
+
+  /**
+   * Returns the number of free in-flight slots of this topic.
+   *
+   * @return the free slot count
+   */
+  public int freeSlots() {
+    return Math.max(0, slots.availablePermits());
+  }
+
+  /**
+   * Returns the number of tasks of this topic that are currently queued or being executed.
+   *
+   * @return the in-flight task count
+   */
+  public int inFlight() {
+    return running.size();
+  }
+
+  /**
+   * Returns the number of accepted tasks of this topic waiting for their tenant's turn.
+   *
+   * @return the queued task count
+   */
+  public int queued() {
+    return queue.size();
+  }
+
+  /**
+   * Stops accepting new tasks. Tasks that are already running are left to finish.
+   */
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+  /**
+   * Waits for the running tasks to finish.
+   *
+   * @param deadline the wall-clock time in milliseconds after which to stop waiting
+   * @return true if every task finished before the deadline
+   */
+  public boolean awaitTermination(long deadline) {
+    try {
+      return executor.awaitTermination(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return executor.isTerminated();
+    }
+  }
+
+  /**
+   * Unlocks every task that is still queued or running so that another pod can pick it up immediately,
+   * then interrupts the handlers. The unlock comes first: a handler reacting to the interrupt can
+   * no longer fail or complete a task it does not own.
+   *
+   * @return the number of tasks handed back
+   */
+  public int handBackRunning() {
+    int handedBack = 0;
+    for (RunningTask task : running.values()) {
+      if (lockHeartbeat != null) {
+        lockHeartbeat.untrack(task.externalTask().getId());
+      }
+      release(task.externalTask(), task.externalTaskService());
+      handedBack++;
+    }
+    executor.shutdownNow();
+    return handedBack;
+  }
+
+  /**
+   * Hands each free slot to the task the queue picks next. Serialized, so a slot taken for an
+   * empty pick is given back before a concurrent caller looks for one.
+   */
+  private synchronized void dispatchNext() {
+    while (slots.tryAcquire()) {
+      TenantFairQueue.QueuedTask task = queue.poll();
+      if (task == null) {
+        slots.release();
+        return;
+      }
+      try {
+        executor.execute(() -> run(task));
+      } catch (RejectedExecutionException e) {
+        queue.done(task.key());
+        finish(task.externalTask());
+        release(task.externalTask(), task.externalTaskService());
+      }
+    }
+  }
+
+  private void run(TenantFairQueue.QueuedTask task) {
+    ExternalTask externalTask = task.externalTask();
+    long start = System.currentTimeMillis();
+    RunningTask runningTask = running.get(externalTask.getId());
+    TaskDeadline deadline = runningTask != null ? runningTask.deadline() : TaskDeadline.NONE;
+    TaskDeadline.bind(deadline);
+    try {
+      if (deadline.isExpired()) {
+        // The lock ran out while the task waited, the engine hands it out again
+        log.warn("Lock of task {} of topic {} expired while queued, skipping it", externalTask.getId(), topicName);
+      } else {
+        handler.execute(externalTask, task.externalTaskService());
+      }
+    } catch (Exception e) {
+      log.error("Unhandled error in {} for task {}: {}", topicName, externalTask.getId(), e.getMessage(), e);
+    } finally {
+      TaskDeadline.unbind();
+      fetchSizeController.getLatencies().record(System.currentTimeMillis() - start);
+      queue.done(task.key());
+      finish(externalTask);
+      dispatchNext();
+    }
+  }
+
+  private void finish(ExternalTask externalTask) {
+    untrack(externalTask);
+    slots.release();
+    onSlotReleased.run();
+  }
+
+  private void untrack(ExternalTask externalTask) {
+    running.remove(externalTask.getId());
+    if (lockHeartbeat != null) {
+      lockHeartbeat.untrack(externalTask.getId());
+    }
+  }
+
+  private void release(ExternalTask externalTask, ExternalTaskService externalTaskService) {
+    log.warn("Handing back task {} of topic {}, unlocking it", externalTask.getId(), topicName);
+    try {
+      externalTaskService.unlock(externalTask);
+    } catch (Exception e) {
+      log.error("Failed to unlock task {}: {}", externalTask.getId(), e.getMessage());
+    }
+  }
+
+  private static final class ResizableSemaphore extends Semaphore {
+
+    private ResizableSemaphore(int permits) {
+      super(permits);
+    }
+
+    @Override
+    protected void reducePermits(int reduction) {
+      super.reducePermits(reduction);
+    }
+  }
+
+  private record RunningTask(ExternalTask externalTask, ExternalTaskService externalTaskService,
+                             TaskDeadline deadline) {
+  }
+}
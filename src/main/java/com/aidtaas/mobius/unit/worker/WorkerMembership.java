@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.worker;
+
+import com.aidtaas.mobius.unit.config.Config;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.cache.Cache;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Membership of the worker pods, kept in the shared Redis cache.
+ * Every pod periodically writes its own heartbeat into a single entry holding all members and
+ * drops members whose heartbeat is older than the member TTL. Updates use compare-and-swap on
+ * that entry, so concurrent pods never overwrite each other. The {@link HashRing} is rebuilt
+ * whenever the set of live pods changes. If Redis cannot be reached the last known ring is kept;
+ * before the first successful heartbeat the ring only holds this pod.
+ */
+@Slf4j
+public class WorkerMembership {
+
+  static final String MEMBERS_KEY = "bob:worker:members";
+
+  private static final int MAX_UPDATE_ATTEMPTS = 5;
+
+  private static final TypeReference<Map<String, Long>> MEMBERS_TYPE = new TypeReference<>() {
+  };
+
+  private final Cache<String, String> cache;
+
+  private final String podId;
+
+  private final long memberTtl;
+
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+    Thread.ofPlatform().name("worker-membership").daemon().factory());
+
+  private volatile HashRing ring;
+
+  public WorkerMembership(Cache<String, String> cache, String podId, long interval, long memberTtl) {
+    this.cache = cache;
+    this.podId = podId;
+    this.memberTtl = memberTtl;
+    this.ring = new HashRing(Set.of(podId));
+    scheduler.scheduleWithFixedDelay(this::heartbeat, 0, interval, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Returns the current ring of live pods.
+   *
+   * @return the hash ring
+   */
+  public HashRing ring() {
+    return ring;
+  }
+
+  /**
+   * Stops the heartbeat and removes this pod, so that its keys move to the other pods right away.
+   */
+  public void leave() {
+    scheduler.shutdownNow();
+    try {
+      update(false);
+    } catch (RuntimeException e) {
+      log.warn("Failed to leave worker membership, {} will expire: {}", podId, e.getMessage());
+    }
+  }
+
+  private void heartbeat() {
+    try {
+      update(true);
+    } catch (RuntimeException e) {
+      log.warn("Failed to refresh worker membership, keeping {} members: {}", ring.getMembers().size(),
+        e.getMessage());
+    }
+  }
+
+  private void update(boolean join) {
+    for (int attempt = 0; attempt < MAX_UPDATE_ATTEMPTS; attempt++) {
+      long now = System.currentTimeMillis();
+      String current = cache.get(MEMBERS_KEY);
+      Map<String, Long> members = read(current);
+      members.values().removeIf(lastSeen -> lastSeen < now - memberTtl);
+      if (join) {
+        members.put(podId, now);
+      } else {
+        members.remove(podId);
+      }
+
+      String next = write(members);
+      boolean updated = current == null
+        ? cache.putIfAbsent(MEMBERS_KEY, next)
+        : cache.replace(MEMBERS_KEY, current, next);
+      if (updated) {
+        if (join && !members.keySet().equals(ring.getMembers())) {
+          ring = new HashRing(members.keySet());
+          log.info("Worker membership changed, {} live pods: {}", members.size(), members.keySet());
+        }
+        return;
+      }
+    }
+    log.debug("Worker membership entry is contended, retrying on the next heartbeat");
+  }
+
+  private static Map<String, Long> read(String value) {
+    if (value == null) {
+      return new HashMap<>();
+    }
+    try {
+      return new HashMap<>(Config.OBJECT_MAPPER.readValue(value, MEMBERS_TYPE));
+    } catch (JsonProcessingException e) {
+      log.warn("Discarding unreadable worker membership entry: {}", e.getMessage());
+      return new HashMap<>();
+    }
+  }
+
+  private static String write(Map<String, Long> members) {
+    try {
+      return Config.OBJECT_MAPPER.writeValueAsString(members);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Failed to write worker membership", e);
+    }
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.worker;
+
+import com.aidtaas.mobius.unit.constants.BobConstants;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * This class registers the Micrometer gauges of the external task worker.
+ */
+public final class WorkerMetrics {
+
+  public static final String TOPIC_TAG = "topic";
+
+  public static final String TENANT_TAG = "tenant";
+
+  public static final String OTHER_TENANTS = "other";
+
+  private WorkerMetrics() {
+  }
+
+  /**
+   * Registers the gauge exposing the poller state and the counters of the tasks it handed back.
+   *
+   * @param registry the meter registry
+   * @param poller   the poller
+   */
+  public static void registerPoller(MeterRegistry registry, MultiTopicPoller poller) {
+    registry.gauge("bob.worker.fetch.saturated", Tags.empty(), poller, p -> p.isSaturated() ? 1 : 0);
+    for (String reason : List.of("overflow", "no-handler", "draining", "affinity")) {
+      FunctionCounter.builder("bob.worker.fetch.handed.back", poller, p -> p.handedBackCount(reason))
+        .tag("reason", reason)
+        .register(registry);
+    }
+  }
+
+  /**
+   * Registers the gauge exposing the number of task locks kept alive by the heartbeat.
+   *
+   * @param registry      the meter registry
+   * @param lockHeartbeat the lock heartbeat
+   */
+  public static void registerLockHeartbeat(MeterRegistry registry, LockHeartbeat lockHeartbeat) {
+    registry.gauge("bob.worker.lock.tracked", Tags.empty(), lockHeartbeat, LockHeartbeat::tracked);
+  }
+
+  /**
+   * Registers the gauges exposing how fetched tasks were routed by the affinity mode.
+   *
+   * @param registry     the meter registry
+   * @param taskAffinity the task affinity
+   */
+  public static void registerAffinity(MeterRegistry registry, TaskAffinity taskAffinity) {
+    registry.gauge("bob.worker.affinity.members", Tags.empty(), taskAffinity, TaskAffinity::liveMembers);
+    registry.gauge("bob.worker.affinity.tasks", Tags.of("outcome", "owned"), taskAffinity,
+      TaskAffinity::ownedCount);
+    registry.gauge("bob.worker.affinity.tasks", Tags.of("outcome", "fallback"), taskAffinity,
+      TaskAffinity::fallbackCount);
+    registry.gauge("bob.worker.affinity.tasks", Tags.of("outcome", "handed-back"), taskAffinity,
+      TaskAffinity::handedBackCount);
+  }
+
+  /**
+   * Registers the gauges exposing the fetch-size decisions, the inputs they are based on and the
+   * runtime-adjustable limits of the topic.
+   *
+   * @param registry   the meter registry
+   * @param dispatcher the topic dispatcher
+   */
+  public static void registerTopic(MeterRegistry registry, TopicDispatcher dispatcher) {
+    Tags tags = Tags.of(TOPIC_TAG, dispatcher.getTopicName());
+    registry.gauge("bob.worker.fetch.size", tags, dispatcher,
+      d -> d.getFetchSizeController().lastFetchSize());
+    registry.gauge("bob.worker.fetch.startable", tags, dispatcher,
+      d -> d.getFetchSizeController().lastStartable());
+    registry.gauge("bob.worker.slots.free", tags, dispatcher, TopicDispatcher::freeSlots);
+    registry.gauge("bob.worker.in.flight", tags, dispatcher, TopicDispatcher::inFlight);
+    registry.gauge("bob.worker.tenant.queued", tags, dispatcher, TopicDispatcher::queued);
+    registry.gauge("bob.worker.max.in.flight", tags, dispatcher, TopicDispatcher::getMaxInFlight);
+    registry.gauge("bob.worker.max.tasks", tags, dispatcher, TopicDispatcher::getMaxTasks);
+    registry.gauge("bob.worker.lock.duration", tags, dispatcher, TopicDispatcher::getLockDuration);
+    registry.gauge("bob.worker.paused", tags, dispatcher, d -> d.isPaused() ? 1 : 0);
+    registry.gauge("bob.worker.handler.latency.p50", tags, dispatcher,
+      d -> d.getFetchSizeController().getLatencies().percentile(0.5));
+    registry.gauge("bob.worker.handler.latency.p95", tags, dispatcher,
+      d -> d.getFetchSizeController().getLatencies().percentile(0.95));
+    registry.gauge("bob.worker.lock.headroom", tags, dispatcher,
+      d -> d.getLockDuration() - d.getFetchSizeController().getLatencies().percentile(0.95));
+  }
+
+  /**
+   * Returns a recorder of the time tasks spend in the tenant-fair queue of a topic. Tenants with a
+   * configured weight or cap get a timer of their own; every other tenant, and the product part of
+   * the fairness key, is left out under the tenant {@value #OTHER_TENANTS}, so tenant ids seen at
+   * runtime cannot grow the number of series.
+   *
+   * @param registry          the meter registry
+   * @param topicName         the topic name
+   * @param configuredTenants the tenants with a configured weight or cap
+   * @return the queue-wait recorder taking the fairness key and the wait in milliseconds
+   */
+  public static ObjLongConsumer<String> queueWaitRecorder(MeterRegistry registry, String topicName,
+                                                          Set<String> configuredTenants) {
+    Map<String, Timer> timers = new ConcurrentHashMap<>();
+    return (key, waitMillis) -> {
+      String tenant = key.split(BobConstants.PATH_DELIMITER, 2)[0];
+      String tag = configuredTenants.contains(tenant) ? tenant : OTHER_TENANTS;
+      timers.computeIfAbsent(tag, t -> Timer.builder("bob.worker.tenant.queue.wait")
+          .tags(TOPIC_TAG, topicName, TENANT_TAG, t)
+          .register(registry))
+        .record(waitMillis, TimeUnit.MILLISECONDS);
+    };
+  }
+}
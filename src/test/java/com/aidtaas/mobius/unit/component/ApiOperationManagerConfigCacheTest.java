@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.component;
+
+import com.aidtaas.mobius.unit.config.ConfigProperties;
+import com.aidtaas.mobius.unit.config.DynamicRestClient;
+import com.aidtaas.mobius.unit.config.URLResolver;
+import com.aidtaas.mobius.unit.constants.BobConstants;
+import com.aidtaas.mobius.unit.dto.ApiResponseBody;
+import com.aidtaas.mobius.unit.exception.NonRetryableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ApiOperationManagerConfigCacheTest {
+
+  private static final String CONFIG_URL = "https://marketplace.example.com/master-configs/m1";
+
+  private static final String USER_AUTH = "Bearer user";
+
+  private static final String OTHER_AUTH = "Bearer someone-else";
+
+  private static final String SERVICE_AUTH = "Bearer service";
+
+  private static final String ETAG = "\"v1\"";
+
+  @Mock
+  DynamicRestClient restTemplate;
+
+  @Mock
+  URLResolver urlResolver;
+
+  @Mock
+  ConfigProperties config;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    when(urlResolver.constructUrl(any(), any(), any())).thenReturn(CONFIG_URL);
+    when(config.productConfigCacheMaxSize()).thenReturn(100);
+    when(config.productConfigCacheTtl()).thenReturn(60000L);
+    when(config.singleFlightTimeout()).thenReturn(5000L);
+  }
+
+  private ApiOperationManager manager(long refresh, Optional<String> serviceAuthorization) {
+    when(config.productConfigCacheRefresh()).thenReturn(refresh);
+    when(config.marketplaceServiceAuthorization()).thenReturn(serviceAuthorization);
+    var manager = new ApiOperationManager(restTemplate, urlResolver, config, new SimpleMeterRegistry());
+    manager.init();
+    return manager;
+  }
+
+  private static CompletableFuture<ApiResponseBody> response(int statusCode, String body, String etag) {
+    var response = ApiResponseBody.builder().statusCodeValue(statusCode).body(body).build();
+    if (etag != null) {
+      response.getHeaders().add(HttpHeaders.ETAG, etag);
+    }
+    return CompletableFuture.completedFuture(response);
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<Map<String, String>> sentHeaders(int calls) {
+    ArgumentCaptor<Map<String, String>> headers = ArgumentCaptor.forClass(Map.class);
+    verify(restTemplate, timeout(5000).times(calls)).makeApiCallAsync(anyString(), isNull(), eq("GET"),
+      headers.capture());
+    return headers.getAllValues();
+  }
+
+  private static int valueOf(ApiOperationManager manager, String auth) {
+    return manager.retrieveProductConfigForSpecificApis("p1", "m1", "items#get", auth).read("$.value");
+  }
+
+  @Test
+  void testShouldRevalidateConditionallyWithTheServiceAuthorization() throws InterruptedException {
+    when(restTemplate.makeApiCallAsync(anyString(), isNull(), eq("GET"), anyMap()))
+      .thenReturn(response(200, "{\"value\":1}", ETAG))
+      .thenReturn(response(BobConstants.HTTP_STATUS_CODE_304, null, ETAG));
+    var manager = manager(1, Optional.of(SERVICE_AUTH));
+
+    assertEquals(1, valueOf(manager, USER_AUTH));
+    Thread.sleep(20);
+    assertEquals(1, valueOf(manager, USER_AUTH));
+
+    List<Map<String, String>> sent = sentHeaders(2);
+    assertEquals(USER_AUTH, sent.get(0).get(BobConstants.AUTHORIZATION));
+    assertEquals(SERVICE_AUTH, sent.get(1).get(BobConstants.AUTHORIZATION));
+    assertEquals(ETAG, sent.get(1).get(HttpHeaders.IF_NONE_MATCH));
+    assertEquals(1, valueOf(manager, USER_AUTH));
+  }
+
+  @Test
+  void testShouldRevalidateConditionallyWithTheCallersAuthorizationWithoutAServiceAuthorization()
+    throws InterruptedException {
+    when(restTemplate.makeApiCallAsync(anyString(), isNull(), eq("GET"), anyMap()))
+      .thenReturn(response(200, "{\"value\":1}", ETAG))
+      .thenReturn(response(BobConstants.HTTP_STATUS_CODE_304, null, ETAG));
+    var manager = manager(200, Optional.empty());
+
+    assertEquals(1, valueOf(manager, USER_AUTH));
+    Thread.sleep(300);
+    assertEquals(1, valueOf(manager, USER_AUTH));
+
+    List<Map<String, String>> sent = sentHeaders(2);
+    assertEquals(USER_AUTH, sent.get(1).get(BobConstants.AUTHORIZATION));
+    assertEquals(ETAG, sent.get(1).get(HttpHeaders.IF_NONE_MATCH));
+  }
+
+  @Test
+  void testShouldServeACachedConfigWithinTheGrantWithoutAskingAgain() {
+    when(restTemplate.makeApiCallAsync(anyString(), isNull(), eq("GET"), anyMap()))
+      .thenReturn(response(200, "{\"value\":1}", ETAG));
+    var manager = manager(60000, Optional.empty());
+
+    valueOf(manager, USER_AUTH);
+    valueOf(manager, USER_AUTH);
+
+    verify(restTemplate, times(1)).makeApiCallAsync(anyString(), isNull(), eq("GET"), anyMap());
+  }
+
+  @Test
+  void testShouldCheckAnotherAuthorizationConditionallyBeforeServingTheCachedConfig() {
+    when(restTemplate.makeApiCallAsync(anyString(), isNull(), eq("GET"), anyMap()))
+      .thenReturn(response(200, "{\"value\":1}", ETAG))
+      .thenReturn(response(BobConstants.HTTP_STATUS_CODE_304, null, ETAG));
+    var manager = manager(60000, Optional.empty());
+
+    assertEquals(1, valueOf(manager, USER_AUTH));
+    assertEquals(1, valueOf(manager, OTHER_AUTH));
+    assertEquals(1, valueOf(manager, OTHER_AUTH));
+
+    List<Map<String, String>> sent = sentHeaders(2);
+    assertEquals(OTHER_AUTH, sent.get(1).get(BobConstants.AUTHORIZATION));
+    assertEquals(ETAG, sent.get(1).get(HttpHeaders.IF_NONE_MATCH));
+  }
+
+  @Test
+  void testShouldNotServeTheCachedConfigToAnAuthorizationTheMarketplaceRefuses() {
+    when(restTemplate.makeApiCallAsync(anyString(), isNull(), eq("GET"), anyMap()))
+      .thenReturn(response(200, "{\"value\":1}", ETAG))
+      .thenReturn(CompletableFuture.failedFuture(new NonRetryableException("Forbidden", 403)));
+    var manager = manager(60000, Optional.empty());
+
+    assertEquals(1, valueOf(manager, USER_AUTH));
+    assertThrows(NonRetryableException.class, () -> valueOf(manager, OTHER_AUTH));
+    assertEquals(1, valueOf(manager, USER_AUTH));
+
+    verify(restTemplate, times(2)).makeApiCallAsync(anyString(), isNull(), eq("GET"), anyMap());
+  }
+
+  @Test
+  void testShouldHandEachCallerItsOwnCopyOfTheConfig() {
+    when(restTemplate.makeApiCallAsync(anyString(), isNull(), eq("GET"), anyMap()))
+      .thenReturn(response(200, "{\"value\":1}", ETAG));
+    var manager = manager(60000, Optional.empty());
+
+    manager.retrieveProductConfigForSpecificApis("p1", "m1", "items#get", USER_AUTH).set("$.value", 5);
+
+    assertEquals(1, valueOf(manager, USER_AUTH));
+  }
+}
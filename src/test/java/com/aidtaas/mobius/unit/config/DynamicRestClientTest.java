@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.config;
+
+import com.aidtaas.mobius.unit.constants.BobConstants;
+import com.aidtaas.mobius.unit.dto.ApiResponseBody;
+import com.aidtaas.mobius.unit.exception.NonRetryableException;
+import com.aidtaas.mobius.unit.exception.RetryableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.utils.DateUtils;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.nio.AsyncRequestProducer;
+import org.apache.hc.core5.http.nio.AsyncResponseConsumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DynamicRestClientTest {
+
+  private static final String HOST = "product.example.com";
+
+  private static final String URL = "https://" + HOST + "/items";
+
+  @Mock
+  CloseableHttpAsyncClient httpClient;
+
+  @Mock
+  ConfigProperties config;
+
+  private final List<FutureCallback<ApiResponseBody>> callbacks = new CopyOnWriteArrayList<>();
+
+  private final List<Future<ApiResponseBody>> exchanges = new CopyOnWriteArrayList<>();
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private EndpointGuards endpointGuards;
+
+  private DynamicRestClient restClient;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    when(config.bulkheadMaxConcurrent()).thenReturn(2);
+    when(config.circuitBreakerWindowSize()).thenReturn(10);
+    when(config.circuitBreakerMinimumCalls()).thenReturn(10);
+    when(config.circuitBreakerFailureRate()).thenReturn(50);
+    when(config.restClientConnectTimeout()).thenReturn(5);
+    when(config.restClientReadTimeout()).thenReturn(5);
+    when(config.responseSpillThreshold()).thenReturn(1024);
+    when(config.restClientCompression()).thenReturn(Map.of("product", true));
+    when(config.hedgePercentile()).thenReturn(0.95);
+    when(config.hedgeMinSamples()).thenReturn(0);
+    when(config.hedgeMinDelay()).thenReturn(0L);
+    when(config.restClientMaxRetries()).thenReturn(0);
+    when(httpClient.execute(any(AsyncRequestProducer.class), any(AsyncResponseConsumer.class),
+      any(FutureCallback.class))).thenAnswer(invocation -> {
+        callbacks.add(invocation.getArgument(2));
+        Future<ApiResponseBody> exchange = mock(Future.class);
+        exchanges.add(exchange);
+        return exchange;
+      });
+
+    meterRegistry = new SimpleMeterRegistry();
+    var connectionPools = new HttpConnectionPools(config, meterRegistry, null);
+    endpointGuards = new EndpointGuards(config, meterRegistry, connectionPools);
+    endpointGuards.init();
+    var retryBudget = new RetryBudget(config, meterRegistry);
+    retryBudget.init();
+    restClient = new DynamicRestClient(httpClient, config, meterRegistry, connectionPools, endpointGuards,
+      retryBudget);
+  }
+
+  private static ApiResponseBody response(int statusCode) {
+    return ApiResponseBody.builder().statusCodeValue(statusCode).build();
+  }
+
+  private CompletableFuture<ApiResponseBody> hedgedCall() {
+    var call = restClient.makeApiCallAsync(URL, null, "GET", Map.of(), true).toCompletableFuture();
+    verify(httpClient, timeout(5000).times(2)).execute(any(AsyncRequestProducer.class),
+      any(AsyncResponseConsumer.class), any(FutureCallback.class));
+    return call;
+  }
+
+  private long hedgeSamples() {
+    return meterRegistry.get("bob.http.client.hedge.latency").tag(EndpointGuards.ENDPOINT_TAG, HOST).timer().count();
+  }
+
+  @Test
+  void testShouldReleaseTheGuardOfTheHedgeThatLost() {
+    var call = hedgedCall();
+
+    callbacks.get(1).completed(response(200));
+
+    assertEquals(200, call.join().getStatusCodeValue());
+    verify(exchanges.get(0)).cancel(true);
+    // Both bulkhead permits are free again, the cancelled primary did not keep its own
+    var first = assertDoesNotThrow(() -> endpointGuards.acquire(HOST));
+    var second = assertDoesNotThrow(() -> endpointGuards.acquire(HOST));
+    first.release(false);
+    second.release(false);
+  }
+
+  @Test
+  void testShouldReleaseAResponseArrivingAfterTheCancellation() {
+    var call = hedgedCall();
+    callbacks.get(1).completed(response(200));
+    call.join();
+
+    ApiResponseBody late = mock(ApiResponseBody.class);
+    callbacks.get(0).completed(late);
+
+    verify(late, times(1)).release();
+  }
+
+  @Test
+  void testShouldRecordTheLatencyOfTheRequestThatLostTheRace() {
+    var call = hedgedCall();
+
+    callbacks.get(1).completed(response(200));
+    call.join();
+
+    assertEquals(2, hedgeSamples());
+  }
+
+  @Test
+  void testShouldRecordTheLatencyOfAFailedRequest() {
+    var call = hedgedCall();
+
+    callbacks.get(0).failed(new IOException("connection reset"));
+    callbacks.get(1).completed(response(200));
+
+    assertEquals(200, call.join().getStatusCodeValue());
+    assertEquals(2, hedgeSamples());
+  }
+
+  @Test
+  void testShouldReleaseTheGuardWhenTheExchangeIsCancelled() {
+    var call = restClient.makeApiCallAsync(URL, null, "GET", Map.of()).toCompletableFuture();
+    verify(httpClient).execute(any(AsyncRequestProducer.class), any(AsyncResponseConsumer.class),
+      any(FutureCallback.class));
+
+    callbacks.get(0).cancelled();
+
+    assertThrows(CompletionException.class, call::join);
+    var first = assertDoesNotThrow(() -> endpointGuards.acquire(HOST));
+    var second = assertDoesNotThrow(() -> endpointGuards.acquire(HOST));
+    first.release(false);
+    second.release(false);
+  }
+
+  @Test
+  void testShouldPassOnTheRetryAfterSecondsOfAnOverloadedEndpoint() {
+    var call = restClient.makeApiCallAsync(URL, null, "GET", Map.of()).toCompletableFuture();
+    var overloaded = response(BobConstants.HTTP_STATUS_CODE_503);
+    overloaded.getHeaders().add(HttpHeaders.RETRY_AFTER, "120");
+    callbacks.get(0).completed(overloaded);
+
+    var failure = assertThrows(RetryableException.class, () -> DynamicRestClient.await(call));
+    assertEquals(120000, failure.getRetryDelay());
+  }
+
+  @Test
+  void testShouldPassOnTheRetryAfterDateOfAnOverloadedEndpoint() {
+    var call = restClient.makeApiCallAsync(URL, null, "GET", Map.of()).toCompletableFuture();
+    var overloaded = response(BobConstants.HTTP_STATUS_CODE_429);
+    overloaded.getHeaders().add(HttpHeaders.RETRY_AFTER, DateUtils.formatStandardDate(Instant.now().plusSeconds(60)));
+    callbacks.get(0).completed(overloaded);
+
+    var failure = assertThrows(RetryableException.class, () -> DynamicRestClient.await(call));
+    assertTrue(failure.getRetryDelay() > 55000 && failure.getRetryDelay() <= 60000,
+      "retry delay: " + failure.getRetryDelay());
+  }
+
+  @Test
+  void testShouldReadTheErrorBodyOffTheThreadCompletingTheExchange() {
+    var call = restClient.makeApiCallAsync(URL, null, "GET", Map.of()).toCompletableFuture();
+    AtomicReference<Thread> reader = new AtomicReference<>();
+    ApiResponseBody notFound = mock(ApiResponseBody.class);
+    when(notFound.getStatusCodeValue()).thenReturn(404);
+    when(notFound.hasBody()).thenReturn(true);
+    when(notFound.getBody()).thenAnswer(invocation -> {
+      reader.set(Thread.currentThread());
+      return "not found";
+    });
+
+    callbacks.get(0).completed(notFound);
+
+    var failure = assertThrows(NonRetryableException.class, () -> DynamicRestClient.await(call));
+    assertEquals("not found", failure.getMessage());
+    assertNotSame(Thread.currentThread(), reader.get());
+    assertTrue(reader.get().isVirtual());
+  }
+
+  @Test
+  void testShouldTagOnlyConfiguredHostsOnTheRequestTimer() {
+    var configured = restClient.makeApiCallAsync(URL, null, "GET", Map.of()).toCompletableFuture();
+    var first = restClient.makeApiCallAsync("https://a.example.org/items", null, "GET", Map.of())
+      .toCompletableFuture();
+    var second = restClient.makeApiCallAsync("https://b.example.org/items", null, "GET", Map.of())
+      .toCompletableFuture();
+    callbacks.forEach(callback -> callback.completed(response(200)));
+    configured.join();
+    first.join();
+    second.join();
+
+    assertEquals(1, meterRegistry.get("bob.http.client.requests").tag("host", HOST).timer().count());
+    assertEquals(2, meterRegistry.get("bob.http.client.requests").tag("host", HttpConnectionPools.OTHER_ROUTES)
+      .timer().count());
+    assertNull(meterRegistry.find("bob.http.client.requests").tag("host", "a.example.org").timer());
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.config;
+
+import com.aidtaas.mobius.unit.constants.BobConstants;
+import com.aidtaas.mobius.unit.exception.RetryableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+class EndpointGuardsTest {
+
+  private static final String ENDPOINT = "product.example.com";
+
+  @Mock
+  ConfigProperties config;
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private EndpointGuards endpointGuards;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    when(config.bulkheadMaxConcurrent()).thenReturn(1);
+    when(config.circuitBreakerWindowSize()).thenReturn(4);
+    when(config.circuitBreakerMinimumCalls()).thenReturn(2);
+    when(config.circuitBreakerFailureRate()).thenReturn(50);
+    when(config.circuitBreakerOpenDuration()).thenReturn(60000L);
+    when(config.circuitBreakerHalfOpenCalls()).thenReturn(1);
+    when(config.restClientHostMaxPerRoute()).thenReturn(Map.of(ENDPOINT, 10));
+    when(config.circuitBreakerTaggedEndpoints()).thenReturn(Optional.of(List.of("product-a")));
+    meterRegistry = new SimpleMeterRegistry();
+    endpointGuards = new EndpointGuards(config, meterRegistry, new HttpConnectionPools(config, meterRegistry, null));
+    endpointGuards.init();
+  }
+
+  @Test
+  void testShouldRejectCallsAboveTheBulkheadUntilOneIsReleased() {
+    var guard = endpointGuards.acquire(ENDPOINT);
+
+    var rejected = assertThrows(RetryableException.class, () -> endpointGuards.acquire(ENDPOINT));
+    assertEquals(BobConstants.HTTP_STATUS_CODE_429, rejected.getStatusCode());
+
+    guard.release(false);
+    assertDoesNotThrow(() -> endpointGuards.acquire(ENDPOINT));
+  }
+
+  @Test
+  void testShouldOpenTheBreakerOnceTheFailureRateIsCrossed() {
+    endpointGuards.acquire(ENDPOINT).release(true);
+    endpointGuards.acquire(ENDPOINT).release(true);
+
+    var rejected = assertThrows(RetryableException.class, () -> endpointGuards.acquire(ENDPOINT));
+    assertEquals(BobConstants.HTTP_STATUS_CODE_503, rejected.getStatusCode());
+    assertTrue(rejected.getRetryDelay() > 0);
+  }
+
+  @Test
+  void testShouldKeepTheBreakerClosedBelowTheFailureRate() {
+    for (int i = 0; i < 4; i++) {
+      endpointGuards.acquire(ENDPOINT).release(false);
+    }
+    endpointGuards.acquire(ENDPOINT).release(true);
+
+    assertDoesNotThrow(() -> endpointGuards.acquire(ENDPOINT).release(false));
+  }
+
+  @Test
+  void testShouldFreeTheHalfOpenTrialSlotWhenTheTrialIsReleased() {
+    when(config.circuitBreakerOpenDuration()).thenReturn(0L);
+    endpointGuards.acquire(ENDPOINT).release(true);
+    endpointGuards.acquire(ENDPOINT).release(true);
+
+    var trial = endpointGuards.acquire(ENDPOINT);
+    assertThrows(RetryableException.class, () -> endpointGuards.acquire(ENDPOINT));
+
+    trial.release(false);
+    assertDoesNotThrow(() -> endpointGuards.acquire(ENDPOINT).release(false));
+    assertDoesNotThrow(() -> endpointGuards.acquire(ENDPOINT).release(false));
+  }
+
+  @Test
+  void testShouldTagOnlyConfiguredEndpointsOnTheRejectedCounter() {
+    for (String key : List.of(ENDPOINT, "product-a", "a.example.org", "product-b")) {
+      endpointGuards.acquire(key);
+      assertThrows(RetryableException.class, () -> endpointGuards.acquire(key));
+    }
+
+    var rejected = meterRegistry.get("bob.http.breaker.rejected").tag("reason", "bulkhead");
+    assertEquals(1, rejected.tag(EndpointGuards.ENDPOINT_TAG, ENDPOINT).counter().count());
+    assertEquals(1, meterRegistry.get("bob.http.breaker.rejected")
+      .tag(EndpointGuards.ENDPOINT_TAG, "product-a").counter().count());
+    assertEquals(2, meterRegistry.get("bob.http.breaker.rejected")
+      .tag(EndpointGuards.ENDPOINT_TAG, HttpConnectionPools.OTHER_ROUTES).counter().count());
+    assertNull(meterRegistry.find("bob.http.breaker.rejected").tag(EndpointGuards.ENDPOINT_TAG, "product-b").counter());
+  }
+}
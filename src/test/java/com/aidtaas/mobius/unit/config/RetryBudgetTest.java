@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+class RetryBudgetTest {
+
+  @Mock
+  ConfigProperties config;
+
+  private RetryBudget retryBudget;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    when(config.retryBudgetRatio()).thenReturn(0.5);
+    when(config.retryBudgetMinPerSecond()).thenReturn(1);
+    retryBudget = new RetryBudget(config, new SimpleMeterRegistry());
+    retryBudget.init();
+  }
+
+  @Test
+  void testShouldAllowTheMinimumRetriesWithoutAnyCalls() {
+    assertTrue(retryBudget.tryWithdraw());
+    assertFalse(retryBudget.tryWithdraw());
+  }
+
+  @Test
+  void testShouldEarnOneRetryPerCallsOfTheRatio() {
+    assertTrue(retryBudget.tryWithdraw());
+
+    retryBudget.deposit();
+    assertFalse(retryBudget.tryWithdraw());
+
+    retryBudget.deposit();
+    retryBudget.deposit();
+    assertTrue(retryBudget.tryWithdraw());
+    assertFalse(retryBudget.tryWithdraw());
+  }
+
+  @Test
+  void testShouldNotLetTheBalanceGrowPastItsWindow() {
+    assertTrue(retryBudget.tryWithdraw());
+    for (int i = 0; i < 5000; i++) {
+      retryBudget.deposit();
+    }
+
+    int retries = 0;
+    while (retryBudget.tryWithdraw()) {
+      retries++;
+    }
+    assertTrue(retries >= 500 && retries <= 501, "retries: " + retries);
+  }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.config;
+
+import com.aidtaas.mobius.unit.dto.ApiResponseBody;
+import com.aidtaas.mobius.unit.dto.ResponseContent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.impl.BasicEntityDetails;
+import org.apache.hc.core5.http.message.BasicHttpResponse;
+import org.apache.hc.core5.http.nio.CapacityChannel;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpillingResponseConsumerTest {
+
+  private static final String BODY = "{\"items\":[\"first\",\"second\",\"third\"]}";
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  /**
+   * Feeds a body to the consumer the way the reactor does: chunk by chunk, never more than the
+   * capacity granted, asking for more capacity whenever the granted bytes have been consumed.
+   */
+  private ApiResponseBody consume(int threshold, String encoding, byte[] body, int chunkSize,
+                                  List<Integer> grants) throws Exception {
+    var consumer = new SpillingResponseConsumer(threshold, meterRegistry);
+    var response = new BasicHttpResponse(200);
+    if (encoding != null) {
+      response.addHeader(HttpHeaders.CONTENT_ENCODING, encoding);
+      response.addHeader(HttpHeaders.CONTENT_LENGTH, String.valueOf(body.length));
+    }
+    var result = new CompletableFuture<ApiResponseBody>();
+    consumer.consumeResponse(response, new BasicEntityDetails(body.length, ContentType.APPLICATION_JSON), null,
+      callback(result));
+
+    var capacity = new AtomicInteger();
+    CapacityChannel channel = increment -> {
+      grants.add(increment);
+      capacity.addAndGet(increment);
+    };
+    for (int offset = 0; offset < body.length; ) {
+      if (capacity.get() <= 0) {
+        consumer.updateCapacity(channel);
+        awaitCapacity(capacity);
+      }
+      int length = Math.min(Math.min(chunkSize, capacity.get()), body.length - offset);
+      consumer.consume(ByteBuffer.wrap(body, offset, length));
+      capacity.addAndGet(-length);
+      offset += length;
+    }
+    consumer.streamEnd(null);
+    consumer.releaseResources();
+    return result.get(5, TimeUnit.SECONDS);
+  }
+
+  private ApiResponseBody consume(int threshold, byte[] body, int chunkSize) throws Exception {
+    return consume(threshold, null, body, chunkSize);
+  }
+
+  private ApiResponseBody consume(int threshold, String encoding, byte[] body, int chunkSize) throws Exception {
+    return consume(threshold, encoding, body, chunkSize, new CopyOnWriteArrayList<>());
+  }
+
+  private static byte[] encode(byte[] body, OutputStreamFactory factory) throws IOException {
+    var bytes = new ByteArrayOutputStream();
+    try (OutputStream out = factory.wrap(bytes)) {
+      out.write(body);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static void awaitCapacity(AtomicInteger capacity) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (capacity.get() <= 0) {
+      assertTrue(System.nanoTime() < deadline, "reading was never resumed");
+      Thread.sleep(1);
+    }
+  }
+
+  private static FutureCallback<ApiResponseBody> callback(CompletableFuture<ApiResponseBody> result) {
+    return new FutureCallback<>() {
+      @Override
+      public void completed(ApiResponseBody response) {
+        result.complete(response);
+      }
+
+      @Override
+      public void failed(Exception e) {
+        result.completeExceptionally(e);
+      }
+
+      @Override
+      public void cancelled() {
+        result.cancel(false);
+      }
+    };
+  }
+
+  private static byte[] largeBody(int size) {
+    byte[] body = new byte[size];
+    for (int i = 0; i < size; i++) {
+      body[i] = (byte) ('a' + i % 26);
+    }
+    return body;
+  }
+
+  @Test
+  void testShouldKeepASmallBodyInMemory() throws Exception {
+    var response = consume(1024, BODY.getBytes(StandardCharsets.UTF_8), 8);
+
+    assertFalse(response.getContent().isSpilled());
+    assertEquals(BODY, response.getBody());
+    assertEquals(BODY.length(), response.getBodySize());
+  }
+
+  @Test
+  void testShouldSpillALargeBodyAndReadItBackWhole() throws Exception {
+    var response = consume(16, BODY.getBytes(StandardCharsets.UTF_8), 5);
+
+    assertTrue(response.getContent().isSpilled());
+    assertEquals(BODY, response.getBody());
+    assertArrayEquals(BODY.getBytes(StandardCharsets.UTF_8), response.getBodyBytes());
+    response.release();
+  }
+
+  @Test
+  void testShouldNeverGrantMoreThanTheWriteWindow() throws Exception {
+    byte[] body = largeBody(4 * SpillingResponseConsumer.WRITE_WINDOW + 123);
+    List<Integer> grants = new CopyOnWriteArrayList<>();
+
+    var response = consume(1024, null, body, 16 * 1024, grants);
+
+    assertTrue(grants.size() > 1, "grants: " + grants);
+    assertTrue(grants.stream().allMatch(grant -> grant > 0 && grant <= SpillingResponseConsumer.WRITE_WINDOW),
+      "grants: " + grants);
+    assertArrayEquals(body, response.getBodyBytes());
+    response.release();
+  }
+
+  @Test
+  void testShouldDescribeTheResponseWithoutReadingTheBody() throws Exception {
+    var response = consume(16, BODY.getBytes(StandardCharsets.UTF_8), 5);
+
+    String description = response.toString();
+
+    assertTrue(description.contains("\"bodySize\":" + BODY.length()), description);
+    assertTrue(description.contains("\"spilled\":true"), description);
+    assertFalse(description.contains("first"), description);
+    response.release();
+  }
+
+  @Test
+  void testShouldSerializeASpilledBodyWithoutDecodingItFirst() throws Exception {
+    var response = consume(16, BODY.getBytes(StandardCharsets.UTF_8), 5);
+
+    var bytes = new ByteArrayOutputStream();
+    try (var out = new ObjectOutputStream(bytes)) {
+      out.writeObject(response);
+    }
+    response.release();
+    ApiResponseBody copy;
+    try (var in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      copy = (ApiResponseBody) in.readObject();
+    }
+
+    assertEquals(200, copy.getStatusCodeValue());
+    assertEquals(BODY, copy.getBody());
+  }
+
+  @Test
+  void testShouldSerializeADecodedBodyAsIs() throws IOException, ClassNotFoundException {
+    var response = ApiResponseBody.builder().statusCodeValue(201).body(BODY).build();
+
+    var bytes = new ByteArrayOutputStream();
+    try (var out = new ObjectOutputStream(bytes)) {
+      out.writeObject(response);
+    }
+    ApiResponseBody copy;
+    try (var in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      copy = (ApiResponseBody) in.readObject();
+    }
+
+    assertEquals(BODY, copy.getBody());
+  }
+
+  @Test
+  void testShouldDecodeASpilledGzipBody() throws Exception {
+    byte[] gzipped = encode(BODY.getBytes(StandardCharsets.UTF_8), GZIPOutputStream::new);
+
+    var response = consume(16, ResponseContent.GZIP, gzipped, 7);
+
+    assertTrue(response.getContent().isSpilled());
+    assertEquals(BODY, response.getBody());
+    assertEquals(gzipped.length, response.getContent().encodedSize());
+    assertEquals(BODY.length(), response.getContent().size());
+    assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_LENGTH));
+    response.release();
+  }
+
+  @Test
+  void testShouldDecodeAnInMemoryDeflateBody() throws Exception {
+    byte[] deflated = encode(BODY.getBytes(StandardCharsets.UTF_8), DeflaterOutputStream::new);
+
+    var response = consume(1024, ResponseContent.DEFLATE, deflated, 1024);
+
+    assertFalse(response.getContent().isSpilled());
+    assertEquals(BODY, response.getBody());
+    assertEquals(BODY.length(), response.getContent().size());
+  }
+
+  @Test
+  void testShouldCountCompressedAndUncompressedBytes() throws Exception {
+    byte[] gzipped = encode(BODY.getBytes(StandardCharsets.UTF_8), GZIPOutputStream::new);
+
+    consume(1024, ResponseContent.GZIP, gzipped, 1024).getBody();
+
+    assertEquals(gzipped.length, meterRegistry.get("bob.http.client.response.bytes")
+      .tags("encoding", ResponseContent.GZIP, "form", "compressed").counter().count());
+    assertEquals(BODY.length(), meterRegistry.get("bob.http.client.response.bytes")
+      .tags("encoding", ResponseContent.GZIP, "form", "uncompressed").counter().count());
+  }
+
+  @FunctionalInterface
+  private interface OutputStreamFactory {
+
+    OutputStream wrap(OutputStream out) throws IOException;
+  }
+}
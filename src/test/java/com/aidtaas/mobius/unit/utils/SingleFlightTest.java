@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.utils;
+
+import com.aidtaas.mobius.unit.exception.NonRetryableException;
+import com.aidtaas.mobius.unit.exception.RetryableException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+
+  private static final long TIMEOUT = 5000;
+
+  @Test
+  void testShouldShareOneLookupBetweenConcurrentCallers() throws Exception {
+    var flights = new SingleFlight<String, String>("test");
+    var lookups = new AtomicInteger();
+    var lookupStarted = new CountDownLatch(1);
+    var finishLookup = new CountDownLatch(1);
+
+    var first = CompletableFuture.supplyAsync(() -> flights.get("key", () -> {
+      lookups.incrementAndGet();
+      lookupStarted.countDown();
+      await(finishLookup);
+      return "value";
+    }, TIMEOUT));
+    assertTrue(lookupStarted.await(TIMEOUT, TimeUnit.MILLISECONDS));
+    var second = new CompletableFuture<String>();
+    var secondCaller = new Thread(() -> second.complete(flights.get("key", () -> {
+      lookups.incrementAndGet();
+      return "other";
+    }, TIMEOUT)));
+    secondCaller.start();
+    // The second caller is parked on the flight of the first before the lookup is let go
+    long giveUpAt = System.currentTimeMillis() + TIMEOUT;
+    while (secondCaller.getState() != Thread.State.TIMED_WAITING && System.currentTimeMillis() < giveUpAt) {
+      Thread.onSpinWait();
+    }
+    finishLookup.countDown();
+
+    assertEquals("value", first.get(TIMEOUT, TimeUnit.MILLISECONDS));
+    assertEquals("value", second.get(TIMEOUT, TimeUnit.MILLISECONDS));
+    assertEquals(1, lookups.get());
+  }
+
+  @Test
+  void testShouldHandEachCallerItsOwnCopyOfARetryableFailure() {
+    var original = new RetryableException("unavailable", 503, 2000);
+    var flight = CompletableFuture.<String>failedFuture(original);
+
+    var firstCopy = assertThrows(RetryableException.class, () -> SingleFlight.await(flight, TIMEOUT, "test"));
+    var secondCopy = assertThrows(RetryableException.class, () -> SingleFlight.await(flight, TIMEOUT, "test"));
+
+    assertNotSame(original, firstCopy);
+    assertNotSame(firstCopy, secondCopy);
+    assertEquals("unavailable", firstCopy.getMessage());
+    assertEquals(503, firstCopy.getStatusCode());
+    assertEquals(2000, firstCopy.getRetryDelay());
+    assertSame(original, firstCopy.getCause());
+  }
+
+  @Test
+  void testShouldHandEachCallerItsOwnCopyOfANonRetryableFailure() {
+    var original = new NonRetryableException("not found", 404);
+    var flight = CompletableFuture.<String>failedFuture(original);
+
+    var copy = assertThrows(NonRetryableException.class, () -> SingleFlight.await(flight, TIMEOUT, "test"));
+
+    assertNotSame(original, copy);
+    assertEquals(404, copy.getStatusCode());
+    assertSame(original, copy.getCause());
+  }
+
+  @Test
+  void testShouldWrapUnexpectedFailuresAsNonRetryable() {
+    var original = new IllegalStateException("broken");
+    var flight = CompletableFuture.<String>failedFuture(original);
+
+    var copy = assertThrows(NonRetryableException.class, () -> SingleFlight.await(flight, TIMEOUT, "test"));
+
+    assertSame(original, copy.getCause());
+  }
+
+  @Test
+  void testShouldPassOnTheFailureOfALookupThatJoinedAnAsyncCall() {
+    var flights = new SingleFlight<String, String>("test");
+    var original = new RetryableException("unavailable", 503);
+
+    var copy = assertThrows(RetryableException.class, () -> flights.get("key",
+      () -> CompletableFuture.<String>failedFuture(original).join(), TIMEOUT));
+
+    assertEquals(503, copy.getStatusCode());
+    assertSame(original, copy.getCause());
+  }
+
+  @Test
+  void testShouldTimeOutWithoutCancellingTheLookup() {
+    var flight = new CompletableFuture<String>();
+
+    assertThrows(RetryableException.class, () -> SingleFlight.await(flight, 10, "test"));
+
+    assertFalse(flight.isDone());
+    flight.complete("value");
+    assertEquals("value", SingleFlight.await(flight, TIMEOUT, "test"));
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(TIMEOUT, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
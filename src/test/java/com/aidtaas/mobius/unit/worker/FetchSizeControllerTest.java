@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.worker;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FetchSizeControllerTest {
+
+  private static final long LOCK_DURATION = 60000;
+
+  private final FetchSizeController controller = new FetchSizeController();
+
+  private void recordLatencies(long millis) {
+    for (int i = 0; i < 10; i++) {
+      controller.getLatencies().record(millis);
+    }
+  }
+
+  @Test
+  void testShouldFetchFreeSlotsAndOneRoundOfBacklogWithoutLatencies() {
+    assertEquals(20, controller.decide(10, 0, 10, 50, LOCK_DURATION, true));
+    assertEquals(10, controller.lastStartable());
+  }
+
+  @Test
+  void testShouldCapTheFetchAtMaxTasks() {
+    assertEquals(5, controller.decide(10, 0, 10, 5, LOCK_DURATION, true));
+  }
+
+  @Test
+  void testShouldOnlyFetchTheBacklogStartableWithinTheLockBudget() {
+    // 48 s of budget at 96 s per task: the 10 busy slots start 5 more tasks in time
+    recordLatencies(96000);
+
+    assertEquals(5, controller.decide(0, 0, 10, 50, LOCK_DURATION, true));
+    assertEquals(2, controller.decide(0, 3, 10, 50, LOCK_DURATION, true));
+  }
+
+  @Test
+  void testShouldStopFetchingOnceTheQueueIsSaturated() {
+    recordLatencies(100);
+
+    assertEquals(0, controller.decide(0, 10, 10, 50, LOCK_DURATION, true));
+    assertEquals(0, controller.decide(2, 12, 10, 50, LOCK_DURATION, true));
+  }
+
+  @Test
+  void testShouldLeaveTimeToFinishWhenTheLockIsNotRenewed() {
+    // 48 s of budget minus a 40 s p95 leaves 8 s of wait, one task per busy slot every 40 s
+    recordLatencies(40000);
+
+    assertEquals(2, controller.decide(0, 0, 10, 50, LOCK_DURATION, false));
+    assertEquals(10, controller.decide(0, 0, 10, 50, LOCK_DURATION, true));
+  }
+
+  @Test
+  void testShouldFetchOneTaskAtATimeWhenTasksOutliveTheLock() {
+    recordLatencies(50000);
+
+    assertEquals(1, controller.decide(4, 0, 10, 50, LOCK_DURATION, false));
+    assertEquals(0, controller.decide(0, 0, 10, 50, LOCK_DURATION, false));
+    assertEquals(0, controller.decide(1, 1, 10, 50, LOCK_DURATION, false));
+  }
+}
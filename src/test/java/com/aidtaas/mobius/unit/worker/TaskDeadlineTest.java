@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.worker;
+
+import com.aidtaas.mobius.unit.constants.BobConstants;
+import com.aidtaas.mobius.unit.exception.DeadlineExceededException;
+import java.util.Date;
+import org.camunda.bpm.client.task.ExternalTask;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TaskDeadlineTest {
+
+  private static final long SCRIPT_TIMEOUT = 600000;
+
+  private static TaskDeadline deadline(long lockLeftMillis, boolean renewable) {
+    ExternalTask externalTask = mock(ExternalTask.class);
+    when(externalTask.getLockExpirationTime()).thenReturn(new Date(System.currentTimeMillis() + lockLeftMillis));
+    return TaskDeadline.of(externalTask, renewable);
+  }
+
+  @Test
+  void testShouldNotCapTimeoutsWhileTheLockIsRenewed() {
+    TaskDeadline deadline = deadline(60000, true);
+
+    assertTrue(deadline.isRenewed());
+    assertEquals(SCRIPT_TIMEOUT, deadline.timeoutMillis(SCRIPT_TIMEOUT));
+  }
+
+  @Test
+  void testShouldCapTimeoutsByTheLockWhenItIsNotRenewed() {
+    TaskDeadline deadline = deadline(60000, false);
+
+    assertFalse(deadline.isRenewed());
+    assertTrue(deadline.timeoutMillis(SCRIPT_TIMEOUT) <= 60000 - BobConstants.DEADLINE_RESERVE_MS);
+  }
+
+  @Test
+  void testShouldCapTimeoutsByTheExtendedLock() {
+    TaskDeadline deadline = deadline(60000, false);
+
+    deadline.extended(System.currentTimeMillis() + SCRIPT_TIMEOUT + BobConstants.DEADLINE_RESERVE_MS);
+
+    assertTrue(deadline.timeoutMillis(SCRIPT_TIMEOUT) > SCRIPT_TIMEOUT - 1000);
+  }
+
+  @Test
+  void testShouldStopCappingOnceARenewalFails() {
+    TaskDeadline deadline = deadline(60000, true);
+
+    deadline.renewalFailed();
+
+    assertFalse(deadline.isRenewed());
+    assertTrue(deadline.timeoutMillis(SCRIPT_TIMEOUT) <= 60000);
+  }
+
+  @Test
+  void testShouldOnlyFailTheBudgetOfARenewedLockOnceItLapsed() {
+    assertDoesNotThrow(() -> deadline(1000, true).checkBudget("step"));
+    assertThrows(DeadlineExceededException.class, () -> deadline(-1000, true).checkBudget("step"));
+    assertThrows(DeadlineExceededException.class, () -> deadline(1000, false).checkBudget("step"));
+  }
+
+  @Test
+  void testShouldNotFailChecksOnceSideEffectsStarted() {
+    TaskDeadline deadline = deadline(10000, false);
+
+    deadline.startSideEffects("script");
+    deadline.renewed(System.currentTimeMillis() - 1000);
+
+    assertDoesNotThrow(() -> deadline.checkBudget("completion"));
+    assertDoesNotThrow(() -> deadline.checkLock("completion"));
+  }
+
+  @Test
+  void testShouldHaveNoDeadlineWithoutALock() {
+    ExternalTask externalTask = mock(ExternalTask.class);
+
+    TaskDeadline deadline = TaskDeadline.of(externalTask, false);
+
+    assertEquals(TaskDeadline.NONE, deadline);
+    assertTrue(deadline.isRenewed());
+    assertEquals(SCRIPT_TIMEOUT, deadline.timeoutMillis(SCRIPT_TIMEOUT));
+  }
+}
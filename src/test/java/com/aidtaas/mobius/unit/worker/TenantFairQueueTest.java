@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.worker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TenantFairQueueTest {
+
+  private static TenantFairQueue.QueuedTask task(String key) {
+    return new TenantFairQueue.QueuedTask(null, null, key, System.currentTimeMillis());
+  }
+
+  private static List<String> drain(TenantFairQueue queue, int count) {
+    List<String> order = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      TenantFairQueue.QueuedTask next = queue.poll();
+      order.add(next.key());
+      queue.done(next.key());
+    }
+    return order;
+  }
+
+  @Test
+  void testShouldServeLanesInProportionToTheirWeights() {
+    var queue = new TenantFairQueue(Map.of("a", 1, "b", 3), Map.of(TenantFairQueue.DEFAULT_KEY, 10), false,
+      (key, wait) -> { });
+    for (int i = 0; i < 4; i++) {
+      assertTrue(queue.offer(task("a")));
+      assertTrue(queue.offer(task("b")));
+    }
+
+    List<String> firstFour = drain(queue, 4);
+
+    assertEquals(3, firstFour.stream().filter("b"::equals).count());
+    assertEquals(1, firstFour.stream().filter("a"::equals).count());
+    assertEquals(4, queue.size());
+  }
+
+  @Test
+  void testShouldRejectTasksAboveTheLaneCap() {
+    var queue = new TenantFairQueue(Map.of(), Map.of("a", 2), false, (key, wait) -> { });
+
+    assertTrue(queue.offer(task("a")));
+    assertTrue(queue.offer(task("a")));
+    assertFalse(queue.offer(task("a")));
+    assertTrue(queue.offer(task("b")));
+    assertEquals(3, queue.size());
+  }
+
+  @Test
+  void testShouldSkipLanesRunningAsManyTasksAsTheirCap() {
+    var queue = new TenantFairQueue(Map.of(), Map.of("a", 1), false, (key, wait) -> { });
+    queue.offer(task("a"));
+    assertEquals("a", queue.poll().key());
+
+    assertTrue(queue.offer(task("a")));
+    assertNull(queue.poll());
+
+    queue.done("a");
+    assertEquals("a", queue.poll().key());
+  }
+
+  @Test
+  void testShouldNotLetAnIdleLaneBuildUpCredit() {
+    var queue = new TenantFairQueue(Map.of(TenantFairQueue.DEFAULT_KEY, 1), Map.of(TenantFairQueue.DEFAULT_KEY, 10),
+      false, (key, wait) -> { });
+    for (int i = 0; i < 8; i++) {
+      queue.offer(task("a"));
+    }
+    drain(queue, 3);
+    for (int i = 0; i < 4; i++) {
+      queue.offer(task("b"));
+    }
+
+    List<String> order = drain(queue, 4);
+
+    assertEquals("b", order.get(0));
+    assertTrue(order.contains("a"));
+  }
+}
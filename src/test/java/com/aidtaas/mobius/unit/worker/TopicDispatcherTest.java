@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.worker;
+
+import com.aidtaas.mobius.unit.constants.BobConstants;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.camunda.bpm.client.task.ExternalTask;
+import org.camunda.bpm.client.task.ExternalTaskHandler;
+import org.camunda.bpm.client.task.ExternalTaskService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TopicDispatcherTest {
+
+  private static final long LOCK_DURATION = 60000;
+
+  private final List<String> started = Collections.synchronizedList(new ArrayList<>());
+
+  private final CountDownLatch blockerStarted = new CountDownLatch(1);
+
+  private final CountDownLatch unblock = new CountDownLatch(1);
+
+  private ExternalTaskService externalTaskService;
+
+  private TopicDispatcher dispatcher;
+
+  @BeforeEach
+  void setUp() {
+    externalTaskService = mock(ExternalTaskService.class);
+  }
+
+  @AfterEach
+  void tearDown() {
+    unblock.countDown();
+    dispatcher.shutdown();
+  }
+
+  private static TopicDispatcher dispatcher(int maxInFlight, TenantFairQueue queue, ExternalTaskHandler handler) {
+    return new TopicDispatcher("topic", handler, 10, maxInFlight, LOCK_DURATION, null, queue);
+  }
+
+  private static TenantFairQueue queue() {
+    return new TenantFairQueue(Map.of(), Map.of(), false, (key, wait) -> { });
+  }
+
+  /**
+   * Records the tenant of every task it starts and holds the task with id "blocker" until
+   * {@link #unblock} is released.
+   */
+  private ExternalTaskHandler recording(CountDownLatch finished) {
+    return (ExternalTask externalTask, ExternalTaskService service) -> {
+      started.add(externalTask.getVariable(BobConstants.TENANT_ID_GLOBAL));
+      if ("blocker".equals(externalTask.getId())) {
+        blockerStarted.countDown();
+        await(unblock);
+      }
+      finished.countDown();
+    };
+  }
+
+  private static ExternalTask task(String id, String tenant) {
+    ExternalTask externalTask = mock(ExternalTask.class);
+    when(externalTask.getId()).thenReturn(id);
+    when(externalTask.getVariable(BobConstants.TENANT_ID_GLOBAL)).thenReturn(tenant);
+    return externalTask;
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      assertTrue(latch.await(5, TimeUnit.SECONDS));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Test
+  void testShouldRunEachTaskOnANamedVirtualThread() {
+    var finished = new CountDownLatch(2);
+    List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+    dispatcher = dispatcher(2, queue(), (ExternalTask externalTask, ExternalTaskService service) -> {
+      threads.add(Thread.currentThread());
+      finished.countDown();
+    });
+
+    dispatcher.execute(task("t0", "a"), externalTaskService);
+    dispatcher.execute(task("t1", "a"), externalTaskService);
+    await(finished);
+
+    assertEquals(2, threads.size());
+    assertTrue(threads.stream().allMatch(Thread::isVirtual));
+    assertTrue(threads.stream().allMatch(thread -> thread.getName().startsWith("topic-")));
+    assertNotSame(threads.get(0), threads.get(1));
+  }
+
+  @Test
+  void testShouldNotRunMoreTasksThanTheInFlightLimit() {
+    var finished = new CountDownLatch(12);
+    var running = new AtomicInteger();
+    var mostRunning = new AtomicInteger();
+    dispatcher = dispatcher(3, queue(), (ExternalTask externalTask, ExternalTaskService service) -> {
+      mostRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+      try {
+        Thread.sleep(20);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      running.decrementAndGet();
+      finished.countDown();
+    });
+
+    for (int i = 0; i < 12; i++) {
+      dispatcher.execute(task("t" + i, "a" + i), externalTaskService);
+    }
+    await(finished);
+
+    assertEquals(3, mostRunning.get());
+    verify(externalTaskService, never()).unlock(any());
+  }
+
+  @Test
+  void testShouldStartAWaitingTaskOnceASlotIsFree() {
+    var finished = new CountDownLatch(2);
+    dispatcher = dispatcher(1, queue(), recording(finished));
+    dispatcher.execute(task("blocker", "z"), externalTaskService);
+    await(blockerStarted);
+
+    dispatcher.execute(task("t0", "a"), externalTaskService);
+    assertEquals(0, dispatcher.freeSlots());
+    assertEquals(2, dispatcher.inFlight());
+    assertEquals(List.of("z"), started);
+
+    unblock.countDown();
+    await(finished);
+
+    assertEquals(List.of("z", "a"), started);
+  }
+
+  @Test
+  void testShouldTakeMoreTasksOnceTheInFlightLimitIsRaised() {
+    var finished = new CountDownLatch(1);
+    dispatcher = dispatcher(1, queue(), recording(finished));
+    dispatcher.execute(task("blocker", "z"), externalTaskService);
+    await(blockerStarted);
+    dispatcher.execute(task("t0", "a"), externalTaskService);
+
+    dispatcher.setMaxInFlight(2);
+
+    await(finished);
+    assertEquals(List.of("z", "a"), started);
+  }
+
+  @Test
+  void testShouldQueueTasksWhileNoSlotIsFreeAndRunThemByWeight() {
+    var finished = new CountDownLatch(9);
+    var queue = new TenantFairQueue(Map.of("a", 1, "b", 3), Map.of(TenantFairQueue.DEFAULT_KEY, 10), false,
+      (key, wait) -> { });
+    dispatcher = dispatcher(1, queue, recording(finished));
+    dispatcher.execute(task("blocker", "z"), externalTaskService);
+    await(blockerStarted);
+
+    for (int i = 0; i < 4; i++) {
+      dispatcher.execute(task("a" + i, "a"), externalTaskService);
+      dispatcher.execute(task("b" + i, "b"), externalTaskService);
+    }
+    assertEquals(8, dispatcher.queued());
+    assertEquals(9, dispatcher.inFlight());
+
+    unblock.countDown();
+    await(finished);
+
+    List<String> firstFour = started.subList(1, 5);
+    assertEquals(3, firstFour.stream().filter("b"::equals).count());
+    verify(externalTaskService, never()).unlock(any());
+  }
+
+  @Test
+  void testShouldUnlockOnlyTheTasksTheLaneCapRejects() {
+    var queue = new TenantFairQueue(Map.of(), Map.of("a", 1), false, (key, wait) -> { });
+    dispatcher = dispatcher(1, queue, recording(new CountDownLatch(3)));
+    dispatcher.execute(task("blocker", "z"), externalTaskService);
+    await(blockerStarted);
+
+    ExternalTask accepted = task("a0", "a");
+    ExternalTask rejected = task("a1", "a");
+    dispatcher.execute(accepted, externalTaskService);
+    dispatcher.execute(rejected, externalTaskService);
+
+    verify(externalTaskService).unlock(rejected);
+    verify(externalTaskService, never()).unlock(accepted);
+    assertEquals(1, dispatcher.queued());
+  }
+
+  @Test
+  void testShouldLeaveRoomInTheFetchShareForABacklog() {
+    dispatcher = dispatcher(1, queue(), recording(new CountDownLatch(2)));
+    assertEquals(2, dispatcher.fetchShare());
+
+    dispatcher.execute(task("blocker", "z"), externalTaskService);
+    await(blockerStarted);
+    assertEquals(1, dispatcher.fetchShare());
+
+    dispatcher.execute(task("a0", "a"), externalTaskService);
+    assertEquals(0, dispatcher.fetchShare());
+  }
+
+  @Test
+  void testShouldNotFetchWhilePaused() {
+    dispatcher = dispatcher(1, queue(), recording(new CountDownLatch(1)));
+
+    dispatcher.pause();
+    assertEquals(0, dispatcher.fetchShare());
+
+    dispatcher.resume();
+    assertEquals(2, dispatcher.fetchShare());
+  }
+}
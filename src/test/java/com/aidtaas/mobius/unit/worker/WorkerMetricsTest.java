@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2024.
+ * Gaian Solutions Pvt. Ltd.
+ * All rights reserved.
+ */
+package com.aidtaas.mobius.unit.worker;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WorkerMetricsTest {
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  @Test
+  void testShouldOnlyGiveConfiguredTenantsTheirOwnQueueWaitTimer() {
+    var recorder = WorkerMetrics.queueWaitRecorder(registry, "topic", Set.of("gold"));
+
+    recorder.accept("gold", 10);
+    recorder.accept("gold/product-1", 20);
+    for (int i = 0; i < 100; i++) {
+      recorder.accept("tenant-" + i, 5);
+    }
+
+    assertEquals(2, registry.get("bob.worker.tenant.queue.wait").timers().size());
+    assertEquals(2, timer("gold").count());
+    assertEquals(100, timer(WorkerMetrics.OTHER_TENANTS).count());
+  }
+
+  private Timer timer(String tenant) {
+    return registry.get("bob.worker.tenant.queue.wait")
+      .tags(WorkerMetrics.TOPIC_TAG, "topic", WorkerMetrics.TENANT_TAG, tenant)
+      .timer();
+  }
+}